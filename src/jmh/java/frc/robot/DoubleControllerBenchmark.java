@@ -0,0 +1,177 @@
+package frc.robot;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.wpi.first.wpilibj.XboxController;
+
+
+/**
+ * Benchmarks for sampling the {@link DoubleController} and reading its getters. The
+ * controllers are stubbed so the numbers show the cost of our own code, not of reading
+ * Driver Station data.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DoubleControllerBenchmark
+{
+	private DoubleController controller;
+
+	@Setup
+	public void setup()
+	{
+		this.controller = new DoubleController(new StubXboxController(0, 90), new StubXboxController(1, -1));
+		this.controller.update();
+	}
+
+	@Benchmark
+	public int update()
+	{
+		this.controller.update();
+		return this.controller.getButtons();
+	}
+
+	@Benchmark
+	public void axes(Blackhole blackhole)
+	{
+		blackhole.consume(this.controller.getLeftX());
+		blackhole.consume(this.controller.getLeftY());
+		blackhole.consume(this.controller.getRightX());
+		blackhole.consume(this.controller.getRightY());
+		blackhole.consume(this.controller.getLeftTrigger());
+		blackhole.consume(this.controller.getRightTrigger());
+	}
+
+	@Benchmark
+	public void buttons(Blackhole blackhole)
+	{
+		blackhole.consume(this.controller.getXButton());
+		blackhole.consume(this.controller.getAButton());
+		blackhole.consume(this.controller.getBButton());
+		blackhole.consume(this.controller.getYButton());
+		blackhole.consume(this.controller.getLeftBumper());
+		blackhole.consume(this.controller.getRightBumper());
+		blackhole.consume(this.controller.getViewButton());
+		blackhole.consume(this.controller.getMenuButton());
+	}
+
+	@Benchmark
+	public void dPad(Blackhole blackhole)
+	{
+		blackhole.consume(this.controller.getDUp());
+		blackhole.consume(this.controller.getDRight());
+		blackhole.consume(this.controller.getDDown());
+		blackhole.consume(this.controller.getDLeft());
+		blackhole.consume(this.controller.getDUpRight());
+		blackhole.consume(this.controller.getDDownRight());
+		blackhole.consume(this.controller.getDDownLeft());
+		blackhole.consume(this.controller.getUpLeft());
+	}
+
+	/**
+	 * An Xbox controller that returns fixed values instead of reading the Driver Station.
+	 */
+	public static class StubXboxController extends XboxController
+	{
+		private final int pov;
+
+		public StubXboxController(int port, int pov)
+		{
+			super(port);
+			this.pov = pov;
+		}
+
+		@Override
+		public double getRawAxis(int axis)
+		{
+			return 0.1d * axis - 0.2d;
+		}
+
+		@Override
+		public double getLeftX()
+		{
+			return this.getRawAxis(XboxController.Axis.kLeftX.value);
+		}
+
+		@Override
+		public double getLeftY()
+		{
+			return this.getRawAxis(XboxController.Axis.kLeftY.value);
+		}
+
+		@Override
+		public double getRightX()
+		{
+			return this.getRawAxis(XboxController.Axis.kRightX.value);
+		}
+
+		@Override
+		public double getRightY()
+		{
+			return this.getRawAxis(XboxController.Axis.kRightY.value);
+		}
+
+		@Override
+		public boolean getRawButton(int button)
+		{
+			return (button & 1) == 0;
+		}
+
+		@Override
+		public boolean getXButton()
+		{
+			return this.getRawButton(XboxController.Button.kX.value);
+		}
+
+		@Override
+		public boolean getAButton()
+		{
+			return this.getRawButton(XboxController.Button.kA.value);
+		}
+
+		@Override
+		public boolean getBButton()
+		{
+			return this.getRawButton(XboxController.Button.kB.value);
+		}
+
+		@Override
+		public boolean getYButton()
+		{
+			return this.getRawButton(XboxController.Button.kY.value);
+		}
+
+		@Override
+		public boolean getLeftBumper()
+		{
+			return this.getRawButton(XboxController.Button.kLeftBumper.value);
+		}
+
+		@Override
+		public boolean getRightBumper()
+		{
+			return this.getRawButton(XboxController.Button.kRightBumper.value);
+		}
+
+		@Override
+		public int getPOV()
+		{
+			return this.pov;
+		}
+	}
+}
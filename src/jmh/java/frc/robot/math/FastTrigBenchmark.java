@@ -0,0 +1,76 @@
+package frc.robot.math;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Compares {@link FastTrig} against the {@link Math} functions it replaces.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FastTrigBenchmark
+{
+	// Non-final so the JIT can't fold the inputs into constants.
+	private double angle;
+	private double x;
+	private double y;
+
+	@Setup
+	public void setup()
+	{
+		this.angle = 2.1d;
+		this.x = -3.25d;
+		this.y = 1.5d;
+	}
+
+	@Benchmark
+	public double mathSin()
+	{
+		return Math.sin(this.angle);
+	}
+
+	@Benchmark
+	public double fastSin()
+	{
+		return FastTrig.sin(this.angle);
+	}
+
+	@Benchmark
+	public double mathCos()
+	{
+		return Math.cos(this.angle);
+	}
+
+	@Benchmark
+	public double fastCos()
+	{
+		return FastTrig.cos(this.angle);
+	}
+
+	@Benchmark
+	public double mathAtan2()
+	{
+		return Math.atan2(this.y, this.x);
+	}
+
+	@Benchmark
+	public double fastAtan2()
+	{
+		return FastTrig.atan2(this.y, this.x);
+	}
+}
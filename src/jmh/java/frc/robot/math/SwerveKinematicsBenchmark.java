@@ -0,0 +1,69 @@
+package frc.robot.math;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Benchmarks for {@link SwerveKinematics} with a four module drive.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SwerveKinematicsBenchmark
+{
+	private SwerveKinematics kinematics;
+	private double vx;
+	private double vy;
+	private double omega;
+	private double maxSpeed;
+
+	@Setup
+	public void setup()
+	{
+		this.kinematics = new SwerveKinematics(
+			new Vec2d(11.5d, 11.5d),
+			new Vec2d(-11.5d, 11.5d),
+			new Vec2d(-11.5d, -11.5d),
+			new Vec2d(11.5d, -11.5d));
+		this.vx = 60d;
+		this.vy = -25d;
+		this.omega = 1.2d;
+		this.maxSpeed = 150d;
+
+		for(int i = 0; i < this.kinematics.getModuleCount(); i++)
+		{
+			this.kinematics.setMeasuredSteerTicks(i, 1000d * i);
+			this.kinematics.setMeasuredDriveVelocity(i, 5000d);
+		}
+	}
+
+	@Benchmark
+	public void toModuleStates(Blackhole blackhole)
+	{
+		this.kinematics.toModuleStates(this.vx, this.vy, this.omega, this.maxSpeed);
+		blackhole.consume(this.kinematics.getSteerTicks(0));
+		blackhole.consume(this.kinematics.getDriveTicksPer100ms(3));
+	}
+
+	@Benchmark
+	public double toChassisSpeeds()
+	{
+		this.kinematics.toChassisSpeeds();
+		return this.kinematics.getChassisOmega();
+	}
+}
@@ -0,0 +1,105 @@
+package frc.robot.math;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Benchmarks for {@link Vec2d} and its in-place counterpart {@link MutableVec2d}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Vec2dBenchmark
+{
+	// Non-final so the JIT can't fold the inputs into constants.
+	private double x;
+	private double y;
+	private double negativeZero;
+	private double nan;
+	private double rotation;
+	private Vec2d a;
+	private Vec2d b;
+	private MutableVec2d scratch;
+
+	@Setup
+	public void setup()
+	{
+		this.x = 3.25d;
+		this.y = -1.5d;
+		this.negativeZero = -0d;
+		this.nan = Double.NaN;
+		this.rotation = 0.3d;
+		this.a = new Vec2d(this.x, this.y);
+		this.b = new Vec2d(-2d, 4.75d);
+		this.scratch = new MutableVec2d();
+	}
+
+	@Benchmark
+	public Vec2d construct()
+	{
+		return new Vec2d(this.x, this.y);
+	}
+
+	@Benchmark
+	public Vec2d constructNormalized()
+	{
+		// Exercises the NaN and -0 cleanup branches.
+		return new Vec2d(this.negativeZero, this.nan);
+	}
+
+	@Benchmark
+	public Vec2d constructPolar()
+	{
+		return new Vec2d(this.rotation, this.x, false);
+	}
+
+	@Benchmark
+	public Vec2d rotate()
+	{
+		return this.a.rotate(this.rotation, false);
+	}
+
+	@Benchmark
+	public MutableVec2d rotateInPlace()
+	{
+		return this.scratch.set(this.a).rotateInPlace(this.rotation, false);
+	}
+
+	@Benchmark
+	public double getAngle()
+	{
+		return this.a.getAngle();
+	}
+
+	@Benchmark
+	public double distanceTo()
+	{
+		return this.a.distanceTo(this.b);
+	}
+
+	@Benchmark
+	public Vec2d addScaleNormalize()
+	{
+		return this.a.add(this.b).scale(this.x).normalize();
+	}
+
+	@Benchmark
+	public MutableVec2d addScaleNormalizeInPlace()
+	{
+		return this.scratch.set(this.a).addInPlace(this.b).scaleInPlace(this.x).normalizeInPlace();
+	}
+}
@@ -46,5 +46,48 @@ public class Constants {
 	public static final int INCHES_PER_FOOT = 12;
 
     public static final double STEERING_GEAR_RATIO = 12.8;
-}
 
+	/** Period of the closed loop control thread, in seconds (200Hz). */
+	public static final double CONTROL_PERIOD = 0.005;
+
+	/** Driver Station port of the first driver controller. */
+	public static final int CONTROLLER_1_PORT = 0;
+
+	/** Driver Station port of the second driver controller. */
+	public static final int CONTROLLER_2_PORT = 1;
+
+	/** CAN ids of the swerve drive motors: front left, front right, back left, back right. */
+	public static final int[] DRIVE_MOTOR_IDS = {1, 3, 5, 7};
+
+	/** CAN ids of the swerve steering motors, in the same module order as the drive motors. */
+	public static final int[] STEER_MOTOR_IDS = {2, 4, 6, 8};
+
+	/** Deflection of the driver sticks that is ignored as drift. */
+	public static final double STICK_DEADBAND = 0.08;
+
+	/** How cubic the driver sticks' response is, from 0 for linear to 1 for cubic. */
+	public static final double STICK_EXPO = 0.4;
+
+	/** Deflection of the triggers that is ignored as drift. */
+	public static final double TRIGGER_DEADBAND = 0.05;
+
+	/** How often values are published to the dashboard, in seconds (10Hz). */
+	public static final double DASHBOARD_PERIOD = 0.1;
+
+	/**
+	 * Time left free at the end of each loop for what WPILib runs after robotPeriodic(), in
+	 * seconds. Deferred housekeeping only runs before this.
+	 */
+	public static final double DEFERRED_WORK_RESERVE = 0.002;
+
+	/**
+	 * Whether sensor refresh, odometry and subsystem periodic work run on a worker thread
+	 * alongside the robot loop thread, instead of one after another on the robot loop thread.
+	 * Waking the worker costs tens of microseconds, so this only pays off once the tasks that
+	 * can overlap take longer than that.
+	 */
+	public static final boolean PARALLEL_PERIODIC = false;
+
+	/** Worker threads for parallel periodic work; the roboRIO has two cores. */
+	public static final int PERIODIC_WORKERS = 1;
+}
@@ -1,141 +1,428 @@
 package frc.robot;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.XboxController;
+import edu.wpi.first.wpilibj.event.EventLoop;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
+import frc.robot.math.AxisCurve;
 
+/**
+ * Merges two Xbox controllers so either driver can do anything.
+ *
+ * Both controllers are sampled once per loop by {@link #update()}, and every getter reads
+ * from that snapshot. This keeps the number of Driver Station reads constant no matter how
+ * many commands ask for inputs, and every command sees the same inputs within a loop.
+ *
+ * Button bindings made through {@link #button(int)} are only checked when their button
+ * changes. {@link #update()} finds the changed bits with one XOR and
+ * {@link #dispatchEvents()} polls the bindings for just those buttons, so idle bindings
+ * cost nothing. Conditions that don't follow a single button, such as two buttons held
+ * together, are bound through {@link #trigger(BooleanSupplier)} instead, which is checked
+ * every loop.
+ *
+ * The axis getters return shaped values, worked out once per snapshot: each controller's
+ * axis goes through that axis' {@link AxisCurve}, so the deadband applies to each stick on
+ * its own and a drifting idle stick can't win the merge. The two are then combined by the
+ * axis' {@link MergePolicy}, and the result is slew rate limited. Commands read the finished
+ * value instead of each repeating the math. Every axis starts linear, merged with
+ * {@link MergePolicy#LARGEST} and without a slew limit.
+ */
 public class DoubleController {
+    /**
+     * How the two controllers' deflections of the same axis are combined.
+     */
+    public enum MergePolicy {
+        /** Whichever controller is deflected further, in its own direction. */
+        LARGEST,
+        /** Both deflections added together, clamped to [-1, 1]. */
+        SUM,
+        /** The first controller while it is deflected past its deadband, otherwise the second. */
+        FIRST_PRIORITY
+    }
+
+
+    //Bits of the packed button state. Bit n - 1 is raw button n, matching the Driver Station.
+    public static final int BUTTON_A = 1 << 0;
+    public static final int BUTTON_B = 1 << 1;
+    public static final int BUTTON_X = 1 << 2;
+    public static final int BUTTON_Y = 1 << 3;
+    public static final int BUTTON_LEFT_BUMPER = 1 << 4;
+    public static final int BUTTON_RIGHT_BUMPER = 1 << 5;
+    public static final int BUTTON_VIEW = 1 << 6;
+    public static final int BUTTON_MENU = 1 << 7;
+    //The d-pad directions are packed above the buttons
+    public static final int D_UP = 1 << 8;
+    public static final int D_UP_RIGHT = 1 << 9;
+    public static final int D_RIGHT = 1 << 10;
+    public static final int D_DOWN_RIGHT = 1 << 11;
+    public static final int D_DOWN = 1 << 12;
+    public static final int D_DOWN_LEFT = 1 << 13;
+    public static final int D_LEFT = 1 << 14;
+    public static final int D_UP_LEFT = 1 << 15;
+
+    private static final int RAW_BUTTON_COUNT = 8;
+    private static final int AXIS_COUNT = 6;
+    private static final int BIT_COUNT = 16;
+
     XboxController c1;
     XboxController c2;
 
+    //Snapshot of both controllers, filled in by update()
+    private final double[] axes1 = new double[AXIS_COUNT];
+    private final double[] axes2 = new double[AXIS_COUNT];
+    private final double[] shaped = new double[AXIS_COUNT];
+    private int buttons1;
+    private int buttons2;
+    private int pov1 = -1;
+    private int pov2 = -1;
+    private int buttons;
+
+    //Edges between the last two snapshots
+    private int previousButtons;
+    private int changed;
+    private int pressed;
+    private int released;
+
+    //Shaping settings per axis, indexed by XboxController.Axis value
+    private final AxisCurve[] curves = new AxisCurve[AXIS_COUNT];
+    private final MergePolicy[] mergePolicies = new MergePolicy[AXIS_COUNT];
+    private final double[] slewSteps = new double[AXIS_COUNT];
+
+    //One event loop per bit, created when something binds to that bit
+    private final EventLoop[] loops = new EventLoop[BIT_COUNT];
+    //Polled every loop, created when something binds through trigger()
+    private EventLoop everyLoop;
+
     public DoubleController(XboxController controller1, XboxController controller2){
         c1 = controller1;
         c2 = controller2;
+        Arrays.fill(curves, AxisCurve.LINEAR);
+        Arrays.fill(mergePolicies, MergePolicy.LARGEST);
+        Arrays.fill(slewSteps, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Sets the response curve of an axis, applied to each controller before they are merged.
+     *
+     * @param axis - the axis to shape
+     * @param curve - the curve, e.g. a deadband with some expo for the drive sticks
+     */
+    public void setCurve(XboxController.Axis axis, AxisCurve curve){
+        curves[axis.value] = curve;
+    }
+
+    /**
+     * Sets how the two controllers' deflections of an axis are combined.
+     *
+     * @param axis - the axis to merge
+     * @param policy - the merge policy
+     */
+    public void setMergePolicy(XboxController.Axis axis, MergePolicy policy){
+        mergePolicies[axis.value] = policy;
+    }
+
+    /**
+     * Limits how fast the merged value of an axis can change, in both directions. Assumes a
+     * snapshot every {@link TimedRobot#kDefaultPeriod}.
+     *
+     * @param axis - the axis to limit
+     * @param unitsPerSecond - the largest change per second, e.g. 2 to take half a second from
+     * center to full, or infinity for no limit
+     */
+    public void setSlewRate(XboxController.Axis axis, double unitsPerSecond){
+        if(!(unitsPerSecond > 0)){
+            throw new IllegalArgumentException("Slew rate must be positive, got " + unitsPerSecond);
+        }
+        slewSteps[axis.value] = unitsPerSecond * TimedRobot.kDefaultPeriod;
+    }
+
+    /**
+     * Samples both controllers. Call this once per loop, before anything reads the inputs.
+     */
+    public void update(){
+        buttons1 = sample(c1, axes1);
+        pov1 = c1.getPOV();
+        buttons2 = sample(c2, axes2);
+        pov2 = c2.getPOV();
+        merge();
+    }
+
+    /**
+     * Uses the passed inputs instead of sampling the controllers, as if they had been read
+     * by {@link #update()}. Used to feed synthetic or recorded inputs.
+     *
+     * @param axesIn1 - the six raw axes of the first controller
+     * @param axesIn2 - the six raw axes of the second controller
+     * @param buttonsIn1 - the raw buttons of the first controller, bit n - 1 for button n
+     * @param buttonsIn2 - the raw buttons of the second controller, bit n - 1 for button n
+     * @param povIn1 - the POV angle of the first controller, or -1
+     * @param povIn2 - the POV angle of the second controller, or -1
+     */
+    public void loadSnapshot(double[] axesIn1, double[] axesIn2, int buttonsIn1, int buttonsIn2, int povIn1, int povIn2){
+        System.arraycopy(axesIn1, 0, axes1, 0, AXIS_COUNT);
+        System.arraycopy(axesIn2, 0, axes2, 0, AXIS_COUNT);
+        buttons1 = buttonsIn1;
+        buttons2 = buttonsIn2;
+        pov1 = povIn1;
+        pov2 = povIn2;
+        merge();
+    }
+
+    private void merge(){
+        buttons = buttons1 | buttons2 | povBit(pov1) | povBit(pov2);
+
+        changed = buttons ^ previousButtons;
+        pressed = changed & buttons;
+        released = changed & previousButtons;
+        previousButtons = buttons;
+
+        for(int i = 0; i < AXIS_COUNT; i++){
+            AxisCurve curve = curves[i];
+            double value = mergeAxis(mergePolicies[i], curve.apply(axes1[i]), curve.apply(axes2[i]));
+
+            //Infinite steps compare false here, so unlimited axes follow the input exactly
+            double step = slewSteps[i];
+            double change = value - shaped[i];
+            if(change > step){
+                value = shaped[i] + step;
+            }else if(change < -step){
+                value = shaped[i] - step;
+            }
+            shaped[i] = value;
+        }
+    }
+
+    private static double mergeAxis(MergePolicy policy, double value1, double value2){
+        switch(policy){
+            case SUM:
+                return Math.max(-1, Math.min(1, value1 + value2));
+            case FIRST_PRIORITY:
+                return value1 != 0 ? value1 : value2;
+            default:
+                return Math.abs(value1) >= Math.abs(value2) ? value1 : value2;
+        }
+    }
+
+    /**
+     * Polls the bindings of every button that changed in the last {@link #update()}, then
+     * the bindings made through {@link #trigger(BooleanSupplier)}. Call this once per loop,
+     * after update() and before the command scheduler runs.
+     */
+    public void dispatchEvents(){
+        int bits = changed;
+        while(bits != 0){
+            EventLoop loop = loops[Integer.numberOfTrailingZeros(bits)];
+            if(loop != null){
+                loop.poll();
+            }
+            bits &= bits - 1;
+        }
+        if(everyLoop != null){
+            everyLoop.poll();
+        }
+    }
+
+    /**
+     * Creates a trigger for a button or d-pad direction. The trigger is only polled when
+     * the button is pressed or released, which is all the edge based Trigger bindings
+     * (onTrue, whileTrue, toggleOnTrue, ...) need.
+     *
+     * Triggers composed from this one with and(), or() or negate() are polled on the same
+     * edges, so they miss any change that isn't this button's. negate() is safe; for the
+     * others wrap the composition in {@link #trigger(BooleanSupplier)}, e.g.
+     * {@code trigger(button(BUTTON_A).and(button(BUTTON_B)))}.
+     *
+     * @param bit - one of the BUTTON_ or D_ constants
+     * @return A trigger that is active while the button is held.
+     */
+    public Trigger button(int bit){
+        if(Integer.bitCount(bit) != 1 || bit >= 1 << BIT_COUNT){
+            throw new IllegalArgumentException("Expected a single button bit, got " + Integer.toHexString(bit));
+        }
+        int index = Integer.numberOfTrailingZeros(bit);
+        if(loops[index] == null){
+            loops[index] = new EventLoop();
+        }
+        return new Trigger(loops[index], () -> (buttons & bit) != 0);
+    }
+
+    /**
+     * Creates a trigger for any condition, polled every loop by {@link #dispatchEvents()}.
+     * Use this for conditions that don't follow a single button, such as triggers composed
+     * from several {@link #button(int)} triggers.
+     *
+     * @param condition - the condition, read once per loop
+     * @return A trigger that is active while the condition is true.
+     */
+    public Trigger trigger(BooleanSupplier condition){
+        if(everyLoop == null){
+            everyLoop = new EventLoop();
+        }
+        return new Trigger(everyLoop, condition);
+    }
 
+    private static int sample(XboxController controller, double[] axes){
+        for(int i = 0; i < AXIS_COUNT; i++){
+            axes[i] = controller.getRawAxis(i);
+        }
+        int packed = 0;
+        for(int i = 0; i < RAW_BUTTON_COUNT; i++){
+            if(controller.getRawButton(i + 1)){
+                packed |= 1 << i;
+            }
+        }
+        return packed;
+    }
+
+    private static int povBit(int pov){
+        //POV angles are multiples of 45 degrees clockwise from up, or -1 when released
+        if(pov < 0 || pov % 45 != 0){
+            return 0;
+        }
+        return D_UP << (pov / 45);
     }
+
+    /**
+     * @return Every button and d-pad direction held on either controller, packed into the
+     * BUTTON_ and D_ bits.
+     */
+    public int getButtons(){
+        return buttons;
+    }
+
+    /**
+     * @return The bits that went from released to held in the last {@link #update()}.
+     */
+    public int getPressed(){
+        return pressed;
+    }
+
+    /**
+     * @return The bits that went from held to released in the last {@link #update()}.
+     */
+    public int getReleased(){
+        return released;
+    }
+
+    /**
+     * Copies the raw axes of the first controller from the last snapshot.
+     *
+     * @param out - an array of at least six axes, filled in axis order
+     */
+    public void getRawAxes1(double[] out){
+        System.arraycopy(axes1, 0, out, 0, AXIS_COUNT);
+    }
+
+    /**
+     * Copies the raw axes of the second controller from the last snapshot.
+     *
+     * @param out - an array of at least six axes, filled in axis order
+     */
+    public void getRawAxes2(double[] out){
+        System.arraycopy(axes2, 0, out, 0, AXIS_COUNT);
+    }
+
+    /**
+     * @return The raw buttons of the first controller from the last snapshot, bit n - 1 for button n.
+     */
+    public int getRawButtons1(){
+        return buttons1;
+    }
+
+    /**
+     * @return The raw buttons of the second controller from the last snapshot, bit n - 1 for button n.
+     */
+    public int getRawButtons2(){
+        return buttons2;
+    }
+
+    /**
+     * @return The POV angle of the first controller from the last snapshot, or -1.
+     */
+    public int getPOV1(){
+        return pov1;
+    }
+
+    /**
+     * @return The POV angle of the second controller from the last snapshot, or -1.
+     */
+    public int getPOV2(){
+        return pov2;
+    }
+
     //Code uses multiple functions to be simple when implemented in other files
     //Please don't change this into a single function with a parameter
+    //Axis getters return the shaped, merged value from the last snapshot
     public double getLeftX(){
-        return(Math.max(c1.getLeftX(), c2.getLeftX()));
+        return shaped[XboxController.Axis.kLeftX.value];
     }
     public double getLeftY(){
-        return(Math.max(c1.getLeftY(), c2.getLeftY()));
+        return shaped[XboxController.Axis.kLeftY.value];
     }
     public double getRightX(){
-        return(Math.max(c1.getRightX(), c2.getRightX()));
+        return shaped[XboxController.Axis.kRightX.value];
     }
     public double getRightY(){
-        return(Math.max(c1.getRightY(), c2.getRightY()));
+        return shaped[XboxController.Axis.kRightY.value];
     }
     public double getLeftTrigger(){
         //The raw axis 2 represents the angle the trigger is at
-        return(Math.max(c1.getRawAxis(2), c2.getRawAxis(2)));
+        return shaped[XboxController.Axis.kLeftTrigger.value];
     }
     public double getRightTrigger(){
         //The raw axis 3 represents the angle the trigger is at
-        return(Math.max(c1.getRawAxis(3), c2.getRawAxis(3)));
+        return shaped[XboxController.Axis.kRightTrigger.value];
     }
     public boolean getXButton(){
-        boolean temp = (c1.getXButton()||c2.getXButton());
-        return temp;
+        return (buttons & BUTTON_X) != 0;
     }
     public boolean getAButton(){
-        boolean temp = (c1.getAButton()||c2.getAButton());
-        return temp;
+        return (buttons & BUTTON_A) != 0;
     }
     public boolean getBButton(){
-        boolean temp = (c1.getBButton()||c2.getBButton());
-        return temp;
+        return (buttons & BUTTON_B) != 0;
     }
     public boolean getYButton(){
-        boolean temp = (c1.getYButton()||c2.getYButton());
-        return temp;
+        return (buttons & BUTTON_Y) != 0;
     }
     public boolean getLeftBumper(){
-        boolean temp = (c1.getLeftBumper()||c2.getLeftBumper());
-        return temp;
+        return (buttons & BUTTON_LEFT_BUMPER) != 0;
     }
     public boolean getRightBumper(){
-        boolean temp = (c1.getRightBumper()||c2.getRightBumper());
-        return temp;
+        return (buttons & BUTTON_RIGHT_BUMPER) != 0;
     }
     public boolean getViewButton(){
         //Small button under xbox logo button to the left
-        boolean temp = (c1.getRawButton(7)||c2.getRawButton(8));
-        return temp;
+        return (buttons & BUTTON_VIEW) != 0;
     }
     public boolean getMenuButton(){
         //Small button under xbox logo button to the right
-        boolean temp = (c1.getXButton()||c2.getXButton());
-        return temp;
+        return (buttons & BUTTON_MENU) != 0;
     }
     public boolean getDUp(){
-        boolean temp;
-        if(c1.getPOV() == 0 || c2.getPOV() == 0){
-            temp = true;
-        }else{
-            temp = false;
-        }
-        return temp;
+        return (buttons & D_UP) != 0;
     }
     public boolean getDRight(){
-        boolean temp;
-        if(c1.getPOV() == 90 || c2.getPOV() == 90){
-            temp = true;
-        }else{
-            temp = false;
-        }
-        return temp;
+        return (buttons & D_RIGHT) != 0;
     }
     public boolean getDDown(){
-        boolean temp;
-        if(c1.getPOV() == 180 || c2.getPOV() == 180){
-            temp = true;
-        }else{
-            temp = false;
-        }
-        return temp;
+        return (buttons & D_DOWN) != 0;
     }
     public boolean getDLeft(){
-        boolean temp;
-        if(c1.getPOV() == 270 || c2.getPOV() == 270){
-            temp = true;
-        }else{
-            temp = false;
-        }
-        return temp;
+        return (buttons & D_LEFT) != 0;
     }
     public boolean getDUpRight(){
-        boolean temp;
-        if(c1.getPOV() == 45 || c2.getPOV() == 45){
-            temp = true;
-        }else{
-            temp = false;
-        }
-        return temp;
+        return (buttons & D_UP_RIGHT) != 0;
     }
     public boolean getDDownRight(){
-        boolean temp;
-        if(c1.getPOV() == 135 || c2.getPOV() == 135){
-            temp = true;
-        }else{
-            temp = false;
-        }
-        return temp;
+        return (buttons & D_DOWN_RIGHT) != 0;
     }
     public boolean getDDownLeft(){
-        boolean temp;
-        if(c1.getPOV() == 225 || c2.getPOV() == 225){
-            temp = true;
-        }else{
-            temp = false;
-        }
-        return temp;
+        return (buttons & D_DOWN_LEFT) != 0;
     }
     public boolean getUpLeft(){
-        boolean temp;
-        if(c1.getPOV() == 315 || c2.getPOV() == 315){
-            temp = true;
-        }else{
-            temp = false;
-        }
-        return temp;
+        return (buttons & D_UP_LEFT) != 0;
     }
 }
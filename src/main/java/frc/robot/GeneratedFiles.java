@@ -0,0 +1,37 @@
+package frc.robot;
+
+import java.nio.file.Path;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotBase;
+
+
+/**
+ * Where the files built by the Gradle build for the robot to load, such as the autonomous
+ * trajectories, are found.
+ * <p>
+ * The build writes them to {@code build/generated/deploy}, never into the source tree, and
+ * deploy copies that directory into the robot's deploy directory next to
+ * {@code src/main/deploy}. On the robot they are therefore read from the deploy directory.
+ * On the desktop they are read straight from {@code build/generated/deploy} under the
+ * directory the program was started from, which Gradle sets to the project directory.
+ */
+public final class GeneratedFiles
+{
+	private GeneratedFiles()
+	{
+	}
+
+	/**
+	 * @return The directory generated files are read from. It may not exist yet.
+	 */
+	public static Path getDirectory()
+	{
+		if(RobotBase.isReal())
+		{
+			return Filesystem.getDeployDirectory().toPath();
+		}
+
+		return Filesystem.getOperatingDirectory().toPath().resolve("build").resolve("generated").resolve("deploy");
+	}
+}
@@ -7,27 +7,78 @@ package frc.robot;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.diagnostics.LoopTimer;
+import frc.robot.diagnostics.SchedulerProfiler;
+import frc.robot.math.Vec2dPool;
+import frc.robot.replay.CycleRecorder;
+import frc.robot.telemetry.TelemetryLogger;
 
 public class Robot extends TimedRobot {
   private Command m_autonomousCommand;
 
   private RobotContainer m_robotContainer;
 
+  private LoopTimer m_loopTimer;
+
+  private final SchedulerProfiler m_schedulerProfiler = SchedulerProfiler.getInstance();
+
   @Override
   public void robotInit() {
     m_robotContainer = new RobotContainer();
+    m_loopTimer = new LoopTimer(getPeriod());
+
+    TelemetryLogger.getInstance().start();
+
+    // Sensors register while the container is built, which fixes the record layout.
+    CycleRecorder.getInstance().start();
+
+    // Loops are registered while the container is built, so start running them last.
+    m_robotContainer.getControlExecutor().start();
+    m_robotContainer.getPlanner().start();
+    m_robotContainer.getPeriodicRunner().start();
+
+    // Build every autonomous routine now so autonomousInit() only hands one over.
+    m_robotContainer.getAutonomousRoutines().buildAll();
+
+    m_robotContainer.getWarmup().reportStartup();
   }
 
   @Override
   public void robotPeriodic() {
+    // Sensors, odometry and subsystem periodic work, spread across the workers if enabled.
+    m_robotContainer.getPeriodicRunner().run();
+    m_robotContainer.updateInputs();
+
+    m_loopTimer.startScheduler();
+    m_schedulerProfiler.startRun();
     CommandScheduler.getInstance().run();
+    m_schedulerProfiler.endRun();
+    m_loopTimer.endScheduler();
+
+    // Send every motor command changed this loop in one batch.
+    m_robotContainer.getMotorOutputs().flush();
+
+    // Everything taken from the scratch pool this loop is free to reuse next loop.
+    Vec2dPool.MAIN_LOOP.reset();
+
+    // Housekeeping such as the dashboard, only in whatever time this loop has left.
+    m_robotContainer.getDeferredWork().run(m_loopTimer.getCycleStartNanos());
+
+    m_loopTimer.endCycle();
   }
 
   @Override
-  public void disabledInit() {}
+  public void disabledInit() {
+    m_loopTimer.report();
+  }
 
   @Override
-  public void disabledPeriodic() {}
+  public void disabledPeriodic() {
+    m_loopTimer.startModePeriodic(LoopTimer.Phase.DISABLED_PERIODIC);
+    m_robotContainer.getAutonomousRoutines().periodic();
+    m_robotContainer.getWarmup().run();
+    m_loopTimer.endModePeriodic();
+  }
 
   @Override
   public void disabledExit() {}
@@ -42,7 +93,10 @@ public class Robot extends TimedRobot {
   }
 
   @Override
-  public void autonomousPeriodic() {}
+  public void autonomousPeriodic() {
+    m_loopTimer.startModePeriodic(LoopTimer.Phase.AUTONOMOUS_PERIODIC);
+    m_loopTimer.endModePeriodic();
+  }
 
   @Override
   public void autonomousExit() {}
@@ -55,7 +109,10 @@ public class Robot extends TimedRobot {
   }
 
   @Override
-  public void teleopPeriodic() {}
+  public void teleopPeriodic() {
+    m_loopTimer.startModePeriodic(LoopTimer.Phase.TELEOP_PERIODIC);
+    m_loopTimer.endModePeriodic();
+  }
 
   @Override
   public void teleopExit() {}
@@ -66,8 +123,23 @@ public class Robot extends TimedRobot {
   }
 
   @Override
-  public void testPeriodic() {}
+  public void testPeriodic() {
+    m_loopTimer.startModePeriodic(LoopTimer.Phase.TEST_PERIODIC);
+    m_loopTimer.endModePeriodic();
+  }
 
   @Override
   public void testExit() {}
+
+  /**
+   * Runs one iteration of the robot loop, including mode transitions. Lets the headless
+   * simulation step the robot as fast as it can instead of waiting on the loop notifier.
+   */
+  public void runLoopOnce() {
+    loopFunc();
+  }
+
+  public LoopTimer getLoopTimer() {
+    return m_loopTimer;
+  }
 }
@@ -4,17 +4,281 @@
 
 package frc.robot;
 
+import com.ctre.phoenix.motorcontrol.can.TalonFX;
+import com.kauailabs.navx.frc.AHRS;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.SPI;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.XboxController;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
+import frc.robot.auto.AutonomousRegistry;
+import frc.robot.auto.TrajectoryCache;
+import frc.robot.control.ControlExecutor;
+import frc.robot.diagnostics.JitWarmup;
+import frc.robot.diagnostics.SchedulerProfiler;
+import frc.robot.hardware.MotorOutputs;
+import frc.robot.hardware.MotorRole;
+import frc.robot.hardware.NavXPhoenixSensors;
+import frc.robot.hardware.PhoenixMotor;
+import frc.robot.hardware.SensorBackend;
+import frc.robot.hardware.SensorCache;
+import frc.robot.hardware.StubSensors;
+import frc.robot.math.AxisCurve;
+import frc.robot.math.MutableVec2d;
+import frc.robot.navigation.BackgroundPlanner;
+import frc.robot.navigation.OccupancyGrid;
+import frc.robot.odometry.PoseEstimator;
+import frc.robot.replay.CycleRecorder;
+import frc.robot.scheduling.DeferredWorkQueue;
+import frc.robot.scheduling.ParallelPeriodicRunner;
+import frc.robot.sim.ReplaySensors;
+import frc.robot.sim.ReplaySimulation;
+import frc.robot.telemetry.DashboardPublisher;
+import frc.robot.telemetry.TelemetryLogger;
 
 public class RobotContainer {
+  private final DoubleController m_controller =
+      new DoubleController(
+          new XboxController(Constants.CONTROLLER_1_PORT),
+          new XboxController(Constants.CONTROLLER_2_PORT));
+
+  private final ControlExecutor m_controlExecutor = new ControlExecutor(Constants.CONTROL_PERIOD, 16);
+
+  private final MotorOutputs m_motorOutputs = new MotorOutputs(16);
+
+  private final ParallelPeriodicRunner m_periodicRunner =
+      new ParallelPeriodicRunner(Constants.PARALLEL_PERIODIC ? Constants.PERIODIC_WORKERS : 0, 16);
+
+  private final DeferredWorkQueue m_deferredWork =
+      new DeferredWorkQueue(TimedRobot.kDefaultPeriod, Constants.DEFERRED_WORK_RESERVE, 16);
+
+  private final int m_profilerDumpTask;
+
+  private final TelemetryLogger m_logger = TelemetryLogger.getInstance();
+
+  private final CycleRecorder m_recorder = CycleRecorder.getInstance();
+
+  private final SchedulerProfiler m_schedulerProfiler = SchedulerProfiler.getInstance();
+
+  private final int m_noAutoEvent = m_logger.registerChannel("auto/noAutonomousConfigured");
+
+  private final int m_driverMarkEvent = m_logger.registerChannel("driver/mark");
+
+  private final DashboardPublisher m_dashboard =
+      new DashboardPublisher("Robot", Constants.DASHBOARD_PERIOD, 32);
+
+  private final int m_poseXSignal = m_dashboard.addNumber("pose/x", 0.25);
+
+  private final int m_poseYSignal = m_dashboard.addNumber("pose/y", 0.25);
+
+  private final int m_poseHeadingSignal = m_dashboard.addNumber("pose/headingDegrees", 0.5);
+
+  private final int m_yawSignal = m_dashboard.addNumber("sensors/yawDegrees", 0.5);
+
+  private final MutableVec2d m_dashboardPose = new MutableVec2d();
+
+  private final AutonomousRegistry m_autonomous = new AutonomousRegistry("Autonomous");
+
+  private final TrajectoryCache m_trajectories;
+
+  private final SensorCache m_sensors;
+
+  private final PoseEstimator m_poseEstimator;
+
+  private final BackgroundPlanner m_planner;
+
+  // Warms up with its own controller on the same ports, so it never disturbs the real
+  // controller's button edges.
+  private final JitWarmup m_warmup =
+      new JitWarmup(
+          new DoubleController(
+              new XboxController(Constants.CONTROLLER_1_PORT),
+              new XboxController(Constants.CONTROLLER_2_PORT)));
+
   public RobotContainer() {
+    // Hook in before anything binds to the scheduler's button loop.
+    m_schedulerProfiler.install();
+
+    // Housekeeping runs in whatever time each loop has left after everything else.
+    m_deferredWork.addEveryLoop("dashboard", this::updateDashboard);
+    m_profilerDumpTask = m_deferredWork.add("profilerDump", m_schedulerProfiler::dump);
+
+    // Map the prebuilt trajectories now so autonomousInit() never has to generate paths.
+    m_trajectories = TrajectoryCache.load();
+
+    m_sensors = new SensorCache(createSensorBackend());
+    m_poseEstimator = new PoseEstimator(m_sensors.getModuleCount(), 256);
+
+    // Load the prebuilt field grid now; the planner thread is started with the others.
+    m_planner = new BackgroundPlanner(OccupancyGrid.load());
+
+    configurePeriodicTasks();
+    configureController();
     configureBindings();
+    configureAutonomous();
+  }
+
+  private SensorBackend createSensorBackend() {
+    ReplaySimulation replay = ReplaySimulation.getActive();
+    if (replay != null) {
+      return new ReplaySensors(replay);
+    }
+    if (RobotBase.isSimulation()) {
+      return new StubSensors(Constants.DRIVE_MOTOR_IDS.length);
+    }
+
+    TalonFX[] driveMotors = new TalonFX[Constants.DRIVE_MOTOR_IDS.length];
+    TalonFX[] steerMotors = new TalonFX[Constants.STEER_MOTOR_IDS.length];
+    for (int i = 0; i < driveMotors.length; i++) {
+      driveMotors[i] = new TalonFX(Constants.DRIVE_MOTOR_IDS[i]);
+      steerMotors[i] = new TalonFX(Constants.STEER_MOTOR_IDS[i]);
+      m_motorOutputs.add(new PhoenixMotor("drive" + i, driveMotors[i]), MotorRole.DRIVE);
+      m_motorOutputs.add(new PhoenixMotor("steer" + i, steerMotors[i]), MotorRole.STEER);
+    }
+    return new NavXPhoenixSensors(new AHRS(SPI.Port.kMXP), driveMotors, steerMotors);
+  }
+
+  /**
+   * Adds the per-loop work that doesn't need the scheduler or the controllers. Subsystems add
+   * their periodic work here too, listing the tasks whose results they read.
+   */
+  private void configurePeriodicTasks() {
+    int sensors = m_periodicRunner.add("sensors", m_sensors::refresh);
+    m_periodicRunner.add("odometry", this::updateOdometry, sensors);
+    m_periodicRunner.add("control", m_controlExecutor::refresh);
+  }
+
+  private void updateOdometry() {
+    m_poseEstimator.update(
+        m_sensors.getTimestamp(),
+        m_sensors.getDrivePositions(),
+        m_sensors.getModuleAngles(),
+        m_sensors.getYaw());
   }
 
-  private void configureBindings() {}
+  /** Shapes the axes once per loop, so commands read finished values. */
+  private void configureController() {
+    AxisCurve stick = new AxisCurve(Constants.STICK_DEADBAND, Constants.STICK_EXPO);
+    m_controller.setCurve(XboxController.Axis.kLeftX, stick);
+    m_controller.setCurve(XboxController.Axis.kLeftY, stick);
+    m_controller.setCurve(XboxController.Axis.kRightX, stick);
+    m_controller.setCurve(XboxController.Axis.kRightY, stick);
+
+    AxisCurve trigger = new AxisCurve(Constants.TRIGGER_DEADBAND, 0);
+    m_controller.setCurve(XboxController.Axis.kLeftTrigger, trigger);
+    m_controller.setCurve(XboxController.Axis.kRightTrigger, trigger);
+  }
+
+  private void configureBindings() {
+    // Lets the drive team mark a moment in the telemetry log to find it after the match.
+    m_controller
+        .button(DoubleController.BUTTON_MENU)
+        .onTrue(Commands.runOnce(() -> m_logger.event(m_driverMarkEvent)).ignoringDisable(true));
+
+    // Prints where the scheduler's time has been going, e.g. after a sluggish stretch.
+    m_controller
+        .button(DoubleController.BUTTON_VIEW)
+        .onTrue(
+            Commands.runOnce(() -> m_deferredWork.request(m_profilerDumpTask))
+                .ignoringDisable(true));
+
+    // One-button alignment to the nearest scoring position is left unbound until it can
+    // drive: odometry starts where the robot is switched on, not at a field pose, and nothing
+    // follows the planned path yet. The planner is loaded and running for when it is.
+  }
+
+  /**
+   * Adds every autonomous routine to the chooser. They are built in robotInit(), never at
+   * enable, so add trajectories, groups and anything else costly inside the factories.
+   */
+  private void configureAutonomous() {
+    m_autonomous.add("Do nothing", () -> Commands.runOnce(() -> m_logger.event(m_noAutoEvent)));
+  }
+
+  /**
+   * Samples the driver inputs, records them along with the sensors for replay and runs the
+   * bindings of any button that changed. Called once per loop, after the periodic tasks and
+   * before the scheduler runs.
+   */
+  public void updateInputs() {
+    m_controller.update();
+    m_recorder.record(m_controller);
+
+    // Button bindings schedule their commands here, before the scheduler runs.
+    m_schedulerProfiler.startDispatch();
+    m_controller.dispatchEvents();
+    m_schedulerProfiler.endDispatch();
+  }
+
+  /**
+   * Hands this loop's values to the dashboard, which sends the ones that changed at its own
+   * slower rate. Runs from the deferred work queue, so it may skip busy loops.
+   */
+  private void updateDashboard() {
+    double heading = m_poseEstimator.getLatestPose(m_dashboardPose);
+    m_dashboard.set(m_poseXSignal, m_dashboardPose.x);
+    m_dashboard.set(m_poseYSignal, m_dashboardPose.y);
+    m_dashboard.set(m_poseHeadingSignal, heading * Constants.RAD_TO_DEG);
+    m_dashboard.set(m_yawSignal, m_sensors.getYaw() * Constants.RAD_TO_DEG);
+    m_dashboard.periodic();
+  }
+
+  public ControlExecutor getControlExecutor() {
+    return m_controlExecutor;
+  }
+
+  /**
+   * @return The runner for sensor refresh, odometry, reading back the control thread's state
+   *     and subsystem periodic work. Run once per loop, before {@link #updateInputs()}.
+   */
+  public ParallelPeriodicRunner getPeriodicRunner() {
+    return m_periodicRunner;
+  }
+
+  /**
+   * @return The queue for housekeeping that runs only in the time left at the end of a loop.
+   */
+  public DeferredWorkQueue getDeferredWork() {
+    return m_deferredWork;
+  }
+
+  public MotorOutputs getMotorOutputs() {
+    return m_motorOutputs;
+  }
+
+  public SensorCache getSensors() {
+    return m_sensors;
+  }
+
+  public PoseEstimator getPoseEstimator() {
+    return m_poseEstimator;
+  }
+
+  public BackgroundPlanner getPlanner() {
+    return m_planner;
+  }
+
+  public JitWarmup getWarmup() {
+    return m_warmup;
+  }
+
+  public TrajectoryCache getTrajectories() {
+    return m_trajectories;
+  }
+
+  public DoubleController getController() {
+    return m_controller;
+  }
+
+  public AutonomousRegistry getAutonomousRoutines() {
+    return m_autonomous;
+  }
 
+  /**
+   * @return The prebuilt routine picked in the chooser. Nothing is built here.
+   */
   public Command getAutonomousCommand() {
-    return Commands.print("No autonomous command configured");
+    return m_autonomous.take();
   }
 }
@@ -0,0 +1,188 @@
+package frc.robot.auto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.telemetry.TelemetryLogger;
+
+
+/**
+ * Every autonomous routine, built ahead of time so {@code autonomousInit()} only has to hand
+ * one over.
+ * <p>
+ * Routines are added during startup as named factories, which also become the options of a
+ * dashboard chooser. {@link #buildAll()} builds and checks every routine from
+ * {@code robotInit()}, timing each build. At enable, {@link #take()} returns the routine
+ * picked in the chooser without building anything. A routine that has been taken has run
+ * and may hold state from that run, so {@link #periodic()} builds it again while disabled,
+ * one routine per call.
+ * <p>
+ * Each routine's build times are logged to telemetry as "auto/&lt;name&gt;/buildMs".
+ * Only the robot loop thread may use this.
+ */
+public class AutonomousRegistry
+{
+	private static final class Routine
+	{
+		private final String name;
+		private final Supplier<Command> factory;
+		private final int buildChannel;
+		private Command command;
+		private long buildNanos;
+
+		private Routine(String name, Supplier<Command> factory, int buildChannel)
+		{
+			this.name = name;
+			this.factory = factory;
+			this.buildChannel = buildChannel;
+		}
+	}
+
+	private final Map<String, Routine> routines = new LinkedHashMap<>();
+	private final SendableChooser<String> chooser = new SendableChooser<>();
+
+	private final TelemetryLogger logger = TelemetryLogger.getInstance();
+	private final int lateBuildEvent = this.logger.registerChannel("auto/builtAtEnable");
+
+	/**
+	 * @param dashboardKey - the key the chooser is published under
+	 */
+	public AutonomousRegistry(String dashboardKey)
+	{
+		SmartDashboard.putData(dashboardKey, this.chooser);
+	}
+
+	/**
+	 * Adds a routine. The first routine added is the chooser's default.
+	 *
+	 * @param name - the name shown in the chooser
+	 * @param factory - builds a new instance of the routine each time it is called
+	 */
+	public void add(String name, Supplier<Command> factory)
+	{
+		if(this.routines.containsKey(name))
+		{
+			throw new IllegalStateException("Autonomous routine " + name + " was already added");
+		}
+
+		if(this.routines.isEmpty())
+		{
+			this.chooser.setDefaultOption(name, name);
+		}
+		else
+		{
+			this.chooser.addOption(name, name);
+		}
+
+		this.routines.put(name, new Routine(name, factory, this.logger.registerChannel("auto/" + name + "/buildMs")));
+	}
+
+	/**
+	 * Builds every routine that isn't built. Call at the end of {@code robotInit()}.
+	 */
+	public void buildAll()
+	{
+		for(Routine routine : this.routines.values())
+		{
+			if(routine.command == null)
+			{
+				this.build(routine);
+			}
+		}
+	}
+
+	/**
+	 * Builds again one routine that was taken since it was last built. Call from
+	 * {@code disabledPeriodic()}.
+	 */
+	public void periodic()
+	{
+		for(Routine routine : this.routines.values())
+		{
+			if(routine.command == null)
+			{
+				this.build(routine);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Hands over the selected routine. Call from {@code autonomousInit()}. The routine is
+	 * built again the next time the robot is disabled.
+	 *
+	 * @return The prebuilt routine picked in the chooser, or null if no routine was added.
+	 */
+	public Command take()
+	{
+		Routine routine = this.routines.get(this.chooser.getSelected());
+
+		if(routine == null)
+		{
+			return null;
+		}
+
+		if(routine.command == null)
+		{
+			// Only if the robot was enabled before it could be rebuilt; better late than never.
+			this.build(routine);
+			this.logger.event(this.lateBuildEvent, routine.buildNanos / 1e6d);
+		}
+
+		Command command = routine.command;
+		routine.command = null;
+		return command;
+	}
+
+	/**
+	 * @return The name of the routine picked in the chooser.
+	 */
+	public String getSelected()
+	{
+		return this.chooser.getSelected();
+	}
+
+	/**
+	 * @param name - the name of a routine
+	 * @return How long the routine's latest build took, in seconds, or 0 if it was never built.
+	 */
+	public double getBuildSeconds(String name)
+	{
+		Routine routine = this.routines.get(name);
+		return routine == null ? 0d : routine.buildNanos / 1e9d;
+	}
+
+	/**
+	 * @param name - the name of a routine
+	 * @return Whether the routine is built and ready to hand over.
+	 */
+	public boolean isBuilt(String name)
+	{
+		Routine routine = this.routines.get(name);
+		return routine != null && routine.command != null;
+	}
+
+	private void build(Routine routine)
+	{
+		long start = System.nanoTime();
+		Command command = routine.factory.get();
+		routine.buildNanos = System.nanoTime() - start;
+
+		if(command == null)
+		{
+			throw new IllegalStateException("Autonomous routine " + routine.name + " built nothing");
+		}
+
+		// A command already in a group can't be scheduled on its own, so catch it now.
+		CommandScheduler.getInstance().requireNotComposed(command);
+
+		routine.command = command;
+
+		this.logger.log(routine.buildChannel, routine.buildNanos / 1e6d);
+	}
+}
@@ -0,0 +1,226 @@
+package frc.robot.auto;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import frc.robot.math.MutableVec2d;
+
+
+/**
+ * A precomputed trajectory read straight out of a memory-mapped file.
+ * <p>
+ * Files are written by {@link TrajectoryBuilder}. All values are big endian. The header is
+ * {@value #HEADER_BYTES} bytes:
+ * <pre>
+ *  0  magic "FRCTRJ01"
+ *  8  int    format version ({@value #VERSION})
+ * 12  int    sample count
+ * 16  long   hash of the definition the trajectory was built from
+ * 24  double time between samples, in seconds
+ * </pre>
+ * followed by samples of five doubles: time (s), x (in), y (in), heading (rad) and
+ * velocity (in/s). Samples are read from the mapping on demand; nothing is copied onto the
+ * heap, and lookups don't allocate.
+ */
+public class MappedTrajectory
+{
+	/** File format version. */
+	public static final int VERSION = 1;
+
+	/** Size of the header in bytes. */
+	public static final int HEADER_BYTES = 32;
+
+	/** Size of one sample in bytes. */
+	public static final int SAMPLE_BYTES = 5 * Double.BYTES;
+
+	static final byte[] MAGIC = "FRCTRJ01".getBytes(StandardCharsets.US_ASCII);
+
+	private final String name;
+	private final ByteBuffer buffer;
+	private final int sampleCount;
+	private final long definitionHash;
+
+	private MappedTrajectory(String name, ByteBuffer buffer)
+	{
+		this.name = name;
+		this.buffer = buffer;
+		this.sampleCount = buffer.getInt(12);
+		this.definitionHash = buffer.getLong(16);
+	}
+
+	/**
+	 * Maps a trajectory file.
+	 *
+	 * @param name - the name of the trajectory
+	 * @param path - the file to map
+	 * @return The mapped trajectory.
+	 * @throws IOException if the file can't be read or isn't a trajectory
+	 */
+	public static MappedTrajectory map(String name, Path path) throws IOException
+	{
+		ByteBuffer buffer;
+
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+		}
+
+		if(buffer.capacity() < HEADER_BYTES)
+		{
+			throw new IOException(path + " is too short to be a trajectory");
+		}
+
+		for(int i = 0; i < MAGIC.length; i++)
+		{
+			if(buffer.get(i) != MAGIC[i])
+			{
+				throw new IOException(path + " is not a trajectory file");
+			}
+		}
+
+		if(buffer.getInt(8) != VERSION)
+		{
+			throw new IOException(path + " has trajectory format version " + buffer.getInt(8) + ", expected " + VERSION);
+		}
+
+		int samples = buffer.getInt(12);
+
+		if(samples < 1 || buffer.capacity() < HEADER_BYTES + (long) samples * SAMPLE_BYTES)
+		{
+			throw new IOException(path + " is truncated");
+		}
+
+		return new MappedTrajectory(name, buffer);
+	}
+
+	private double get(int sample, int field)
+	{
+		return this.buffer.getDouble(HEADER_BYTES + sample * SAMPLE_BYTES + field * Double.BYTES);
+	}
+
+	/**
+	 * @return The name of the trajectory.
+	 */
+	public String getName()
+	{
+		return this.name;
+	}
+
+	/**
+	 * @return The hash of the definition this trajectory was built from.
+	 */
+	public long getDefinitionHash()
+	{
+		return this.definitionHash;
+	}
+
+	/**
+	 * @return The number of samples.
+	 */
+	public int getSampleCount()
+	{
+		return this.sampleCount;
+	}
+
+	/**
+	 * @return How long the trajectory takes, in seconds.
+	 */
+	public double getTotalTime()
+	{
+		return this.getTime(this.sampleCount - 1);
+	}
+
+	/**
+	 * @param sample - the sample index
+	 * @return The time of the sample, in seconds from the start.
+	 */
+	public double getTime(int sample)
+	{
+		return this.get(sample, 0);
+	}
+
+	/**
+	 * @param sample - the sample index
+	 * @return The field x position of the sample, in inches.
+	 */
+	public double getX(int sample)
+	{
+		return this.get(sample, 1);
+	}
+
+	/**
+	 * @param sample - the sample index
+	 * @return The field y position of the sample, in inches.
+	 */
+	public double getY(int sample)
+	{
+		return this.get(sample, 2);
+	}
+
+	/**
+	 * @param sample - the sample index
+	 * @return The heading of the sample, in radians.
+	 */
+	public double getHeading(int sample)
+	{
+		return this.get(sample, 3);
+	}
+
+	/**
+	 * @param sample - the sample index
+	 * @return The speed along the path at the sample, in inches per second.
+	 */
+	public double getVelocity(int sample)
+	{
+		return this.get(sample, 4);
+	}
+
+	/**
+	 * Copies the position of a sample into the passed vector.
+	 *
+	 * @param sample - the sample index
+	 * @param out - the vector to write to
+	 * @return The passed vector.
+	 */
+	public MutableVec2d getPosition(int sample, MutableVec2d out)
+	{
+		return out.set(this.getX(sample), this.getY(sample));
+	}
+
+	/**
+	 * Finds the last sample at or before a time.
+	 *
+	 * @param time - the time since the start of the trajectory, in seconds
+	 * @return The sample index, clamped to the trajectory.
+	 */
+	public int indexAt(double time)
+	{
+		int low = 0;
+		int high = this.sampleCount - 1;
+
+		if(time >= this.getTime(high))
+		{
+			return high;
+		}
+
+		while(low < high)
+		{
+			int middle = (low + high + 1) >>> 1;
+
+			if(this.getTime(middle) <= time)
+			{
+				low = middle;
+			}
+			else
+			{
+				high = middle - 1;
+			}
+		}
+
+		return low;
+	}
+}
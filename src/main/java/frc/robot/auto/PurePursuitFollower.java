@@ -0,0 +1,217 @@
+package frc.robot.auto;
+
+import frc.robot.Constants;
+import frc.robot.math.MutableVec2d;
+
+
+/**
+ * Drives a swerve robot along a {@link PursuitPath} by always heading for a point a fixed
+ * distance further along the path than the robot is.
+ * <p>
+ * Each update projects the robot onto the path to find its progress, then drives straight
+ * for the lookahead point at the path's speed limit, slowing down so it can stop at the
+ * end, and turns toward the heading at the lookahead point. Progress only moves forward:
+ * the projection only looks at segments from the last progress to
+ * {@link #SEARCH_LOOKAHEADS} lookahead distances past it, found through the path's segment
+ * index, so the cost of an update doesn't grow with the length of the path and a path that
+ * crosses itself is never short-cut.
+ * <p>
+ * The path is done once the robot is within {@link #DISTANCE_TOLERANCE} of the end and
+ * {@link #ANGLE_TOLERANCE} of the final heading. Outputs are field-relative.
+ * <p>
+ * Updating never allocates. Only one thread may use a follower.
+ */
+public class PurePursuitFollower
+{
+	/** How close to the end of the path counts as there, in inches. */
+	public static final double DISTANCE_TOLERANCE = Constants.DIST_PRECISION * Constants.INCHES_PER_TICK;
+
+	/** How close to the final heading counts as there, in radians. */
+	public static final double ANGLE_TOLERANCE = Constants.ANGLE_PRECISION;
+
+	/** How far past the last progress the projection looks, in lookahead distances. */
+	public static final double SEARCH_LOOKAHEADS = 2d;
+
+	private final double lookahead;
+	private final double maxVelocity;
+	private final double maxAcceleration;
+	private final double headingGain;
+	private final double maxOmega;
+
+	private final MutableVec2d scratch = new MutableVec2d();
+	private final MutableVec2d target = new MutableVec2d();
+
+	private PursuitPath path;
+	private int segment;
+	private double progress;
+	private double vx;
+	private double vy;
+	private double omega;
+	private boolean finished;
+
+	/**
+	 * @param lookahead - how far ahead along the path to aim, in inches
+	 * @param maxVelocity - the top speed, in inches per second
+	 * @param maxAcceleration - the deceleration used to stop at the end, in inches per second squared
+	 * @param headingGain - the turn rate per radian of heading error, in 1/s
+	 * @param maxOmega - the top turn rate, in radians per second
+	 */
+	public PurePursuitFollower(double lookahead, double maxVelocity, double maxAcceleration, double headingGain, double maxOmega)
+	{
+		if(lookahead <= 0d || maxVelocity <= 0d || maxAcceleration <= 0d)
+		{
+			throw new IllegalArgumentException("Pure pursuit needs a positive lookahead and speed limits");
+		}
+
+		this.lookahead = lookahead;
+		this.maxVelocity = maxVelocity;
+		this.maxAcceleration = maxAcceleration;
+		this.headingGain = headingGain;
+		this.maxOmega = maxOmega;
+	}
+
+	/**
+	 * Starts following a path from its beginning.
+	 *
+	 * @param pathIn - the path to follow
+	 */
+	public void start(PursuitPath pathIn)
+	{
+		this.path = pathIn;
+		this.segment = 0;
+		this.progress = 0d;
+		this.vx = 0d;
+		this.vy = 0d;
+		this.omega = 0d;
+		this.finished = false;
+	}
+
+	/**
+	 * Works out the velocity to drive at. Call once per loop with the latest pose.
+	 *
+	 * @param position - the robot's field position, in inches
+	 * @param heading - the robot's heading, in radians
+	 * @return Whether the path is done.
+	 */
+	public boolean update(MutableVec2d position, double heading)
+	{
+		if(this.path == null)
+		{
+			return true;
+		}
+
+		PursuitPath p = this.path;
+		double length = p.getLength();
+
+		// Project onto the segments near the last progress, never going backwards.
+		int last = p.segmentAt(this.progress + this.lookahead * SEARCH_LOOKAHEADS, this.segment);
+		double bestDistance = Double.MAX_VALUE;
+		double bestProgress = this.progress;
+		int bestSegment = this.segment;
+
+		for(int i = this.segment; i <= last; i++)
+		{
+			double along = Math.max(this.progress, p.project(i, position.x, position.y));
+			p.interpolate(i, along, this.scratch);
+
+			double dx = this.scratch.x - position.x;
+			double dy = this.scratch.y - position.y;
+			double distanceSquared = dx * dx + dy * dy;
+
+			if(distanceSquared < bestDistance)
+			{
+				bestDistance = distanceSquared;
+				bestProgress = along;
+				bestSegment = i;
+			}
+		}
+
+		this.progress = bestProgress;
+		this.segment = bestSegment;
+
+		double aim = Math.min(this.progress + this.lookahead, length);
+		double targetHeading = p.interpolate(p.segmentAt(aim, this.segment), aim, this.target);
+
+		double dx = this.target.x - position.x;
+		double dy = this.target.y - position.y;
+		double toTarget = Math.sqrt(dx * dx + dy * dy);
+
+		// The path left past the lookahead point plus the way to it, which stays smooth as the
+		// lookahead point reaches the end and becomes just the distance to it.
+		double remaining = length - aim + toTarget;
+		double headingError = wrap(targetHeading - heading);
+		boolean there = aim == length && toTarget <= DISTANCE_TOLERANCE;
+
+		if(there || toTarget == 0d)
+		{
+			this.vx = 0d;
+			this.vy = 0d;
+		}
+		else
+		{
+			double speed = Math.min(this.maxVelocity, Math.sqrt(2d * this.maxAcceleration * remaining));
+			this.vx = dx / toTarget * speed;
+			this.vy = dy / toTarget * speed;
+		}
+
+		this.finished = there && Math.abs(headingError) <= ANGLE_TOLERANCE;
+		this.omega = this.finished ? 0d : Math.max(-this.maxOmega, Math.min(this.maxOmega, headingError * this.headingGain));
+		return this.finished;
+	}
+
+	private static double wrap(double angle)
+	{
+		return angle - Constants.TWO_PI * Math.floor((angle + Math.PI) / Constants.TWO_PI);
+	}
+
+	/**
+	 * @return Whether the last update finished the path.
+	 */
+	public boolean isFinished()
+	{
+		return this.finished;
+	}
+
+	/**
+	 * @return The distance along the path the robot has reached, in inches.
+	 */
+	public double getProgress()
+	{
+		return this.progress;
+	}
+
+	/**
+	 * Copies the point the last update aimed for into the passed vector.
+	 *
+	 * @param out - the vector to write to
+	 * @return The passed vector.
+	 */
+	public MutableVec2d getTarget(MutableVec2d out)
+	{
+		return out.set(this.target);
+	}
+
+	/**
+	 * @return The field-relative x velocity to drive at, in inches per second.
+	 */
+	public double getVx()
+	{
+		return this.vx;
+	}
+
+	/**
+	 * @return The field-relative y velocity to drive at, in inches per second.
+	 */
+	public double getVy()
+	{
+		return this.vy;
+	}
+
+	/**
+	 * @return The turn rate to drive at, in radians per second counterclockwise.
+	 */
+	public double getOmega()
+	{
+		return this.omega;
+	}
+}
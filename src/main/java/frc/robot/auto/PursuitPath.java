@@ -0,0 +1,263 @@
+package frc.robot.auto;
+
+import frc.robot.Constants;
+import frc.robot.math.MutableVec2d;
+import frc.robot.math.Vec2d;
+
+
+/**
+ * A path of straight segments for {@link PurePursuitFollower}, kept in primitive arrays.
+ * <p>
+ * Each point has a field position in inches, the distance along the path to it and the
+ * heading the robot should have there. Headings are unwrapped, so a turn through ±π is
+ * continuous. Distances along the path are indexed in buckets of {@link #BUCKET_LENGTH}, so
+ * finding the segment at any distance takes a lookup and a short step forward instead of a
+ * scan from the start, however many points the path has.
+ */
+public class PursuitPath
+{
+	/** Length of path covered by each bucket of the segment index, in inches. */
+	public static final double BUCKET_LENGTH = 12d;
+
+	private final double[] x;
+	private final double[] y;
+	private final double[] distance;
+	private final double[] heading;
+	private final int[] bucketSegment;
+
+	/**
+	 * @param x - the x position of each point, in inches
+	 * @param y - the y position of each point, in inches
+	 * @param heading - the heading at each point, in radians, unwrapped
+	 */
+	public PursuitPath(double[] x, double[] y, double[] heading)
+	{
+		if(x.length < 2 || y.length != x.length || heading.length != x.length)
+		{
+			throw new IllegalArgumentException("A pursuit path needs at least two points with a position and heading each");
+		}
+
+		this.x = x;
+		this.y = y;
+		this.heading = heading;
+		this.distance = new double[x.length];
+
+		for(int i = 1; i < x.length; i++)
+		{
+			double dx = x[i] - x[i - 1];
+			double dy = y[i] - y[i - 1];
+			this.distance[i] = this.distance[i - 1] + Math.sqrt(dx * dx + dy * dy);
+		}
+
+		// Bucket k holds the first segment that reaches past k * BUCKET_LENGTH.
+		this.bucketSegment = new int[(int) (this.getLength() / BUCKET_LENGTH) + 1];
+		int segment = 0;
+
+		for(int k = 0; k < this.bucketSegment.length; k++)
+		{
+			while(segment < this.getSegmentCount() - 1 && this.distance[segment + 1] <= k * BUCKET_LENGTH)
+			{
+				segment++;
+			}
+
+			this.bucketSegment[k] = segment;
+		}
+	}
+
+	/**
+	 * Makes a path straight through waypoints, turning evenly along its length.
+	 *
+	 * @param startHeading - the heading at the start, in radians
+	 * @param endHeading - the heading at the end, in radians
+	 * @param waypoints - the field positions to drive through, in inches
+	 * @return The path.
+	 */
+	public static PursuitPath fromWaypoints(double startHeading, double endHeading, Vec2d... waypoints)
+	{
+		double[] x = new double[waypoints.length];
+		double[] y = new double[waypoints.length];
+		double[] heading = new double[waypoints.length];
+		double[] distance = new double[waypoints.length];
+
+		for(int i = 0; i < waypoints.length; i++)
+		{
+			x[i] = waypoints[i].x;
+			y[i] = waypoints[i].y;
+			distance[i] = i == 0 ? 0d : distance[i - 1] + waypoints[i].subtract(waypoints[i - 1]).getLength();
+		}
+
+		// Turn the short way round, the same as TrajectoryBuilder.
+		double turn = endHeading - startHeading;
+		turn -= Constants.TWO_PI * Math.floor((turn + Math.PI) / Constants.TWO_PI);
+		double length = distance[distance.length - 1];
+
+		for(int i = 0; i < waypoints.length; i++)
+		{
+			heading[i] = startHeading + turn * (length == 0d ? 1d : distance[i] / length);
+		}
+
+		return new PursuitPath(x, y, heading);
+	}
+
+	/**
+	 * Makes a path through the samples of a prebuilt trajectory, ignoring its timing.
+	 *
+	 * @param trajectory - the trajectory to follow
+	 * @return The path.
+	 */
+	public static PursuitPath fromTrajectory(MappedTrajectory trajectory)
+	{
+		int count = trajectory.getSampleCount();
+		double[] x = new double[count];
+		double[] y = new double[count];
+		double[] heading = new double[count];
+
+		for(int i = 0; i < count; i++)
+		{
+			x[i] = trajectory.getX(i);
+			y[i] = trajectory.getY(i);
+			heading[i] = trajectory.getHeading(i);
+		}
+
+		return new PursuitPath(x, y, heading);
+	}
+
+	/**
+	 * @return The number of points.
+	 */
+	public int getPointCount()
+	{
+		return this.x.length;
+	}
+
+	/**
+	 * @return The number of segments, one fewer than the points.
+	 */
+	public int getSegmentCount()
+	{
+		return this.x.length - 1;
+	}
+
+	/**
+	 * @return The length of the path, in inches.
+	 */
+	public double getLength()
+	{
+		return this.distance[this.distance.length - 1];
+	}
+
+	/**
+	 * @param point - the point index
+	 * @return The x position of the point, in inches.
+	 */
+	public double getX(int point)
+	{
+		return this.x[point];
+	}
+
+	/**
+	 * @param point - the point index
+	 * @return The y position of the point, in inches.
+	 */
+	public double getY(int point)
+	{
+		return this.y[point];
+	}
+
+	/**
+	 * @param point - the point index
+	 * @return The distance along the path to the point, in inches.
+	 */
+	public double getDistance(int point)
+	{
+		return this.distance[point];
+	}
+
+	/**
+	 * @param point - the point index
+	 * @return The heading at the point, in radians.
+	 */
+	public double getHeading(int point)
+	{
+		return this.heading[point];
+	}
+
+	/**
+	 * Finds the segment a distance along the path falls in.
+	 *
+	 * @param distanceAlong - the distance along the path, in inches
+	 * @param fromSegment - a segment known to be at or before the answer, or 0
+	 * @return The segment index, clamped to the path.
+	 */
+	public int segmentAt(double distanceAlong, int fromSegment)
+	{
+		int last = this.getSegmentCount() - 1;
+
+		if(distanceAlong >= this.getLength())
+		{
+			return last;
+		}
+
+		int bucket = distanceAlong <= 0d ? 0 : (int) (distanceAlong / BUCKET_LENGTH);
+		int segment = Math.max(fromSegment, this.bucketSegment[Math.min(bucket, this.bucketSegment.length - 1)]);
+
+		while(segment < last && this.distance[segment + 1] <= distanceAlong)
+		{
+			segment++;
+		}
+
+		return segment;
+	}
+
+	/**
+	 * Finds the point a distance along the path.
+	 *
+	 * @param segment - the segment the distance falls in, from {@link #segmentAt(double, int) segmentAt()}
+	 * @param distanceAlong - the distance along the path, in inches
+	 * @param out - set to the position, in inches
+	 * @return The heading there, in radians.
+	 */
+	public double interpolate(int segment, double distanceAlong, MutableVec2d out)
+	{
+		double t = this.fraction(segment, distanceAlong);
+		out.set(this.x[segment] + (this.x[segment + 1] - this.x[segment]) * t,
+			this.y[segment] + (this.y[segment + 1] - this.y[segment]) * t);
+		return this.heading[segment] + (this.heading[segment + 1] - this.heading[segment]) * t;
+	}
+
+	private double fraction(int segment, double distanceAlong)
+	{
+		double length = this.distance[segment + 1] - this.distance[segment];
+
+		if(length == 0d)
+		{
+			return 0d;
+		}
+
+		return Math.max(0d, Math.min(1d, (distanceAlong - this.distance[segment]) / length));
+	}
+
+	/**
+	 * Projects a position onto one segment.
+	 *
+	 * @param segment - the segment index
+	 * @param posX - the x position, in inches
+	 * @param posY - the y position, in inches
+	 * @return The distance along the path of the closest point on the segment, in inches.
+	 */
+	public double project(int segment, double posX, double posY)
+	{
+		double dx = this.x[segment + 1] - this.x[segment];
+		double dy = this.y[segment + 1] - this.y[segment];
+		double lengthSquared = dx * dx + dy * dy;
+
+		if(lengthSquared == 0d)
+		{
+			return this.distance[segment];
+		}
+
+		double t = ((posX - this.x[segment]) * dx + (posY - this.y[segment]) * dy) / lengthSquared;
+		t = Math.max(0d, Math.min(1d, t));
+		return this.distance[segment] + (this.distance[segment + 1] - this.distance[segment]) * t;
+	}
+}
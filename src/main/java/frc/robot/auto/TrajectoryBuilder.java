@@ -0,0 +1,117 @@
+package frc.robot.auto;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import frc.robot.Constants;
+
+
+/**
+ * Builds trajectories from {@link TrajectoryDefinition}s and writes them in the
+ * {@link MappedTrajectory} file format.
+ * <p>
+ * The robot follows the waypoints along straight segments with a trapezoidal speed
+ * profile: it accelerates at the limit, cruises at the top speed, then decelerates to stop
+ * on the last waypoint. Short paths that never reach the top speed get a triangular profile.
+ * The heading turns evenly with distance travelled, the shortest way around.
+ * <p>
+ * This is meant to run off the robot, from the {@code generateTrajectories} Gradle task,
+ * or once on first boot if a file is missing.
+ */
+public class TrajectoryBuilder
+{
+	/** Time between samples, in seconds. Matches the robot loop period. */
+	public static final double SAMPLE_PERIOD = 0.02;
+
+	/**
+	 * Builds a trajectory and writes it to a file.
+	 *
+	 * @param definition - the trajectory to build
+	 * @param path - the file to write
+	 * @throws IOException if the file can't be written
+	 */
+	public static void write(TrajectoryDefinition definition, Path path) throws IOException
+	{
+		int segments = definition.waypoints.length - 1;
+		double[] segmentStart = new double[segments + 1];
+
+		for(int i = 0; i < segments; i++)
+		{
+			double dx = definition.waypoints[i + 1].x - definition.waypoints[i].x;
+			double dy = definition.waypoints[i + 1].y - definition.waypoints[i].y;
+			segmentStart[i + 1] = segmentStart[i] + Math.sqrt(dx * dx + dy * dy);
+		}
+
+		double length = segmentStart[segments];
+		double accel = definition.maxAcceleration;
+		double cruise = Math.min(definition.maxVelocity, Math.sqrt(accel * length));
+		double accelTime = cruise / accel;
+		double accelDistance = cruise * accelTime / 2d;
+		double cruiseTime = cruise == 0d ? 0d : (length - 2d * accelDistance) / cruise;
+		double totalTime = 2d * accelTime + cruiseTime;
+
+		int samples = (int) Math.ceil(totalTime / SAMPLE_PERIOD) + 1;
+		double turn = definition.endHeading - definition.startHeading;
+		turn -= Constants.TWO_PI * Math.floor((turn + Math.PI) / Constants.TWO_PI);
+
+		ByteBuffer buffer = ByteBuffer.allocate(MappedTrajectory.HEADER_BYTES + samples * MappedTrajectory.SAMPLE_BYTES);
+		buffer.put(MappedTrajectory.MAGIC);
+		buffer.putInt(MappedTrajectory.VERSION);
+		buffer.putInt(samples);
+		buffer.putLong(definition.hash());
+		buffer.putDouble(SAMPLE_PERIOD);
+
+		int segment = 0;
+
+		for(int i = 0; i < samples; i++)
+		{
+			double time = Math.min(i * SAMPLE_PERIOD, totalTime);
+			double distance;
+			double velocity;
+
+			if(time < accelTime)
+			{
+				velocity = accel * time;
+				distance = velocity * time / 2d;
+			}
+			else if(time < accelTime + cruiseTime)
+			{
+				velocity = cruise;
+				distance = accelDistance + cruise * (time - accelTime);
+			}
+			else
+			{
+				double remaining = totalTime - time;
+				velocity = accel * remaining;
+				distance = length - velocity * remaining / 2d;
+			}
+
+			while(segment < segments - 1 && distance > segmentStart[segment + 1])
+			{
+				segment++;
+			}
+
+			double segmentLength = segmentStart[segment + 1] - segmentStart[segment];
+			double t = segmentLength == 0d ? 0d : (distance - segmentStart[segment]) / segmentLength;
+			double x = definition.waypoints[segment].x + (definition.waypoints[segment + 1].x - definition.waypoints[segment].x) * t;
+			double y = definition.waypoints[segment].y + (definition.waypoints[segment + 1].y - definition.waypoints[segment].y) * t;
+			double heading = definition.startHeading + turn * (length == 0d ? 1d : distance / length);
+
+			buffer.putDouble(time);
+			buffer.putDouble(x);
+			buffer.putDouble(y);
+			buffer.putDouble(heading);
+			buffer.putDouble(velocity);
+		}
+
+		Files.createDirectories(path.toAbsolutePath().getParent());
+
+		// Write to a temporary file first so a half written file is never mapped.
+		Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		Files.write(temporary, buffer.array());
+		Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+	}
+}
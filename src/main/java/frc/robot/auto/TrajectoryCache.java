@@ -0,0 +1,145 @@
+package frc.robot.auto;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.GeneratedFiles;
+import frc.robot.math.Vec2d;
+
+
+/**
+ * The autonomous trajectories, built ahead of time and memory-mapped at startup so nothing
+ * is generated once the robot is enabled.
+ * <p>
+ * Files normally come from the {@code generateTrajectories} Gradle task, which runs
+ * {@link #main(String[])} to write {@code build/generated/deploy/trajectories} before every
+ * build; see {@link GeneratedFiles}. If a file is missing or was built from an older
+ * definition, it is rebuilt on the robot during {@link #load()} instead.
+ */
+public class TrajectoryCache
+{
+	/** Name of the directory of generated files that holds the trajectory files. */
+	public static final String DIRECTORY = "trajectories";
+
+	/** File extension of trajectory files. */
+	public static final String EXTENSION = ".traj";
+
+	/**
+	 * Every trajectory the robot can drive in autonomous. Positions are in inches relative to
+	 * where the robot starts, with the positive x direction pointing away from the alliance wall.
+	 */
+	public static final TrajectoryDefinition[] DEFINITIONS = {
+		new TrajectoryDefinition("leaveCommunity", 0d, 0d, 60d, 60d,
+			new Vec2d(0d, 0d),
+			new Vec2d(160d, 0d)),
+	};
+
+	private final Map<String, MappedTrajectory> trajectories = new LinkedHashMap<>();
+
+	private TrajectoryCache()
+	{
+	}
+
+	/**
+	 * Maps every trajectory from the generated files, rebuilding any that are missing or stale.
+	 *
+	 * @return The loaded trajectories.
+	 */
+	public static TrajectoryCache load()
+	{
+		return load(GeneratedFiles.getDirectory().resolve(DIRECTORY));
+	}
+
+	/**
+	 * Maps every trajectory from a directory, rebuilding any that are missing or stale.
+	 *
+	 * @param directory - the directory holding the trajectory files
+	 * @return The loaded trajectories.
+	 */
+	public static TrajectoryCache load(Path directory)
+	{
+		TrajectoryCache cache = new TrajectoryCache();
+
+		for(TrajectoryDefinition definition : DEFINITIONS)
+		{
+			Path path = directory.resolve(definition.name + EXTENSION);
+
+			try
+			{
+				MappedTrajectory trajectory = mapIfCurrent(definition, path);
+
+				if(trajectory == null)
+				{
+					DriverStation.reportWarning("Rebuilding stale or missing trajectory " + definition.name, false);
+					TrajectoryBuilder.write(definition, path);
+					trajectory = MappedTrajectory.map(definition.name, path);
+				}
+
+				cache.trajectories.put(definition.name, trajectory);
+			}
+			catch(IOException e)
+			{
+				DriverStation.reportError("Unable to load trajectory " + definition.name + ": " + e.getMessage(), false);
+			}
+		}
+
+		return cache;
+	}
+
+	private static MappedTrajectory mapIfCurrent(TrajectoryDefinition definition, Path path)
+	{
+		if(!Files.isRegularFile(path))
+		{
+			return null;
+		}
+
+		try
+		{
+			MappedTrajectory trajectory = MappedTrajectory.map(definition.name, path);
+			return trajectory.getDefinitionHash() == definition.hash() ? trajectory : null;
+		}
+		catch(IOException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * @param name - the name of the trajectory
+	 * @return The trajectory, or null if it doesn't exist or failed to load.
+	 */
+	public MappedTrajectory get(String name)
+	{
+		return this.trajectories.get(name);
+	}
+
+	/**
+	 * @return Every loaded trajectory by name, in definition order.
+	 */
+	public Map<String, MappedTrajectory> getAll()
+	{
+		return this.trajectories;
+	}
+
+	/**
+	 * Builds every trajectory into a directory. Used by the {@code generateTrajectories}
+	 * Gradle task.
+	 *
+	 * @param args - the output directory
+	 * @throws IOException if a file can't be written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		Path directory = new File(args[0]).toPath();
+
+		for(TrajectoryDefinition definition : DEFINITIONS)
+		{
+			TrajectoryBuilder.write(definition, directory.resolve(definition.name + EXTENSION));
+		}
+	}
+}
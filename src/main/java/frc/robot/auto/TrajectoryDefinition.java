@@ -0,0 +1,69 @@
+package frc.robot.auto;
+
+import frc.robot.math.Vec2d;
+
+
+/**
+ * Describes a trajectory to be built ahead of time by {@link TrajectoryBuilder}: a path of
+ * straight segments through field waypoints, a heading to turn through, and the speed limits
+ * to drive it with.
+ */
+public class TrajectoryDefinition
+{
+	public final String name;
+	public final Vec2d[] waypoints;
+	public final double startHeading;
+	public final double endHeading;
+	public final double maxVelocity;
+	public final double maxAcceleration;
+
+	/**
+	 * @param name - the name of the trajectory, also used for its file name
+	 * @param startHeading - the heading at the start, in radians
+	 * @param endHeading - the heading at the end, in radians
+	 * @param maxVelocity - the top speed, in inches per second
+	 * @param maxAcceleration - the acceleration limit, in inches per second squared
+	 * @param waypoints - the field positions to drive through, in inches
+	 */
+	public TrajectoryDefinition(String name, double startHeading, double endHeading, double maxVelocity,
+		double maxAcceleration, Vec2d... waypoints)
+	{
+		if(waypoints.length < 2)
+		{
+			throw new IllegalArgumentException("Trajectory " + name + " needs at least two waypoints");
+		}
+
+		if(maxVelocity <= 0d || maxAcceleration <= 0d)
+		{
+			throw new IllegalArgumentException("Trajectory " + name + " needs positive speed limits");
+		}
+
+		this.name = name;
+		this.waypoints = waypoints;
+		this.startHeading = startHeading;
+		this.endHeading = endHeading;
+		this.maxVelocity = maxVelocity;
+		this.maxAcceleration = maxAcceleration;
+	}
+
+	/**
+	 * Hashes everything that affects the built trajectory, so stale files can be detected.
+	 *
+	 * @return The hash of the definition.
+	 */
+	public long hash()
+	{
+		long hash = 7L;
+		hash = hash * 31L + Double.hashCode(this.startHeading);
+		hash = hash * 31L + Double.hashCode(this.endHeading);
+		hash = hash * 31L + Double.hashCode(this.maxVelocity);
+		hash = hash * 31L + Double.hashCode(this.maxAcceleration);
+
+		for(Vec2d waypoint : this.waypoints)
+		{
+			hash = hash * 31L + waypoint.hashCode();
+		}
+
+		return hash * 31L + MappedTrajectory.VERSION;
+	}
+}
@@ -0,0 +1,285 @@
+package frc.robot.control;
+
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.wpilibj.Notifier;
+import frc.robot.Constants;
+
+
+/**
+ * Runs closed loop PID + feedforward control on its own {@link Notifier}, faster than the
+ * main robot loop.
+ * <p>
+ * Loops are added during startup, then {@link #start()} begins running them every period.
+ * The main loop sends setpoints with {@link #setSetpoint(int, double) setSetpoint()}, and
+ * reads back the latest measurements and outputs after calling {@link #refresh()}. Both
+ * directions go through {@link SingleWriterDoubleBuffer}s, so neither thread ever waits
+ * on the other.
+ * <p>
+ * Gains are {kF, kP, kI, kD}, in the same order as {@link Constants#PID_SETTINGS}. The
+ * output of each loop is {@code kF * setpoint + kP * error + kI * ∫error + kD * d(error)/dt},
+ * clamped to [-1, 1]. The integral stops growing while the output is clamped.
+ * <p>
+ * Measurement suppliers and output consumers run on the control thread, so they must be
+ * safe to call from there.
+ */
+public class ControlExecutor
+{
+	/** Index of the feedforward gain in a gains array. */
+	public static final int F = 0;
+
+	/** Index of the proportional gain in a gains array. */
+	public static final int P = 1;
+
+	/** Index of the integral gain in a gains array. */
+	public static final int I = 2;
+
+	/** Index of the derivative gain in a gains array. */
+	public static final int D = 3;
+
+	/** Number of values published per loop: measurement, output and error. */
+	private static final int STATE_SIZE = 3;
+
+	private final double periodSeconds;
+	private final int capacity;
+	private final Notifier notifier;
+
+	private final String[] names;
+	private final DoubleSupplier[] measurements;
+	private final DoubleConsumer[] outputs;
+	private final double[] kF;
+	private final double[] kP;
+	private final double[] kI;
+	private final double[] kD;
+	private int loopCount;
+
+	// Main loop -> control thread.
+	private final SingleWriterDoubleBuffer setpointBuffer;
+	private final double[] setpoints;
+
+	// Control thread -> main loop.
+	private final SingleWriterDoubleBuffer stateBuffer;
+	private final double[] state;
+
+	// Owned by the control thread.
+	private final double[] controlSetpoints;
+	private final double[] publishedState;
+	private final double[] integrals;
+	private final double[] lastErrors;
+	private long lastTickNanos;
+	private volatile long tickCount;
+
+	private boolean started;
+
+	/**
+	 * @param periodSeconds - how often to run the loops, e.g. 0.005 for 200Hz
+	 * @param capacity - the most loops that will be added
+	 */
+	public ControlExecutor(double periodSeconds, int capacity)
+	{
+		this.periodSeconds = periodSeconds;
+		this.capacity = capacity;
+		this.notifier = new Notifier(this::tick);
+		this.notifier.setName("ControlExecutor");
+
+		this.names = new String[capacity];
+		this.measurements = new DoubleSupplier[capacity];
+		this.outputs = new DoubleConsumer[capacity];
+		this.kF = new double[capacity];
+		this.kP = new double[capacity];
+		this.kI = new double[capacity];
+		this.kD = new double[capacity];
+
+		this.setpointBuffer = new SingleWriterDoubleBuffer(capacity);
+		this.setpoints = new double[capacity];
+		this.stateBuffer = new SingleWriterDoubleBuffer(capacity * STATE_SIZE);
+		this.state = new double[capacity * STATE_SIZE];
+
+		this.controlSetpoints = new double[capacity];
+		this.publishedState = new double[capacity * STATE_SIZE];
+		this.integrals = new double[capacity];
+		this.lastErrors = new double[capacity];
+	}
+
+	/**
+	 * Adds a loop using the gains in {@link Constants#PID_SETTINGS}.
+	 *
+	 * @param name - the name of the loop
+	 * @param measurement - reads the controlled value; called on the control thread
+	 * @param output - applies the loop output; called on the control thread
+	 * @return The loop index.
+	 */
+	public int addLoop(String name, DoubleSupplier measurement, DoubleConsumer output)
+	{
+		return this.addLoop(name, measurement, output, Constants.PID_SETTINGS);
+	}
+
+	/**
+	 * Adds a loop.
+	 *
+	 * @param name - the name of the loop
+	 * @param measurement - reads the controlled value; called on the control thread
+	 * @param output - applies the loop output; called on the control thread
+	 * @param gains - {kF, kP, kI, kD}
+	 * @return The loop index.
+	 */
+	public int addLoop(String name, DoubleSupplier measurement, DoubleConsumer output, double[] gains)
+	{
+		if(this.started)
+		{
+			throw new IllegalStateException("Loops must be added before the control executor starts");
+		}
+
+		if(this.loopCount == this.capacity)
+		{
+			throw new IllegalStateException("Control executor is full (capacity " + this.capacity + ")");
+		}
+
+		int loop = this.loopCount++;
+		this.names[loop] = name;
+		this.measurements[loop] = measurement;
+		this.outputs[loop] = output;
+		this.kF[loop] = gains[F];
+		this.kP[loop] = gains[P];
+		this.kI[loop] = gains[I];
+		this.kD[loop] = gains[D];
+		return loop;
+	}
+
+	/**
+	 * Starts running the loops. Does nothing if no loops were added.
+	 */
+	public void start()
+	{
+		if(this.started || this.loopCount == 0)
+		{
+			return;
+		}
+
+		this.started = true;
+		this.notifier.startPeriodic(this.periodSeconds);
+	}
+
+	/**
+	 * Stops running the loops. The outputs keep their last values.
+	 */
+	public void stop()
+	{
+		this.notifier.stop();
+		this.started = false;
+	}
+
+	/**
+	 * Sets the target of a loop. Only the main loop thread may call this.
+	 *
+	 * @param loop - the loop index
+	 * @param setpoint - the new target
+	 */
+	public void setSetpoint(int loop, double setpoint)
+	{
+		this.setpoints[loop] = setpoint;
+		this.setpointBuffer.write(this.setpoints);
+	}
+
+	/**
+	 * Copies the latest state published by the control thread for the getters to read.
+	 * Call once per main loop.
+	 */
+	public void refresh()
+	{
+		this.stateBuffer.read(this.state);
+	}
+
+	/**
+	 * @param loop - the loop index
+	 * @return The measurement from the latest control tick before {@link #refresh()}.
+	 */
+	public double getMeasurement(int loop)
+	{
+		return this.state[loop * STATE_SIZE];
+	}
+
+	/**
+	 * @param loop - the loop index
+	 * @return The output from the latest control tick before {@link #refresh()}.
+	 */
+	public double getOutput(int loop)
+	{
+		return this.state[loop * STATE_SIZE + 1];
+	}
+
+	/**
+	 * @param loop - the loop index
+	 * @return The error from the latest control tick before {@link #refresh()}.
+	 */
+	public double getError(int loop)
+	{
+		return this.state[loop * STATE_SIZE + 2];
+	}
+
+	/**
+	 * @param loop - the loop index
+	 * @return The name of the loop.
+	 */
+	public String getName(int loop)
+	{
+		return this.names[loop];
+	}
+
+	/**
+	 * @return The number of control ticks run so far.
+	 */
+	public long getTickCount()
+	{
+		return this.tickCount;
+	}
+
+	private void tick()
+	{
+		long now = System.nanoTime();
+		double dt = this.lastTickNanos == 0L ? this.periodSeconds : (now - this.lastTickNanos) / 1e9d;
+		this.lastTickNanos = now;
+
+		this.setpointBuffer.read(this.controlSetpoints);
+
+		for(int loop = 0; loop < this.loopCount; loop++)
+		{
+			double setpoint = this.controlSetpoints[loop];
+			double measurement = this.measurements[loop].getAsDouble();
+			double error = setpoint - measurement;
+			double derivative = (error - this.lastErrors[loop]) / dt;
+			double integral = this.integrals[loop] + error * dt;
+
+			double output = this.kF[loop] * setpoint
+				+ this.kP[loop] * error
+				+ this.kI[loop] * integral
+				+ this.kD[loop] * derivative;
+
+			if(output > 1d)
+			{
+				output = 1d;
+			}
+			else if(output < -1d)
+			{
+				output = -1d;
+			}
+			else
+			{
+				this.integrals[loop] = integral;
+			}
+
+			this.lastErrors[loop] = error;
+			this.outputs[loop].accept(output);
+
+			this.publishedState[loop * STATE_SIZE] = measurement;
+			this.publishedState[loop * STATE_SIZE + 1] = output;
+			this.publishedState[loop * STATE_SIZE + 2] = error;
+		}
+
+		// Published in one copy once every sensor read and motor write is done, so readers
+		// never wait on the measurement suppliers or output consumers.
+		this.stateBuffer.write(this.publishedState);
+		this.tickCount++;
+	}
+}
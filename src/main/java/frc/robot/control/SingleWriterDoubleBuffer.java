@@ -0,0 +1,114 @@
+package frc.robot.control;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * A fixed-size block of doubles shared between one writer thread and any number of reader
+ * threads without locks.
+ * <p>
+ * This is a sequence lock: the writer bumps a counter to an odd value, writes, then bumps it
+ * back to even. Readers copy the values out and retry if the counter was odd or changed while
+ * they were copying, so they always see a complete set of values from a single write. The
+ * writer never waits, and neither side allocates.
+ */
+public class SingleWriterDoubleBuffer
+{
+	private final double[] values;
+	private final AtomicInteger sequence = new AtomicInteger();
+
+	/**
+	 * @param size - the number of doubles in the buffer
+	 */
+	public SingleWriterDoubleBuffer(int size)
+	{
+		this.values = new double[size];
+	}
+
+	/**
+	 * @return The number of doubles in the buffer.
+	 */
+	public int size()
+	{
+		return this.values.length;
+	}
+
+	/**
+	 * Starts a write. Only the writer thread may call this, followed by any number of
+	 * {@link #set(int, double) set()} calls and then {@link #endWrite()}.
+	 */
+	public void beginWrite()
+	{
+		this.sequence.set(this.sequence.get() + 1);
+		VarHandle.storeStoreFence();
+	}
+
+	/**
+	 * Sets a value. Must be between {@link #beginWrite()} and {@link #endWrite()}.
+	 *
+	 * @param index - the index to set
+	 * @param value - the new value
+	 */
+	public void set(int index, double value)
+	{
+		this.values[index] = value;
+	}
+
+	/**
+	 * Publishes everything set since {@link #beginWrite()} to readers.
+	 */
+	public void endWrite()
+	{
+		this.sequence.set(this.sequence.get() + 1);
+	}
+
+	/**
+	 * Writes every value at once.
+	 *
+	 * @param source - the values to write, at least {@link #size()} long
+	 */
+	public void write(double[] source)
+	{
+		this.beginWrite();
+		System.arraycopy(source, 0, this.values, 0, this.values.length);
+		this.endWrite();
+	}
+
+	/**
+	 * Copies the latest complete write into the passed array. Spins while a write is in
+	 * progress, which is never longer than the writer takes to copy the values in.
+	 *
+	 * @param destination - the array to copy into, at least {@link #size()} long
+	 * @return The number of writes published so far.
+	 */
+	public int read(double[] destination)
+	{
+		while(true)
+		{
+			int before = this.sequence.get();
+
+			if((before & 1) != 0)
+			{
+				Thread.onSpinWait();
+				continue;
+			}
+
+			System.arraycopy(this.values, 0, destination, 0, this.values.length);
+			VarHandle.loadLoadFence();
+
+			if(this.sequence.get() == before)
+			{
+				return before >>> 1;
+			}
+		}
+	}
+
+	/**
+	 * @return The number of writes published so far.
+	 */
+	public int getVersion()
+	{
+		return this.sequence.get() >>> 1;
+	}
+}
@@ -0,0 +1,189 @@
+package frc.robot.diagnostics;
+
+import java.lang.management.ManagementFactory;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+import frc.robot.DoubleController;
+import frc.robot.math.MutableVec2d;
+import frc.robot.math.SwerveKinematics;
+import frc.robot.math.Vec2d;
+import frc.robot.telemetry.TelemetryLogger;
+
+
+/**
+ * Runs the robot's hot paths with synthetic inputs while disabled, so the JIT compiles them
+ * before the first enabled loop instead of during it.
+ * <p>
+ * Call {@link #run()} from {@code disabledPeriodic()}. Each call spends at most
+ * {@link #BUDGET_NANOS} on warm-up rounds and stops as soon as the robot is no longer
+ * disabled. After {@link #TARGET_ROUNDS} rounds, comfortably past the JVM's compile
+ * thresholds, warm-up is done and further calls return immediately. Startup and warm-up
+ * times are logged to telemetry.
+ */
+public class JitWarmup
+{
+	/** Most time spent warming up per call, leaving the rest of the loop for normal work. */
+	public static final long BUDGET_NANOS = 5_000_000L;
+
+	/** Number of rounds after which the hot paths are considered compiled. */
+	public static final int TARGET_ROUNDS = 20_000;
+
+	/** Rounds run between checks of the time budget and robot state. */
+	private static final int ROUNDS_PER_CHECK = 16;
+
+	private final DoubleController controller;
+	private final SwerveKinematics kinematics = new SwerveKinematics(
+		new Vec2d(1d, 1d),
+		new Vec2d(-1d, 1d),
+		new Vec2d(-1d, -1d),
+		new Vec2d(1d, -1d));
+	private final MutableVec2d scratch = new MutableVec2d();
+	private final double[] axes1 = new double[6];
+	private final double[] axes2 = new double[6];
+
+	private final TelemetryLogger logger = TelemetryLogger.getInstance();
+	private final int startupChannel = this.logger.registerChannel("warmup/startupMs");
+	private final int warmupChannel = this.logger.registerChannel("warmup/durationMs");
+	private final int warmupLoopTimeChannel = this.logger.registerChannel("warmup/loopTimeMs");
+	private final int warmupRoundsChannel = this.logger.registerChannel("warmup/rounds");
+
+	private int rounds;
+	private long firstRunNanos;
+	private long busyNanos;
+	private boolean done;
+
+	// Written so the JIT can't discard the work as unused.
+	private double sink;
+
+	/**
+	 * @param controller - a controller used only for warm-up, on the same ports as the real one
+	 */
+	public JitWarmup(DoubleController controller)
+	{
+		this.controller = controller;
+	}
+
+	/**
+	 * Reports how long the JVM took to get to this point. Call at the end of {@code robotInit()}.
+	 */
+	public void reportStartup()
+	{
+		this.logger.log(this.startupChannel, ManagementFactory.getRuntimeMXBean().getUptime());
+	}
+
+	/**
+	 * Runs warm-up rounds until the time budget is spent, the robot leaves disabled, or
+	 * warm-up is done.
+	 */
+	public void run()
+	{
+		if(this.done)
+		{
+			return;
+		}
+
+		long start = System.nanoTime();
+
+		if(this.firstRunNanos == 0L)
+		{
+			this.firstRunNanos = start;
+		}
+
+		while(DriverStation.isDisabled() && System.nanoTime() - start < BUDGET_NANOS)
+		{
+			for(int i = 0; i < ROUNDS_PER_CHECK; i++)
+			{
+				this.round(this.rounds++);
+			}
+
+			if(this.rounds >= TARGET_ROUNDS)
+			{
+				this.finish(start);
+				return;
+			}
+		}
+
+		this.busyNanos += System.nanoTime() - start;
+	}
+
+	/**
+	 * @return Whether warm-up has finished.
+	 */
+	public boolean isDone()
+	{
+		return this.done;
+	}
+
+	private void finish(long start)
+	{
+		long now = System.nanoTime();
+		this.busyNanos += now - start;
+		this.done = true;
+
+		this.logger.log(this.warmupChannel, (now - this.firstRunNanos) / 1e6d);
+		this.logger.log(this.warmupLoopTimeChannel, this.busyNanos / 1e6d);
+		this.logger.log(this.warmupRoundsChannel, this.rounds);
+	}
+
+	private void round(int round)
+	{
+		// Vary the inputs so no branch looks untaken to the JIT.
+		double t = (round & 1023) / 1023d;
+		double angle = t * Math.PI * 4d - Math.PI * 2d;
+
+		// Vec2d math
+		Vec2d a = new Vec2d(angle, t + 0.5d, false);
+		Vec2d b = new Vec2d(t - 0.5d, -t);
+		this.sink += a.add(b).subtract(b).scale(t).rotate(angle, false).getAngle();
+		this.sink += a.normalize().dot(b) + a.cross(b) + a.distanceTo(b) + b.getLength();
+
+		// In-place vector math
+		this.scratch.set(a).addInPlace(b).rotateInPlace(angle, false).normalizeInPlace();
+		this.sink += this.scratch.getAngle();
+
+		// Kinematics
+		for(int i = 0; i < this.kinematics.getModuleCount(); i++)
+		{
+			this.kinematics.setMeasuredSteerTicks(i, angle * i * SwerveKinematics.RAD_TO_STEER_TICK);
+			this.kinematics.setMeasuredDriveVelocity(i, t * 1000d);
+		}
+
+		this.kinematics.toModuleStates(a.x * 100d, a.y * 100d, angle, 150d);
+		this.kinematics.toChassisSpeeds();
+		this.sink += this.kinematics.getSteerTicks(round & 3) + this.kinematics.getChassisOmega();
+
+		// Controller sampling and getters
+		if((round & 7) == 0)
+		{
+			this.controller.update();
+		}
+		else
+		{
+			for(int i = 0; i < this.axes1.length; i++)
+			{
+				this.axes1[i] = t * 2d - 1d;
+				this.axes2[i] = 1d - t * 2d;
+			}
+
+			this.controller.loadSnapshot(this.axes1, this.axes2, round & 0xFF, (round >> 8) & 0xFF,
+				(round & 7) * 45, -1);
+		}
+
+		this.controller.dispatchEvents();
+		this.sink += this.controller.getLeftX() + this.controller.getRightTrigger() + this.controller.getButtons();
+
+		if(this.controller.getAButton() || this.controller.getDUp())
+		{
+			this.sink++;
+		}
+
+		// Command construction
+		if((round & 63) == 0)
+		{
+			Command command = Commands.sequence(Commands.runOnce(() -> {}), Commands.waitSeconds(0d));
+			this.sink += command.getRequirements().size();
+		}
+	}
+}
@@ -0,0 +1,323 @@
+package frc.robot.diagnostics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.Constants;
+
+
+/**
+ * Times each robot loop and works out where the time went when a loop overruns.
+ * <p>
+ * A cycle starts when a mode's periodic method starts and ends at the end of
+ * {@code robotPeriodic()}. Every cycle records the mode periodic time, the
+ * {@code CommandScheduler} time, the whole cycle and the interval since the previous cycle
+ * into {@link TimingHistogram}s. The interval also covers the work WPILib does around our
+ * code each loop (Driver Station refresh, dashboard updates, mode transitions).
+ * <p>
+ * A cycle overruns if it takes longer than the {@code TimedRobot} period, and stalls if the
+ * interval between cycles exceeds {@link Constants#MS_DELAY}. Every overrun or stall is
+ * blamed on one {@link Cause} by comparing the cycle's phases with the garbage collection
+ * time reported by the JVM during the cycle.
+ * <p>
+ * Only the robot loop thread may call the start, end and cycle methods.
+ */
+public class LoopTimer
+{
+	/** Parts of the robot loop that are timed. */
+	public enum Phase
+	{
+		DISABLED_PERIODIC,
+		AUTONOMOUS_PERIODIC,
+		TELEOP_PERIODIC,
+		TEST_PERIODIC,
+		SCHEDULER,
+		CYCLE,
+		INTERVAL;
+	}
+
+	/** What an overrun was blamed on. */
+	public enum Cause
+	{
+		/** The garbage collector paused the loop. */
+		GC,
+		/** A mode periodic method. */
+		MODE_PERIODIC,
+		/** The command scheduler: subsystems, triggers and commands. */
+		SCHEDULER,
+		/** Time in robotPeriodic or the mode periodic not covered by a timed phase. */
+		ROBOT_CODE,
+		/** Time outside our code: WPILib loop overhead, JNI calls and thread scheduling. */
+		OUTSIDE;
+	}
+
+	/** Minimum time between overrun warnings printed to the Driver Station. */
+	private static final long WARNING_INTERVAL_NANOS = 1_000_000_000L;
+
+	private final long periodNanos;
+	private final long stallNanos;
+	private final TimingHistogram[] histograms;
+	private final AtomicLongArray overruns = new AtomicLongArray(Cause.values().length);
+	private final GarbageCollectorMXBean[] collectors;
+
+	private Phase modePhase;
+	private long cycleStart;
+	private long modeStart;
+	private long modeNanos;
+	private long schedulerStart;
+	private long schedulerNanos;
+	private long lastCycleStart;
+	private long lastGcMillis;
+	private long lastGcCount;
+	private long lastWarning;
+
+	/**
+	 * @param periodSeconds - the robot loop period, usually {@code TimedRobot.getPeriod()}
+	 */
+	public LoopTimer(double periodSeconds)
+	{
+		this.periodNanos = (long) (periodSeconds * 1e9d);
+		this.stallNanos = Constants.MS_DELAY * 1_000_000L;
+
+		Phase[] phases = Phase.values();
+		this.histograms = new TimingHistogram[phases.length];
+
+		for(int i = 0; i < phases.length; i++)
+		{
+			this.histograms[i] = new TimingHistogram(phases[i].name());
+		}
+
+		List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+		this.collectors = beans.toArray(new GarbageCollectorMXBean[0]);
+		this.lastGcMillis = this.getGcMillis();
+		this.lastGcCount = this.getGcCount();
+		this.lastWarning = System.nanoTime() - WARNING_INTERVAL_NANOS;
+	}
+
+	/**
+	 * Call at the start of a mode's periodic method. This also starts the cycle.
+	 *
+	 * @param phase - the mode periodic phase that is starting
+	 */
+	public void startModePeriodic(Phase phase)
+	{
+		this.modePhase = phase;
+		this.modeStart = System.nanoTime();
+		this.cycleStart = this.modeStart;
+	}
+
+	/**
+	 * Call at the end of a mode's periodic method.
+	 */
+	public void endModePeriodic()
+	{
+		this.modeNanos = System.nanoTime() - this.modeStart;
+	}
+
+	/**
+	 * Call right before {@code CommandScheduler.getInstance().run()}.
+	 */
+	public void startScheduler()
+	{
+		this.schedulerStart = System.nanoTime();
+	}
+
+	/**
+	 * Call right after {@code CommandScheduler.getInstance().run()}.
+	 */
+	public void endScheduler()
+	{
+		this.schedulerNanos = System.nanoTime() - this.schedulerStart;
+	}
+
+	/**
+	 * @return When the current cycle started, from {@link System#nanoTime()}: the start of the
+	 * mode periodic, or of the scheduler if no mode periodic has run.
+	 */
+	public long getCycleStartNanos()
+	{
+		return this.modePhase == null ? this.schedulerStart : this.cycleStart;
+	}
+
+	/**
+	 * Call at the very end of {@code robotPeriodic()}. Records the cycle and checks it for
+	 * an overrun.
+	 */
+	public void endCycle()
+	{
+		long now = System.nanoTime();
+
+		if(this.modePhase == null)
+		{
+			// No mode periodic ran this cycle, so time from the start of the scheduler.
+			this.cycleStart = this.schedulerStart;
+		}
+
+		long cycleNanos = now - this.cycleStart;
+		long intervalNanos = this.lastCycleStart == 0L ? 0L : this.cycleStart - this.lastCycleStart;
+
+		if(this.modePhase != null)
+		{
+			this.histograms[this.modePhase.ordinal()].record(this.modeNanos);
+		}
+
+		this.histograms[Phase.SCHEDULER.ordinal()].record(this.schedulerNanos);
+		this.histograms[Phase.CYCLE.ordinal()].record(cycleNanos);
+
+		if(intervalNanos > 0L)
+		{
+			this.histograms[Phase.INTERVAL.ordinal()].record(intervalNanos);
+		}
+
+		long gcMillis = this.getGcMillis();
+		long gcCount = this.getGcCount();
+		long gcNanos = (gcMillis - this.lastGcMillis) * 1_000_000L;
+		boolean gcRan = gcCount != this.lastGcCount;
+
+		boolean overrun = cycleNanos > this.periodNanos;
+		boolean stalled = intervalNanos > this.stallNanos;
+
+		if(overrun || stalled)
+		{
+			Cause cause = this.blame(cycleNanos, intervalNanos, gcRan ? gcNanos : 0L, overrun);
+			this.overruns.incrementAndGet(cause.ordinal());
+
+			if(now - this.lastWarning >= WARNING_INTERVAL_NANOS)
+			{
+				this.lastWarning = now;
+				DriverStation.reportWarning(String.format(
+					"Loop %s: cycle %.1fms, interval %.1fms, mode %.1fms, scheduler %.1fms, gc %.1fms -> %s",
+					overrun ? "overrun" : "stall",
+					cycleNanos / 1e6d,
+					intervalNanos / 1e6d,
+					this.modeNanos / 1e6d,
+					this.schedulerNanos / 1e6d,
+					gcNanos / 1e6d,
+					cause), false);
+			}
+		}
+
+		this.lastGcMillis = gcMillis;
+		this.lastGcCount = gcCount;
+		this.lastCycleStart = this.cycleStart;
+		this.modePhase = null;
+		this.modeNanos = 0L;
+		this.schedulerNanos = 0L;
+	}
+
+	private Cause blame(long cycleNanos, long intervalNanos, long gcNanos, boolean overrun)
+	{
+		// Only the portion past the budget matters; anything that can explain at least half
+		// of it is the likely culprit.
+		long excess = overrun ? cycleNanos - this.periodNanos : intervalNanos - this.stallNanos;
+
+		if(gcNanos > 0L && gcNanos * 2L >= excess)
+		{
+			return Cause.GC;
+		}
+
+		if(!overrun)
+		{
+			return Cause.OUTSIDE;
+		}
+
+		long other = cycleNanos - this.modeNanos - this.schedulerNanos;
+
+		if(this.schedulerNanos >= this.modeNanos && this.schedulerNanos >= other)
+		{
+			return Cause.SCHEDULER;
+		}
+
+		return this.modeNanos >= other ? Cause.MODE_PERIODIC : Cause.ROBOT_CODE;
+	}
+
+	private long getGcMillis()
+	{
+		long total = 0L;
+
+		for(GarbageCollectorMXBean collector : this.collectors)
+		{
+			total += Math.max(0L, collector.getCollectionTime());
+		}
+
+		return total;
+	}
+
+	private long getGcCount()
+	{
+		long total = 0L;
+
+		for(GarbageCollectorMXBean collector : this.collectors)
+		{
+			total += Math.max(0L, collector.getCollectionCount());
+		}
+
+		return total;
+	}
+
+	/**
+	 * @param phase - the phase to get
+	 * @return The histogram for the phase.
+	 */
+	public TimingHistogram getHistogram(Phase phase)
+	{
+		return this.histograms[phase.ordinal()];
+	}
+
+	/**
+	 * @param cause - the cause to get
+	 * @return The number of overruns and stalls blamed on the cause.
+	 */
+	public long getOverrunCount(Cause cause)
+	{
+		return this.overruns.get(cause.ordinal());
+	}
+
+	/**
+	 * Prints every histogram and the overrun counts to the console, if any cycle has been
+	 * recorded. This allocates, so only call it while disabled or on demand.
+	 */
+	public void report()
+	{
+		if(this.getHistogram(Phase.CYCLE).getCount() == 0L)
+		{
+			return;
+		}
+
+		StringBuilder builder = new StringBuilder("Loop timing (period ")
+			.append(this.periodNanos / 1_000_000L).append("ms):\n");
+
+		for(TimingHistogram histogram : this.histograms)
+		{
+			builder.append("  ").append(histogram).append('\n');
+		}
+
+		builder.append("  Overruns:");
+
+		for(Cause cause : Cause.values())
+		{
+			builder.append(' ').append(cause).append('=').append(this.getOverrunCount(cause));
+		}
+
+		System.out.println(builder);
+	}
+
+	/**
+	 * Clears all histograms and overrun counts.
+	 */
+	public void reset()
+	{
+		for(TimingHistogram histogram : this.histograms)
+		{
+			histogram.reset();
+		}
+
+		for(int i = 0; i < this.overruns.length(); i++)
+		{
+			this.overruns.set(i, 0L);
+		}
+	}
+}
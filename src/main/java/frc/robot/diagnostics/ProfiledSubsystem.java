@@ -0,0 +1,30 @@
+package frc.robot.diagnostics;
+
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+
+
+/**
+ * A subsystem whose {@code periodic()} is timed by the {@link SchedulerProfiler} on its own,
+ * instead of only as part of every subsystem's time together. Put the periodic code in
+ * {@link #profiledPeriodic()}.
+ */
+public abstract class ProfiledSubsystem extends SubsystemBase
+{
+	private final SchedulerProfiler profiler = SchedulerProfiler.getInstance();
+	private final int section = this.profiler.registerSection("subsystems/" + this.getName() + ".periodic");
+
+	@Override
+	public final void periodic()
+	{
+		long start = System.nanoTime();
+		this.profiledPeriodic();
+		this.profiler.record(this.section, System.nanoTime() - start);
+	}
+
+	/**
+	 * Runs once per scheduler run, in place of {@code periodic()}.
+	 */
+	protected void profiledPeriodic()
+	{
+	}
+}
@@ -0,0 +1,476 @@
+package frc.robot.diagnostics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.wpi.first.wpilibj.event.EventLoop;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+
+
+/**
+ * Works out where the time inside {@code CommandScheduler.getInstance().run()} goes: each
+ * command's {@code initialize}, {@code execute}, {@code end} and interruption, the
+ * subsystems' {@code periodic()} methods and trigger polling.
+ * <p>
+ * The scheduler has no timing hooks of its own, so the run is split at the points it does
+ * expose. The scheduler calls the {@code onCommand...} actions right after each command
+ * method returns, so each action claims the time since the previous split for that command.
+ * The profiler also replaces the scheduler's active button loop with its own loop, which
+ * marks a split, polls the default button loop and marks another. Everything before the
+ * first mark is the subsystems, everything between the marks that no command claimed is
+ * trigger polling, and whatever is left after the last command is scheduler overhead.
+ * <p>
+ * Bindings polled outside the scheduler run, such as the controller's per-button loops in
+ * {@code DoubleController.dispatchEvents()}, are bracketed with {@link #startDispatch()}
+ * and {@link #endDispatch()}. A command scheduled by a binding is initialized right away,
+ * so its {@code initialize} is claimed the same way, and the rest of the time between the
+ * two calls is recorded as "triggers/dispatch".
+ * <p>
+ * A command method's time includes the scheduler's own work since the previous split, such
+ * as the {@code isFinished()} check before an {@code end}, which is a few microseconds at
+ * most. Commands are timed by name, so instances with the same name share their sections.
+ * Subsystems extending {@link ProfiledSubsystem} are also timed one by one.
+ * <p>
+ * Every section keeps its last {@link #WINDOW} durations in preallocated arrays, so
+ * recording never allocates. {@link #dump()} prints the rolling min, mean and 99th
+ * percentile of each section along with its all-time maximum.
+ * <p>
+ * Only the robot loop thread may use this.
+ */
+public class SchedulerProfiler
+{
+	/** Number of recent durations each section keeps; must be a power of two. */
+	public static final int WINDOW = 128;
+
+	/** Most sections that can be profiled; command names seen after this are pooled together. */
+	public static final int MAX_SECTIONS = 256;
+
+	/** Which command method a duration belongs to. */
+	private static final int INITIALIZE = 0;
+	private static final int EXECUTE = 1;
+	private static final int END = 2;
+	private static final int INTERRUPT = 3;
+	private static final String[] METHOD_NAMES = {"initialize", "execute", "end", "interrupted"};
+
+	private static final double PERCENTILE = 0.99;
+
+	private static SchedulerProfiler instance;
+
+	private final String[] names = new String[MAX_SECTIONS];
+	private final long[] samples = new long[MAX_SECTIONS * WINDOW];
+	private final long[] counts = new long[MAX_SECTIONS];
+	private final long[] maxima = new long[MAX_SECTIONS];
+	// Keyed by name rather than instance, so commands built per button press or rebuilt
+	// between matches aren't kept alive and share their sections.
+	private final Map<String, Integer> commandSections = new HashMap<>();
+
+	private final int subsystemSection;
+	private final int triggerSection;
+	private final int dispatchSection;
+	private final int overheadSection;
+	private final int totalSection;
+	private final int otherCommandSection;
+
+	private int sectionCount;
+	private boolean installed;
+	private boolean hooked;
+	private boolean running;
+	private boolean dispatching;
+	private long runStart;
+	private long lastSplit;
+
+	/**
+	 * @return The robot's scheduler profiler.
+	 */
+	public static synchronized SchedulerProfiler getInstance()
+	{
+		if(instance == null)
+		{
+			instance = new SchedulerProfiler();
+		}
+
+		return instance;
+	}
+
+	private SchedulerProfiler()
+	{
+		this.totalSection = this.registerSection("scheduler/total");
+		this.subsystemSection = this.registerSection("scheduler/subsystems");
+		this.triggerSection = this.registerSection("scheduler/triggers");
+		this.overheadSection = this.registerSection("scheduler/overhead");
+		this.dispatchSection = this.registerSection("triggers/dispatch");
+
+		// Four sections per command, so the pool covers all four methods too.
+		this.otherCommandSection = this.sectionCount;
+
+		for(int i = 0; i < METHOD_NAMES.length; i++)
+		{
+			this.registerSection("commands/(other)." + METHOD_NAMES[i]);
+		}
+	}
+
+	/**
+	 * Hooks the profiler into the command scheduler. Call once at startup, before any
+	 * trigger is bound to the scheduler's default button loop.
+	 */
+	public void install()
+	{
+		if(this.installed)
+		{
+			return;
+		}
+
+		this.installed = true;
+
+		CommandScheduler scheduler = CommandScheduler.getInstance();
+		EventLoop defaultLoop = scheduler.getDefaultButtonLoop();
+		EventLoop profiledLoop = new EventLoop();
+
+		profiledLoop.bind(this::endSubsystems);
+		profiledLoop.bind(defaultLoop::poll);
+		profiledLoop.bind(this::endTriggers);
+		scheduler.setActiveButtonLoop(profiledLoop);
+
+		// The scheduler has no way to remove these, so they are only ever added once.
+		if(!this.hooked)
+		{
+			this.hooked = true;
+			scheduler.onCommandInitialize(command -> this.claim(command, INITIALIZE));
+			scheduler.onCommandExecute(command -> this.claim(command, EXECUTE));
+			scheduler.onCommandFinish(command -> this.claim(command, END));
+			scheduler.onCommandInterrupt(command -> this.claim(command, INTERRUPT));
+		}
+	}
+
+	/**
+	 * Unhooks the profiler from the command scheduler, e.g. between tests. The command
+	 * actions stay registered with the scheduler but record nothing until the next
+	 * {@link #install()}.
+	 */
+	public void uninstall()
+	{
+		if(!this.installed)
+		{
+			return;
+		}
+
+		this.installed = false;
+		this.running = false;
+		this.dispatching = false;
+
+		CommandScheduler scheduler = CommandScheduler.getInstance();
+		scheduler.setActiveButtonLoop(scheduler.getDefaultButtonLoop());
+	}
+
+	/**
+	 * Adds a section timed by the caller, such as a subsystem's {@code periodic()}. Call
+	 * during startup; this allocates.
+	 *
+	 * @param name - the name printed by {@link #dump()}
+	 * @return The section id to pass to {@link #record(int, long) record()}.
+	 */
+	public int registerSection(String name)
+	{
+		if(this.sectionCount == MAX_SECTIONS)
+		{
+			throw new IllegalStateException("Scheduler profiler capacity " + MAX_SECTIONS + " exceeded adding " + name);
+		}
+
+		this.names[this.sectionCount] = name;
+		return this.sectionCount++;
+	}
+
+	/**
+	 * Records a duration for a section.
+	 *
+	 * @param section - the id from {@link #registerSection(String) registerSection()}
+	 * @param nanos - the duration in nanoseconds
+	 */
+	public void record(int section, long nanos)
+	{
+		long count = this.counts[section];
+		this.samples[section * WINDOW + ((int) count & (WINDOW - 1))] = nanos;
+		this.counts[section] = count + 1L;
+
+		if(nanos > this.maxima[section])
+		{
+			this.maxima[section] = nanos;
+		}
+	}
+
+	/**
+	 * Call right before {@code CommandScheduler.getInstance().run()}.
+	 */
+	public void startRun()
+	{
+		this.runStart = System.nanoTime();
+		this.lastSplit = this.runStart;
+		this.running = true;
+	}
+
+	/**
+	 * Call right after {@code CommandScheduler.getInstance().run()}.
+	 */
+	public void endRun()
+	{
+		if(!this.running)
+		{
+			return;
+		}
+
+		long now = System.nanoTime();
+		this.record(this.overheadSection, now - this.lastSplit);
+		this.record(this.totalSection, now - this.runStart);
+		this.running = false;
+	}
+
+	/**
+	 * Call right before polling bindings outside the scheduler run, e.g.
+	 * {@code DoubleController.dispatchEvents()}.
+	 */
+	public void startDispatch()
+	{
+		this.lastSplit = System.nanoTime();
+		this.dispatching = true;
+	}
+
+	/**
+	 * Call right after polling bindings outside the scheduler run.
+	 */
+	public void endDispatch()
+	{
+		if(!this.dispatching)
+		{
+			return;
+		}
+
+		this.record(this.dispatchSection, System.nanoTime() - this.lastSplit);
+		this.dispatching = false;
+	}
+
+	private void endSubsystems()
+	{
+		this.endPhase(this.subsystemSection);
+	}
+
+	private void endTriggers()
+	{
+		this.endPhase(this.triggerSection);
+	}
+
+	private void endPhase(int section)
+	{
+		if(!this.running)
+		{
+			return;
+		}
+
+		long now = System.nanoTime();
+		this.record(section, now - this.lastSplit);
+		this.lastSplit = now;
+	}
+
+	private void claim(Command command, int method)
+	{
+		// Commands scheduled outside the scheduler run and outside a dispatch, e.g. by
+		// autonomousInit(), have nothing to split against.
+		if(!this.installed || (!this.running && !this.dispatching))
+		{
+			return;
+		}
+
+		long now = System.nanoTime();
+		this.record(this.commandSection(command) + method, now - this.lastSplit);
+		this.lastSplit = now;
+	}
+
+	private int commandSection(Command command)
+	{
+		String name = command.getName();
+		Integer section = this.commandSections.get(name);
+
+		if(section != null)
+		{
+			return section;
+		}
+
+		// Once the sections are full, new names are pooled without being remembered.
+		if(this.sectionCount + METHOD_NAMES.length > MAX_SECTIONS)
+		{
+			return this.otherCommandSection;
+		}
+
+		// Each name is only ever new once, so allocating here is a one-off.
+		int first = this.sectionCount;
+
+		for(int i = 0; i < METHOD_NAMES.length; i++)
+		{
+			this.registerSection("commands/" + name + "." + METHOD_NAMES[i]);
+		}
+
+		this.commandSections.put(name, first);
+		return first;
+	}
+
+	/**
+	 * @param section - the section id
+	 * @return The name of the section.
+	 */
+	public String getName(int section)
+	{
+		return this.names[section];
+	}
+
+	/**
+	 * @return The number of sections, including ones never recorded.
+	 */
+	public int getSectionCount()
+	{
+		return this.sectionCount;
+	}
+
+	/**
+	 * @param section - the section id
+	 * @return The number of durations recorded for the section.
+	 */
+	public long getCount(int section)
+	{
+		return this.counts[section];
+	}
+
+	/**
+	 * @param section - the section id
+	 * @return The shortest recent duration in nanoseconds, or 0 if none were recorded.
+	 */
+	public long getMinNanos(int section)
+	{
+		int size = this.windowSize(section);
+
+		if(size == 0)
+		{
+			return 0L;
+		}
+
+		long min = Long.MAX_VALUE;
+
+		for(int i = 0; i < size; i++)
+		{
+			min = Math.min(min, this.samples[section * WINDOW + i]);
+		}
+
+		return min;
+	}
+
+	/**
+	 * @param section - the section id
+	 * @return The mean of the recent durations in nanoseconds, or 0 if none were recorded.
+	 */
+	public double getMeanNanos(int section)
+	{
+		int size = this.windowSize(section);
+
+		if(size == 0)
+		{
+			return 0d;
+		}
+
+		long total = 0L;
+
+		for(int i = 0; i < size; i++)
+		{
+			total += this.samples[section * WINDOW + i];
+		}
+
+		return (double) total / size;
+	}
+
+	/**
+	 * Finds the 99th percentile of the recent durations. This sorts a copy of the window,
+	 * so it allocates.
+	 *
+	 * @param section - the section id
+	 * @return The 99th percentile in nanoseconds, or 0 if none were recorded.
+	 */
+	public long getP99Nanos(int section)
+	{
+		int size = this.windowSize(section);
+
+		if(size == 0)
+		{
+			return 0L;
+		}
+
+		long[] sorted = new long[size];
+		System.arraycopy(this.samples, section * WINDOW, sorted, 0, size);
+		Arrays.sort(sorted);
+		return sorted[Math.min(size - 1, (int) Math.ceil(PERCENTILE * size) - 1)];
+	}
+
+	/**
+	 * @param section - the section id
+	 * @return The longest duration ever recorded in nanoseconds.
+	 */
+	public long getMaxNanos(int section)
+	{
+		return this.maxima[section];
+	}
+
+	private int windowSize(int section)
+	{
+		return (int) Math.min(this.counts[section], WINDOW);
+	}
+
+	/**
+	 * Prints every recorded section to the console, slowest mean first. This allocates, so
+	 * only call it while disabled or on demand.
+	 */
+	public void dump()
+	{
+		List<Integer> sections = new ArrayList<>();
+
+		for(int i = 0; i < this.sectionCount; i++)
+		{
+			if(this.counts[i] > 0L)
+			{
+				sections.add(i);
+			}
+		}
+
+		if(sections.isEmpty())
+		{
+			return;
+		}
+
+		sections.sort((a, b) -> Double.compare(this.getMeanNanos(b), this.getMeanNanos(a)));
+
+		StringBuilder builder = new StringBuilder("Scheduler profile (last ")
+			.append(WINDOW).append(" runs, times in us):\n");
+		builder.append(String.format("  %-48s %10s %8s %8s %8s %8s%n", "section", "count", "min", "mean", "p99", "max"));
+
+		for(int section : sections)
+		{
+			builder.append(String.format("  %-48s %10d %8.1f %8.1f %8.1f %8.1f%n",
+				this.names[section],
+				this.counts[section],
+				this.getMinNanos(section) / 1e3d,
+				this.getMeanNanos(section) / 1e3d,
+				this.getP99Nanos(section) / 1e3d,
+				this.maxima[section] / 1e3d));
+		}
+
+		System.out.print(builder);
+	}
+
+	/**
+	 * Clears every section's durations. Sections stay registered.
+	 */
+	public void reset()
+	{
+		Arrays.fill(this.counts, 0L);
+		Arrays.fill(this.maxima, 0L);
+	}
+}
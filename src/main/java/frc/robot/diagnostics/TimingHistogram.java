@@ -0,0 +1,144 @@
+package frc.robot.diagnostics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * A fixed-size histogram of durations. Recording is lock-free and never allocates, so it is
+ * safe to call from the robot loop while another thread reads the results.
+ * <p>
+ * Durations are counted in buckets of {@link #BUCKET_WIDTH_NANOS}; anything longer than the
+ * last bucket is counted in an overflow bucket.
+ */
+public class TimingHistogram
+{
+	/** Width of each bucket: 100µs. */
+	public static final long BUCKET_WIDTH_NANOS = 100_000L;
+
+	/** Number of regular buckets, covering 0 to 51.2ms. */
+	public static final int BUCKET_COUNT = 512;
+
+	private final String name;
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT + 1);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong totalNanos = new AtomicLong();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	/**
+	 * @param name - the name used when printing the histogram
+	 */
+	public TimingHistogram(String name)
+	{
+		this.name = name;
+	}
+
+	/**
+	 * Records a duration.
+	 *
+	 * @param nanos - the duration in nanoseconds
+	 */
+	public void record(long nanos)
+	{
+		if(nanos < 0L)
+		{
+			nanos = 0L;
+		}
+
+		long bucket = nanos / BUCKET_WIDTH_NANOS;
+		this.buckets.incrementAndGet(bucket < BUCKET_COUNT ? (int) bucket : BUCKET_COUNT);
+		this.count.incrementAndGet();
+		this.totalNanos.addAndGet(nanos);
+
+		long max = this.maxNanos.get();
+
+		while(nanos > max && !this.maxNanos.compareAndSet(max, nanos))
+		{
+			max = this.maxNanos.get();
+		}
+	}
+
+	/**
+	 * Estimates a percentile of the recorded durations.
+	 *
+	 * @param percentile - the percentile, from 0 to 1
+	 * @return The upper edge of the bucket holding the percentile in nanoseconds, or the
+	 * longest recorded duration if the percentile falls in the overflow bucket.
+	 */
+	public long getPercentileNanos(double percentile)
+	{
+		long total = this.count.get();
+
+		if(total == 0L)
+		{
+			return 0L;
+		}
+
+		long target = (long) Math.ceil(percentile * total);
+		long seen = 0L;
+
+		for(int i = 0; i < BUCKET_COUNT; i++)
+		{
+			seen += this.buckets.get(i);
+
+			if(seen >= target)
+			{
+				return (i + 1) * BUCKET_WIDTH_NANOS;
+			}
+		}
+
+		return this.maxNanos.get();
+	}
+
+	/**
+	 * @return The number of recorded durations.
+	 */
+	public long getCount()
+	{
+		return this.count.get();
+	}
+
+	/**
+	 * @return The mean recorded duration in nanoseconds.
+	 */
+	public long getMeanNanos()
+	{
+		long total = this.count.get();
+		return total == 0L ? 0L : this.totalNanos.get() / total;
+	}
+
+	/**
+	 * @return The longest recorded duration in nanoseconds.
+	 */
+	public long getMaxNanos()
+	{
+		return this.maxNanos.get();
+	}
+
+	/**
+	 * Clears the histogram. Durations recorded while clearing may be partially lost.
+	 */
+	public void reset()
+	{
+		for(int i = 0; i <= BUCKET_COUNT; i++)
+		{
+			this.buckets.set(i, 0L);
+		}
+
+		this.count.set(0L);
+		this.totalNanos.set(0L);
+		this.maxNanos.set(0L);
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%-20s n=%-8d mean=%6.2fms p50=%6.2fms p99=%6.2fms max=%6.2fms",
+			this.name,
+			this.getCount(),
+			this.getMeanNanos() / 1e6d,
+			this.getPercentileNanos(0.5d) / 1e6d,
+			this.getPercentileNanos(0.99d) / 1e6d,
+			this.getMaxNanos() / 1e6d);
+	}
+}
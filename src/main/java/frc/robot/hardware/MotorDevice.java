@@ -0,0 +1,33 @@
+package frc.robot.hardware;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+
+
+/**
+ * A motor controller that {@link MotorOutputs} can command. Implemented by
+ * {@link PhoenixMotor} on the robot, and by test doubles off it.
+ */
+public interface MotorDevice
+{
+	/**
+	 * @return A name for the device, used in error messages.
+	 */
+	String getName();
+
+	/**
+	 * Sends a command to the device. Called by {@link MotorOutputs#flush()} only when the
+	 * command changed.
+	 *
+	 * @param mode - the control mode
+	 * @param value - the output in the units of the control mode
+	 */
+	void set(ControlMode mode, double value);
+
+	/**
+	 * Sets how often the device reports its status. Called once when the device is added to
+	 * {@link MotorOutputs}, so it may block on the CAN bus.
+	 *
+	 * @param role - what the device is used for
+	 */
+	void configureStatusFrames(MotorRole role);
+}
@@ -0,0 +1,192 @@
+package frc.robot.hardware;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+
+
+/**
+ * Collects motor commands during the loop and sends them all at once at the end.
+ * <p>
+ * Commands and subsystems call {@link #set(int, ControlMode, double) set()} as often as they
+ * like; it only stores the request. {@link #flush()}, called once at the end of
+ * {@code robotPeriodic()}, sends each motor's latest request, but only if the mode changed
+ * or the value moved more than the mode's epsilon from what was last sent. The controllers
+ * keep repeating their last command on the bus on their own, so a skipped write changes
+ * nothing except saving a JNI call and a CAN frame.
+ * <p>
+ * Only the robot loop thread may use this.
+ */
+public class MotorOutputs
+{
+	/** Smallest percent output change worth sending; the controllers only resolve 1/1023. */
+	public static final double PERCENT_EPSILON = 1e-3;
+
+	/** Smallest velocity change worth sending, in ticks per 100ms. */
+	public static final double VELOCITY_EPSILON = 0.5;
+
+	/** Smallest position change worth sending, in ticks. */
+	public static final double POSITION_EPSILON = 0.5;
+
+	private final MotorDevice[] devices;
+	private final ControlMode[] requestedModes;
+	private final double[] requestedValues;
+	private final ControlMode[] sentModes;
+	private final double[] sentValues;
+
+	private int count;
+	private long writes;
+	private long skips;
+
+	/**
+	 * @param capacity - the most motors that will be added
+	 */
+	public MotorOutputs(int capacity)
+	{
+		this.devices = new MotorDevice[capacity];
+		this.requestedModes = new ControlMode[capacity];
+		this.requestedValues = new double[capacity];
+		this.sentModes = new ControlMode[capacity];
+		this.sentValues = new double[capacity];
+	}
+
+	/**
+	 * Adds a motor and sets its status frame periods for its role. Call during startup; this
+	 * blocks on the CAN bus. The motor starts out commanded to neutral.
+	 *
+	 * @param device - the motor
+	 * @param role - what the motor is used for
+	 * @return The id to command the motor with.
+	 */
+	public int add(MotorDevice device, MotorRole role)
+	{
+		if(this.count == this.devices.length)
+		{
+			throw new IllegalStateException("Motor output capacity " + this.devices.length + " exceeded adding " + device.getName());
+		}
+
+		device.configureStatusFrames(role);
+
+		int id = this.count++;
+		this.devices[id] = device;
+		this.requestedModes[id] = ControlMode.PercentOutput;
+		this.requestedValues[id] = 0d;
+		return id;
+	}
+
+	/**
+	 * Requests a command for a motor. Nothing is sent until {@link #flush()}, and a later
+	 * request in the same loop replaces this one.
+	 *
+	 * @param motor - the id from {@link #add(MotorDevice, MotorRole) add()}
+	 * @param mode - the control mode
+	 * @param value - the output in the units of the control mode
+	 */
+	public void set(int motor, ControlMode mode, double value)
+	{
+		this.requestedModes[motor] = mode;
+		this.requestedValues[motor] = value;
+	}
+
+	/**
+	 * Requests a percent output for a motor.
+	 *
+	 * @param motor - the id from {@link #add(MotorDevice, MotorRole) add()}
+	 * @param percent - the output, from -1 to 1
+	 */
+	public void set(int motor, double percent)
+	{
+		this.set(motor, ControlMode.PercentOutput, percent);
+	}
+
+	/**
+	 * @param motor - the motor id
+	 * @return The value most recently requested for the motor.
+	 */
+	public double getRequested(int motor)
+	{
+		return this.requestedValues[motor];
+	}
+
+	/**
+	 * Sends every request that differs from what its motor was last sent. Call once at the
+	 * end of the loop.
+	 *
+	 * @return The number of motors written.
+	 */
+	public int flush()
+	{
+		int written = 0;
+
+		for(int i = 0; i < this.count; i++)
+		{
+			ControlMode mode = this.requestedModes[i];
+			double value = this.requestedValues[i];
+
+			if(mode == this.sentModes[i] && Math.abs(value - this.sentValues[i]) <= epsilon(mode))
+			{
+				continue;
+			}
+
+			this.devices[i].set(mode, value);
+			this.sentModes[i] = mode;
+			this.sentValues[i] = value;
+			written++;
+		}
+
+		this.writes += written;
+		this.skips += this.count - written;
+		return written;
+	}
+
+	/**
+	 * Forgets what was last sent, so the next {@link #flush()} writes every motor. Use after
+	 * anything that may have reset the controllers, such as a brownout.
+	 */
+	public void invalidate()
+	{
+		for(int i = 0; i < this.count; i++)
+		{
+			this.sentModes[i] = null;
+		}
+	}
+
+	/**
+	 * @return The number of motors added.
+	 */
+	public int getCount()
+	{
+		return this.count;
+	}
+
+	/**
+	 * @return The total number of writes sent.
+	 */
+	public long getWriteCount()
+	{
+		return this.writes;
+	}
+
+	/**
+	 * @return The total number of writes skipped because nothing changed.
+	 */
+	public long getSkipCount()
+	{
+		return this.skips;
+	}
+
+	private static double epsilon(ControlMode mode)
+	{
+		switch(mode)
+		{
+			case PercentOutput:
+				return PERCENT_EPSILON;
+			case Velocity:
+				return VELOCITY_EPSILON;
+			case Position:
+			case MotionMagic:
+				return POSITION_EPSILON;
+			default:
+				// Follower ids, currents and the rest are sent on any change.
+				return 0d;
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package frc.robot.hardware;
+
+
+/**
+ * What a motor controller is used for, which decides how often it reports its status on
+ * the CAN bus. Every status frame a controller sends costs bus time whether or not anything
+ * reads it, so each role only gets the frames it needs at the rate it needs them.
+ */
+public enum MotorRole
+{
+	/**
+	 * Swerve drive motor: position and velocity feed odometry once per robot loop, from a
+	 * frame at most half a loop old.
+	 */
+	DRIVE(10, 10),
+	/** Swerve steering motor: position is read once per robot loop. */
+	STEER(10, 20),
+	/** Arm, elevator, intake and similar: read once per robot loop. */
+	MECHANISM(20, 20),
+	/** Follows another controller and is never read. */
+	FOLLOWER(255, 255);
+
+	/** Period of the frames nobody reads, in ms. 255 is the slowest the controllers allow. */
+	public static final int SLOW_PERIOD_MS = 255;
+
+	/** Period of the general status frame (applied output, faults), in ms. */
+	public final int generalPeriodMs;
+
+	/** Period of the primary feedback frame (selected sensor position and velocity), in ms. */
+	public final int feedbackPeriodMs;
+
+	private MotorRole(int generalPeriodMs, int feedbackPeriodMs)
+	{
+		this.generalPeriodMs = generalPeriodMs;
+		this.feedbackPeriodMs = feedbackPeriodMs;
+	}
+}
@@ -0,0 +1,72 @@
+package frc.robot.hardware;
+
+import com.ctre.phoenix.motorcontrol.can.BaseTalon;
+import com.kauailabs.navx.frc.AHRS;
+
+import frc.robot.Constants;
+
+
+/**
+ * The robot's real sensors: a NavX gyro and the integrated encoders of the swerve drive and
+ * steering Talons.
+ */
+public class NavXPhoenixSensors implements SensorBackend
+{
+	private final AHRS gyro;
+	private final BaseTalon[] driveMotors;
+	private final BaseTalon[] steerMotors;
+
+	/**
+	 * @param gyro - the NavX
+	 * @param driveMotors - the drive motor of each module
+	 * @param steerMotors - the steering motor of each module, in the same order
+	 */
+	public NavXPhoenixSensors(AHRS gyro, BaseTalon[] driveMotors, BaseTalon[] steerMotors)
+	{
+		if(driveMotors.length != steerMotors.length)
+		{
+			throw new IllegalArgumentException("Every module needs one drive and one steering motor");
+		}
+
+		this.gyro = gyro;
+		this.driveMotors = driveMotors;
+		this.steerMotors = steerMotors;
+	}
+
+	@Override
+	public int getModuleCount()
+	{
+		return this.driveMotors.length;
+	}
+
+	@Override
+	public double readYaw()
+	{
+		// The NavX angle is in degrees, clockwise positive.
+		return -this.gyro.getAngle() * Constants.DEG_TO_RAD;
+	}
+
+	@Override
+	public double readYawRate()
+	{
+		return -this.gyro.getRate() * Constants.DEG_TO_RAD;
+	}
+
+	@Override
+	public double readDrivePosition(int module)
+	{
+		return this.driveMotors[module].getSelectedSensorPosition();
+	}
+
+	@Override
+	public double readDriveVelocity(int module)
+	{
+		return this.driveMotors[module].getSelectedSensorVelocity();
+	}
+
+	@Override
+	public double readSteerPosition(int module)
+	{
+		return this.steerMotors[module].getSelectedSensorPosition();
+	}
+}
@@ -0,0 +1,82 @@
+package frc.robot.hardware;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.can.BaseTalon;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.Constants;
+
+
+/**
+ * A {@link MotorDevice} backed by a Phoenix Talon FX or Talon SRX.
+ */
+public class PhoenixMotor implements MotorDevice
+{
+	// Frames that only matter for features we don't use (motion magic, auxiliary PID,
+	// analog input, pulse width, secondary feedback) or that nothing reads.
+	private static final StatusFrameEnhanced[] SLOW_FRAMES = {
+		StatusFrameEnhanced.Status_4_AinTempVbat,
+		StatusFrameEnhanced.Status_8_PulseWidth,
+		StatusFrameEnhanced.Status_10_Targets,
+		StatusFrameEnhanced.Status_12_Feedback1,
+		StatusFrameEnhanced.Status_13_Base_PIDF0,
+		StatusFrameEnhanced.Status_14_Turn_PIDF1,
+	};
+
+	private final String name;
+	private final BaseTalon talon;
+
+	/**
+	 * @param name - a name for the motor, used in error messages
+	 * @param talon - the motor controller
+	 */
+	public PhoenixMotor(String name, BaseTalon talon)
+	{
+		this.name = name;
+		this.talon = talon;
+	}
+
+	/**
+	 * @return The motor controller, for configuration and sensor reads.
+	 */
+	public BaseTalon getTalon()
+	{
+		return this.talon;
+	}
+
+	@Override
+	public String getName()
+	{
+		return this.name;
+	}
+
+	@Override
+	public void set(ControlMode mode, double value)
+	{
+		this.talon.set(mode, value);
+	}
+
+	@Override
+	public void configureStatusFrames(MotorRole role)
+	{
+		this.setPeriod(StatusFrameEnhanced.Status_1_General, role.generalPeriodMs);
+		this.setPeriod(StatusFrameEnhanced.Status_2_Feedback0, role.feedbackPeriodMs);
+
+		for(StatusFrameEnhanced frame : SLOW_FRAMES)
+		{
+			this.setPeriod(frame, MotorRole.SLOW_PERIOD_MS);
+		}
+	}
+
+	private void setPeriod(StatusFrameEnhanced frame, int periodMs)
+	{
+		ErrorCode error = this.talon.setStatusFramePeriod(frame, periodMs, Constants.MS_DELAY);
+
+		if(error != ErrorCode.OK)
+		{
+			DriverStation.reportWarning("Unable to set " + frame + " on " + this.name + ": " + error, false);
+		}
+	}
+}
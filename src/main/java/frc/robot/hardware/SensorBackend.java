@@ -0,0 +1,42 @@
+package frc.robot.hardware;
+
+
+/**
+ * Where {@link SensorCache} gets its readings from. Each method does a real read, so it is
+ * only called once per refresh.
+ */
+public interface SensorBackend
+{
+	/**
+	 * @return The number of swerve modules with encoders.
+	 */
+	int getModuleCount();
+
+	/**
+	 * @return The gyro yaw in radians, counterclockwise positive and continuous past 2π.
+	 */
+	double readYaw();
+
+	/**
+	 * @return The gyro yaw rate in radians per second, counterclockwise positive.
+	 */
+	double readYawRate();
+
+	/**
+	 * @param module - the module index
+	 * @return The drive encoder position in ticks.
+	 */
+	double readDrivePosition(int module);
+
+	/**
+	 * @param module - the module index
+	 * @return The drive encoder velocity in ticks per 100ms.
+	 */
+	double readDriveVelocity(int module);
+
+	/**
+	 * @param module - the module index
+	 * @return The steering encoder position in steering motor ticks.
+	 */
+	double readSteerPosition(int module);
+}
@@ -0,0 +1,260 @@
+package frc.robot.hardware;
+
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.control.SingleWriterDoubleBuffer;
+import frc.robot.math.SwerveKinematics;
+import frc.robot.replay.CycleRecorder;
+
+
+/**
+ * Reads every sensor once per loop and serves the readings to everything that asks.
+ * <p>
+ * {@link #refresh()} reads the gyro and every module's encoders from the
+ * {@link SensorBackend}, stamps them with the FPGA time, hands them to the
+ * {@link CycleRecorder} and publishes them for other threads. The getters then return the
+ * cached values, so every subsystem and command sees the same readings within a loop and
+ * no sensor is read twice.
+ * <p>
+ * Only one thread may refresh, normally the robot loop thread, and only that thread may use
+ * the getters. A {@link frc.robot.scheduling.ParallelPeriodicRunner} task may refresh instead,
+ * since the runner hands the readings to the robot loop thread and to any task depending on
+ * the refresh. Other threads, such as the control thread, read a consistent copy with
+ * {@link #readShared(double[]) readShared()}, laid out as {@link #TIMESTAMP},
+ * {@link #YAW}, {@link #YAW_RATE}, then the {@link #drivePositionIndex(int) drive position},
+ * {@link #driveVelocityIndex(int) drive velocity} and
+ * {@link #steerPositionIndex(int) steering position} of each module.
+ */
+public class SensorCache
+{
+	/** Index of the FPGA timestamp of the readings, in seconds. */
+	public static final int TIMESTAMP = 0;
+
+	/** Index of the gyro yaw, in radians counterclockwise. */
+	public static final int YAW = 1;
+
+	/** Index of the gyro yaw rate, in radians per second. */
+	public static final int YAW_RATE = 2;
+
+	private static final int MODULE_START = 3;
+	private static final int VALUES_PER_MODULE = 3;
+	private static final String[] MODULE_VALUE_NAMES = {"drivePosition", "driveVelocity", "steerPosition"};
+
+	private final SensorBackend backend;
+	private final int moduleCount;
+	private final SingleWriterDoubleBuffer shared;
+	private final CycleRecorder recorder = CycleRecorder.getInstance();
+	private final int[] recorderIds;
+
+	private final double[] values;
+	private final double[] drivePositions;
+	private final double[] moduleAngles;
+
+	/**
+	 * @param backend - where to read the sensors from
+	 */
+	public SensorCache(SensorBackend backend)
+	{
+		this.backend = backend;
+		this.moduleCount = backend.getModuleCount();
+
+		int size = MODULE_START + this.moduleCount * VALUES_PER_MODULE;
+		this.values = new double[size];
+		this.shared = new SingleWriterDoubleBuffer(size);
+		this.drivePositions = new double[this.moduleCount];
+		this.moduleAngles = new double[this.moduleCount];
+
+		// Everything but the timestamp is recorded; replays get their time from the log.
+		this.recorderIds = new int[size];
+
+		for(int i = YAW; i < size; i++)
+		{
+			this.recorderIds[i] = this.recorder.registerSensor(getName(i));
+		}
+	}
+
+	/**
+	 * @param index - an index into the readings
+	 * @return The name the reading is recorded under, e.g. "sensors/module2/steerPosition".
+	 */
+	public static String getName(int index)
+	{
+		switch(index)
+		{
+			case TIMESTAMP:
+				return "sensors/timestamp";
+			case YAW:
+				return "sensors/yaw";
+			case YAW_RATE:
+				return "sensors/yawRate";
+			default:
+				int module = (index - MODULE_START) / VALUES_PER_MODULE;
+				return "sensors/module" + module + "/" + MODULE_VALUE_NAMES[(index - MODULE_START) % VALUES_PER_MODULE];
+		}
+	}
+
+	/**
+	 * @param module - the module index
+	 * @return The index of the module's drive position, in ticks.
+	 */
+	public static int drivePositionIndex(int module)
+	{
+		return MODULE_START + module * VALUES_PER_MODULE;
+	}
+
+	/**
+	 * @param module - the module index
+	 * @return The index of the module's drive velocity, in ticks per 100ms.
+	 */
+	public static int driveVelocityIndex(int module)
+	{
+		return MODULE_START + module * VALUES_PER_MODULE + 1;
+	}
+
+	/**
+	 * @param module - the module index
+	 * @return The index of the module's steering position, in steering motor ticks.
+	 */
+	public static int steerPositionIndex(int module)
+	{
+		return MODULE_START + module * VALUES_PER_MODULE + 2;
+	}
+
+	/**
+	 * Reads every sensor. Call once per loop, before anything uses the readings.
+	 */
+	public void refresh()
+	{
+		double[] v = this.values;
+		v[TIMESTAMP] = Timer.getFPGATimestamp();
+		v[YAW] = this.backend.readYaw();
+		v[YAW_RATE] = this.backend.readYawRate();
+
+		for(int i = 0; i < this.moduleCount; i++)
+		{
+			v[drivePositionIndex(i)] = this.backend.readDrivePosition(i);
+			v[driveVelocityIndex(i)] = this.backend.readDriveVelocity(i);
+			v[steerPositionIndex(i)] = this.backend.readSteerPosition(i);
+
+			this.drivePositions[i] = v[drivePositionIndex(i)];
+			this.moduleAngles[i] = v[steerPositionIndex(i)] * SwerveKinematics.STEER_TICK_TO_RAD;
+		}
+
+		for(int i = YAW; i < v.length; i++)
+		{
+			this.recorder.setSensor(this.recorderIds[i], v[i]);
+		}
+
+		this.shared.write(v);
+	}
+
+	/**
+	 * Copies the latest readings for use on another thread.
+	 *
+	 * @param destination - an array at least {@link #size()} long
+	 * @return The number of refreshes so far.
+	 */
+	public int readShared(double[] destination)
+	{
+		return this.shared.read(destination);
+	}
+
+	/**
+	 * @return The number of readings, for sizing {@link #readShared(double[]) readShared()} arrays.
+	 */
+	public int size()
+	{
+		return this.values.length;
+	}
+
+	/**
+	 * @return The number of swerve modules.
+	 */
+	public int getModuleCount()
+	{
+		return this.moduleCount;
+	}
+
+	/**
+	 * @return The FPGA time the sensors were read at, in seconds.
+	 */
+	public double getTimestamp()
+	{
+		return this.values[TIMESTAMP];
+	}
+
+	/**
+	 * @return The gyro yaw in radians, counterclockwise positive.
+	 */
+	public double getYaw()
+	{
+		return this.values[YAW];
+	}
+
+	/**
+	 * @return The gyro yaw rate in radians per second, counterclockwise positive.
+	 */
+	public double getYawRate()
+	{
+		return this.values[YAW_RATE];
+	}
+
+	/**
+	 * @param module - the module index
+	 * @return The drive encoder position in ticks.
+	 */
+	public double getDrivePosition(int module)
+	{
+		return this.drivePositions[module];
+	}
+
+	/**
+	 * @param module - the module index
+	 * @return The drive encoder velocity in ticks per 100ms.
+	 */
+	public double getDriveVelocity(int module)
+	{
+		return this.values[driveVelocityIndex(module)];
+	}
+
+	/**
+	 * @param module - the module index
+	 * @return The steering encoder position in steering motor ticks.
+	 */
+	public double getSteerPosition(int module)
+	{
+		return this.values[steerPositionIndex(module)];
+	}
+
+	/**
+	 * @param module - the module index
+	 * @return The module angle in radians.
+	 */
+	public double getModuleAngle(int module)
+	{
+		return this.moduleAngles[module];
+	}
+
+	/**
+	 * The drive positions of every module as one array, for
+	 * {@link frc.robot.odometry.PoseEstimator PoseEstimator}. Read only, and overwritten by
+	 * the next {@link #refresh()}.
+	 *
+	 * @return The drive encoder positions in ticks, indexed by module.
+	 */
+	public double[] getDrivePositions()
+	{
+		return this.drivePositions;
+	}
+
+	/**
+	 * The angles of every module as one array, for
+	 * {@link frc.robot.odometry.PoseEstimator PoseEstimator}. Read only, and overwritten by
+	 * the next {@link #refresh()}.
+	 *
+	 * @return The module angles in radians, indexed by module.
+	 */
+	public double[] getModuleAngles()
+	{
+		return this.moduleAngles;
+	}
+}
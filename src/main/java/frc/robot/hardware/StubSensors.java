@@ -0,0 +1,85 @@
+package frc.robot.hardware;
+
+
+/**
+ * A {@link SensorBackend} whose readings are set by hand, for simulation and for running
+ * the robot code off the robot.
+ */
+public class StubSensors implements SensorBackend
+{
+	private final double[] drivePositions;
+	private final double[] driveVelocities;
+	private final double[] steerPositions;
+
+	private double yaw;
+	private double yawRate;
+
+	/**
+	 * @param moduleCount - the number of swerve modules
+	 */
+	public StubSensors(int moduleCount)
+	{
+		this.drivePositions = new double[moduleCount];
+		this.driveVelocities = new double[moduleCount];
+		this.steerPositions = new double[moduleCount];
+	}
+
+	/**
+	 * @param yawIn - the yaw in radians, counterclockwise positive
+	 * @param yawRateIn - the yaw rate in radians per second
+	 */
+	public void setGyro(double yawIn, double yawRateIn)
+	{
+		this.yaw = yawIn;
+		this.yawRate = yawRateIn;
+	}
+
+	/**
+	 * @param module - the module index
+	 * @param drivePosition - the drive encoder position in ticks
+	 * @param driveVelocity - the drive encoder velocity in ticks per 100ms
+	 * @param steerPosition - the steering encoder position in steering motor ticks
+	 */
+	public void setModule(int module, double drivePosition, double driveVelocity, double steerPosition)
+	{
+		this.drivePositions[module] = drivePosition;
+		this.driveVelocities[module] = driveVelocity;
+		this.steerPositions[module] = steerPosition;
+	}
+
+	@Override
+	public int getModuleCount()
+	{
+		return this.drivePositions.length;
+	}
+
+	@Override
+	public double readYaw()
+	{
+		return this.yaw;
+	}
+
+	@Override
+	public double readYawRate()
+	{
+		return this.yawRate;
+	}
+
+	@Override
+	public double readDrivePosition(int module)
+	{
+		return this.drivePositions[module];
+	}
+
+	@Override
+	public double readDriveVelocity(int module)
+	{
+		return this.driveVelocities[module];
+	}
+
+	@Override
+	public double readSteerPosition(int module)
+	{
+		return this.steerPositions[module];
+	}
+}
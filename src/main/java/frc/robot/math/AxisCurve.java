@@ -0,0 +1,109 @@
+package frc.robot.math;
+
+
+/**
+ * A response curve for a joystick or trigger axis: a deadband, then a blend of a straight
+ * line and a cubic, so small deflections give fine control and full deflection still gives
+ * full output. The curve is odd, so negative deflections mirror positive ones.
+ * <p>
+ * Past the deadband, the deflection is rescaled to t in [0, 1] and shaped to
+ * {@code (1 - expo) * t + expo * t³}. The shape of t is baked into a {@value #TABLE_SIZE}
+ * step table when the curve is made, so {@link #apply(double) apply()} costs one
+ * comparison, one lookup and one linear interpolation. The interpolation error is at most
+ * h²/8 times the largest second derivative of the shape, 6, for a table step of h, which
+ * is under {@link #MAX_ERROR}.
+ */
+public final class AxisCurve
+{
+	/** Number of table steps between no deflection and full deflection. */
+	public static final int TABLE_SIZE = 256;
+
+	/** Largest absolute error of {@link #apply(double)}. */
+	public static final double MAX_ERROR = 1.2e-5;
+
+	/** Passes deflections through unchanged. */
+	public static final AxisCurve LINEAR = new AxisCurve(0d, 0d);
+
+	private final double deadband;
+	private final double expo;
+	private final double inverseRange;
+
+	// One extra entry so interpolating the last step doesn't need a check.
+	private final double[] table = new double[TABLE_SIZE + 1];
+
+	/**
+	 * @param deadband - deflections up to this size give no output, in [0, 1)
+	 * @param expo - how cubic the curve is past the deadband, from 0 for a straight line to
+	 *            1 for a pure cubic
+	 */
+	public AxisCurve(double deadband, double expo)
+	{
+		if(!(deadband >= 0d && deadband < 1d))
+		{
+			throw new IllegalArgumentException("Deadband must be in [0, 1), got " + deadband);
+		}
+
+		if(!(expo >= 0d && expo <= 1d))
+		{
+			throw new IllegalArgumentException("Expo must be in [0, 1], got " + expo);
+		}
+
+		this.deadband = deadband;
+		this.expo = expo;
+		this.inverseRange = 1d / (1d - deadband);
+
+		for(int i = 0; i <= TABLE_SIZE; i++)
+		{
+			this.table[i] = this.shape((double) i / TABLE_SIZE);
+		}
+	}
+
+	/**
+	 * Shapes a deflection.
+	 *
+	 * @param value - the raw deflection, in [-1, 1]; larger deflections count as full
+	 * @return The shaped deflection, in [-1, 1].
+	 */
+	public double apply(double value)
+	{
+		double magnitude = Math.abs(value);
+
+		if(magnitude <= this.deadband)
+		{
+			return 0d;
+		}
+
+		if(magnitude >= 1d)
+		{
+			return value > 0d ? 1d : -1d;
+		}
+
+		double position = (magnitude - this.deadband) * this.inverseRange * TABLE_SIZE;
+		// Rounding can land a deflection just under full on the last entry.
+		int index = Math.min((int) position, TABLE_SIZE - 1);
+		double low = this.table[index];
+		double shaped = low + (this.table[index + 1] - low) * (position - index);
+		return value > 0d ? shaped : -shaped;
+	}
+
+	/**
+	 * @return The size of the deadband.
+	 */
+	public double getDeadband()
+	{
+		return this.deadband;
+	}
+
+	/**
+	 * @return How cubic the curve is, from 0 for a straight line to 1 for a pure cubic.
+	 */
+	public double getExpo()
+	{
+		return this.expo;
+	}
+
+	private double shape(double t)
+	{
+		return (1d - this.expo) * t + this.expo * t * t * t;
+	}
+}
@@ -0,0 +1,114 @@
+package frc.robot.math;
+
+import frc.robot.Constants;
+
+
+/**
+ * Fast approximations of the trig functions used by the drive math, for code that runs
+ * every loop. {@link Math}'s versions are exact but slow on the roboRIO's FPU.
+ * <p>
+ * {@link #sin(double) sin()} and {@link #cos(double) cos()} linearly interpolate a
+ * {@value #TABLE_SIZE} entry table over one turn. The error of linear interpolation is at
+ * most h²/8 for a table step of h, which is under {@link #MAX_SIN_COS_ERROR}.
+ * {@link #atan2(double, double) atan2()} reduces the angle to the first octant and uses a
+ * polynomial fit of atan, accurate to {@link #MAX_ATAN2_ERROR} radians.
+ * <p>
+ * Both bounds are more than 40000 times smaller than {@link Constants#ANGLE_PRECISION}, so
+ * they never change whether a rotation is considered done.
+ */
+public final class FastTrig
+{
+	/** Number of table steps in one turn; a power of two. */
+	public static final int TABLE_SIZE = 4096;
+
+	/** Largest absolute error of {@link #sin(double)} and {@link #cos(double)}. */
+	public static final double MAX_SIN_COS_ERROR = 3e-7;
+
+	/** Largest error of {@link #atan2(double, double)}, in radians. */
+	public static final double MAX_ATAN2_ERROR = 2e-6;
+
+	private static final int MASK = TABLE_SIZE - 1;
+	private static final double RAD_TO_INDEX = TABLE_SIZE / Constants.TWO_PI;
+
+	// One extra entry so interpolation at the last step doesn't need to wrap.
+	private static final double[] SIN = new double[TABLE_SIZE + 1];
+
+	static
+	{
+		for(int i = 0; i <= TABLE_SIZE; i++)
+		{
+			SIN[i] = Math.sin(i / RAD_TO_INDEX);
+		}
+	}
+
+	private FastTrig()
+	{
+	}
+
+	/**
+	 * Approximates the sine of an angle to within {@link #MAX_SIN_COS_ERROR}.
+	 *
+	 * @param radians - the angle, with a magnitude under a million radians
+	 * @return The sine of the angle.
+	 */
+	public static double sin(double radians)
+	{
+		double position = radians * RAD_TO_INDEX;
+		double floor = Math.floor(position);
+		int index = (int) floor & MASK;
+		double fraction = position - floor;
+		return SIN[index] + (SIN[index + 1] - SIN[index]) * fraction;
+	}
+
+	/**
+	 * Approximates the cosine of an angle to within {@link #MAX_SIN_COS_ERROR}.
+	 *
+	 * @param radians - the angle, with a magnitude under a million radians
+	 * @return The cosine of the angle.
+	 */
+	public static double cos(double radians)
+	{
+		return sin(radians + Constants.PI_OVER_TWO);
+	}
+
+	/**
+	 * Approximates the angle of the vector (x, y) to within {@link #MAX_ATAN2_ERROR}.
+	 *
+	 * @param y - the y coordinate
+	 * @param x - the x coordinate
+	 * @return The angle in radians, from -π to π. 0 for the zero vector.
+	 */
+	public static double atan2(double y, double x)
+	{
+		double absX = Math.abs(x);
+		double absY = Math.abs(y);
+
+		if(absX == 0d && absY == 0d)
+		{
+			return 0d;
+		}
+
+		// atan of the smaller over the larger coordinate, which is within [0, π/4].
+		boolean steep = absY > absX;
+		double z = steep ? absX / absY : absY / absX;
+		double z2 = z * z;
+		double angle = z * (0.99997726d
+			+ z2 * (-0.33262347d
+			+ z2 * (0.19354346d
+			+ z2 * (-0.11643287d
+			+ z2 * (0.05265332d
+			+ z2 * -0.01172120d)))));
+
+		if(steep)
+		{
+			angle = Constants.PI_OVER_TWO - angle;
+		}
+
+		if(x < 0d)
+		{
+			angle = Math.PI - angle;
+		}
+
+		return y < 0d ? -angle : angle;
+	}
+}
@@ -0,0 +1,327 @@
+package frc.robot.math;
+
+
+/**
+ * A reusable two-dimensional vector. Unlike {@link Vec2d}, every operation on this class
+ * modifies the vector in place and returns {@code this}, so drive math that runs every loop
+ * can be chained without creating garbage.
+ * <p>
+ * In-place operations skip the NaN/-0 cleanup done by the {@link Vec2d} constructor, and
+ * angles use {@link FastTrig}, so results may differ from {@link Vec2d}'s by up to
+ * {@link FastTrig#MAX_ATAN2_ERROR}. Call {@link #toVec2d() toVec2d()} when an immutable copy
+ * is needed.
+ */
+public class MutableVec2d
+{
+	public double x;
+	public double y;
+
+	/**
+	 * Creates a zero vector.
+	 */
+	public MutableVec2d()
+	{
+		this(0d, 0d);
+	}
+
+	/**
+	 * Creates a vector from x and y coordinates.
+	 *
+	 * @param xIn - the x coordinate
+	 * @param yIn - the y coordinate
+	 */
+	public MutableVec2d(double xIn, double yIn)
+	{
+		this.x = xIn;
+		this.y = yIn;
+	}
+
+	/**
+	 * Creates a vector with the same coordinates as the passed vector.
+	 *
+	 * @param vec - the vector to copy
+	 */
+	public MutableVec2d(Vec2d vec)
+	{
+		this(vec.x, vec.y);
+	}
+
+	/**
+	 * Sets the coordinates of the vector.
+	 *
+	 * @param xIn - the x coordinate
+	 * @param yIn - the y coordinate
+	 * @return This vector.
+	 */
+	public MutableVec2d set(double xIn, double yIn)
+	{
+		this.x = xIn;
+		this.y = yIn;
+		return this;
+	}
+
+	/**
+	 * Copies the coordinates of the passed vector.
+	 *
+	 * @param vec - the vector to copy
+	 * @return This vector.
+	 */
+	public MutableVec2d set(Vec2d vec)
+	{
+		return this.set(vec.x, vec.y);
+	}
+
+	/**
+	 * Copies the coordinates of the passed vector.
+	 *
+	 * @param vec - the vector to copy
+	 * @return This vector.
+	 */
+	public MutableVec2d set(MutableVec2d vec)
+	{
+		return this.set(vec.x, vec.y);
+	}
+
+	/**
+	 * Sets the vector from a rotation and a magnitude.
+	 *
+	 * @param rotation - the angle of rotation (positive x is 0°)
+	 * @param length - the length of the vector
+	 * @param isDegrees - whether or not the passed rotation is in degrees or radians
+	 * @return This vector.
+	 */
+	public MutableVec2d setPolar(double rotation, double length, boolean isDegrees)
+	{
+		if(isDegrees)
+		{
+			rotation *= Math.PI / 180d;
+		}
+
+		return this.set(FastTrig.cos(rotation) * length, FastTrig.sin(rotation) * length);
+	}
+
+	/**
+	 * Adds the passed vector to this vector.
+	 *
+	 * @param vec - the vector to add
+	 * @return This vector.
+	 */
+	public MutableVec2d addInPlace(Vec2d vec)
+	{
+		return this.addInPlace(vec.x, vec.y);
+	}
+
+	/**
+	 * Adds the passed vector to this vector.
+	 *
+	 * @param vec - the vector to add
+	 * @return This vector.
+	 */
+	public MutableVec2d addInPlace(MutableVec2d vec)
+	{
+		return this.addInPlace(vec.x, vec.y);
+	}
+
+	/**
+	 * Adds the passed vector to this vector.
+	 *
+	 * @param vecX - the vector's x coordinate
+	 * @param vecY - the vector's y coordinate
+	 * @return This vector.
+	 */
+	public MutableVec2d addInPlace(double vecX, double vecY)
+	{
+		this.x += vecX;
+		this.y += vecY;
+		return this;
+	}
+
+	/**
+	 * Subtracts the passed vector from this vector.
+	 *
+	 * @param vec - the vector to subtract
+	 * @return This vector.
+	 */
+	public MutableVec2d subtractInPlace(Vec2d vec)
+	{
+		return this.addInPlace(-vec.x, -vec.y);
+	}
+
+	/**
+	 * Subtracts the passed vector from this vector.
+	 *
+	 * @param vec - the vector to subtract
+	 * @return This vector.
+	 */
+	public MutableVec2d subtractInPlace(MutableVec2d vec)
+	{
+		return this.addInPlace(-vec.x, -vec.y);
+	}
+
+	/**
+	 * Subtracts the passed vector from this vector.
+	 *
+	 * @param vecX - the vector's x coordinate
+	 * @param vecY - the vector's y coordinate
+	 * @return This vector.
+	 */
+	public MutableVec2d subtractInPlace(double vecX, double vecY)
+	{
+		return this.addInPlace(-vecX, -vecY);
+	}
+
+	/**
+	 * Scales this vector.
+	 *
+	 * @param scale - the amount to scale by
+	 * @return This vector.
+	 */
+	public MutableVec2d scaleInPlace(double scale)
+	{
+		this.x *= scale;
+		this.y *= scale;
+		return this;
+	}
+
+	/**
+	 * Normalizes this vector. A zero vector is left unchanged.
+	 *
+	 * @return This vector.
+	 */
+	public MutableVec2d normalizeInPlace()
+	{
+		double lengthSquared = this.getLengthSquared();
+
+		if(lengthSquared == 0d)
+		{
+			return this;
+		}
+
+		return this.scaleInPlace(1d / Math.sqrt(lengthSquared));
+	}
+
+	/**
+	 * Rotates this vector by the passed amount. Positive rotation is counterclockwise,
+	 * and negative rotation is clockwise.
+	 *
+	 * @param rotation - the angle to rotate
+	 * @param isDegrees - whether or not the passed rotation is in degrees or radians
+	 * @return This vector.
+	 */
+	public MutableVec2d rotateInPlace(double rotation, boolean isDegrees)
+	{
+		if(isDegrees)
+		{
+			rotation *= Math.PI / 180d;
+		}
+
+		return this.rotateInPlace(FastTrig.cos(rotation), FastTrig.sin(rotation));
+	}
+
+	/**
+	 * Rotates this vector by an angle given as its cosine and sine. Use this when the same
+	 * rotation is applied to several vectors so the trig is only done once.
+	 *
+	 * @param cos - the cosine of the angle to rotate
+	 * @param sin - the sine of the angle to rotate
+	 * @return This vector.
+	 */
+	public MutableVec2d rotateInPlace(double cos, double sin)
+	{
+		double newX = this.x * cos - this.y * sin;
+		this.y = this.x * sin + this.y * cos;
+		this.x = newX;
+		return this;
+	}
+
+	/**
+	 * Calculates the length of the vector by using the pythagorean theorem.
+	 *
+	 * @return The vector's length.
+	 */
+	public double getLength()
+	{
+		return Math.sqrt(this.x * this.x + this.y * this.y);
+	}
+
+	/**
+	 * Calculates the squared length of the vector. Faster than {@link #getLength() getLength()}
+	 *
+	 * @return The squared length of the vector.
+	 */
+	public double getLengthSquared()
+	{
+		return this.x * this.x + this.y * this.y;
+	}
+
+	/**
+	 * Calculates the vector's rotation, with 0° being the positive x direction.
+	 *
+	 * @return The vector's rotation in radians, from 0 to 2π.
+	 */
+	public double getAngle()
+	{
+		double a = FastTrig.atan2(this.y, this.x);
+		return a < 0d ? a + 2d * Math.PI : a;
+	}
+
+	/**
+	 * Performs a dot product with the passed vector.
+	 *
+	 * @param vec - the vector to dot with
+	 * @return The dot product.
+	 */
+	public double dot(Vec2d vec)
+	{
+		return this.x * vec.x + this.y * vec.y;
+	}
+
+	/**
+	 * Performs a dot product with the passed vector.
+	 *
+	 * @param vec - the vector to dot with
+	 * @return The dot product.
+	 */
+	public double dot(MutableVec2d vec)
+	{
+		return this.x * vec.x + this.y * vec.y;
+	}
+
+	/**
+	 * Performs a cross product with the passed vector.
+	 *
+	 * @param vec - the vector to cross with
+	 * @return The cross product.
+	 */
+	public double cross(Vec2d vec)
+	{
+		return this.x * vec.y - this.y * vec.x;
+	}
+
+	/**
+	 * Performs a cross product with the passed vector.
+	 *
+	 * @param vec - the vector to cross with
+	 * @return The cross product.
+	 */
+	public double cross(MutableVec2d vec)
+	{
+		return this.x * vec.y - this.y * vec.x;
+	}
+
+	/**
+	 * Creates an immutable copy of this vector. This allocates, so keep it out of per-loop code.
+	 *
+	 * @return A {@link Vec2d} with the same coordinates.
+	 */
+	public Vec2d toVec2d()
+	{
+		return new Vec2d(this.x, this.y);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "(" + this.x + ", " + this.y + ")";
+	}
+}
@@ -0,0 +1,347 @@
+package frc.robot.math;
+
+import frc.robot.Constants;
+
+
+/**
+ * Swerve drive kinematics for any number of modules.
+ * <p>
+ * Module state is kept in parallel primitive arrays, one entry per module, so converting
+ * between chassis motion and module commands never allocates. Velocities are in inches per
+ * second and angles in radians, counterclockwise from the positive x direction. Module
+ * commands come out already converted to motor units: steering in steering motor ticks
+ * (including {@link Constants#STEERING_GEAR_RATIO}) and drive speed in ticks per 100ms.
+ * Trig goes through {@link FastTrig}.
+ */
+public class SwerveKinematics
+{
+	/** Multiply a module angle in radians by this to get steering motor ticks. */
+	public static final double RAD_TO_STEER_TICK = Constants.RAD_TO_TICK * Constants.STEERING_GEAR_RATIO;
+
+	/** Multiply steering motor ticks by this to get the module angle in radians. */
+	public static final double STEER_TICK_TO_RAD = 1d / RAD_TO_STEER_TICK;
+
+	/** Multiply a speed in inches per second by this to get drive motor ticks per 100ms. */
+	public static final double IN_PER_SEC_TO_TICKS_PER_100MS = Constants.TICKS_PER_INCH / 10d;
+
+	/** Multiply drive motor ticks per 100ms by this to get inches per second. */
+	public static final double TICKS_PER_100MS_TO_IN_PER_SEC = Constants.INCHES_PER_TICK * 10d;
+
+	private final int moduleCount;
+
+	// Module positions relative to the center of rotation, in inches.
+	private final double[] moduleX;
+	private final double[] moduleY;
+
+	// Module positions relative to their centroid, used by forward kinematics.
+	private final double[] centeredX;
+	private final double[] centeredY;
+	private final double centroidX;
+	private final double centroidY;
+	private final double inverseRadiusSquaredSum;
+
+	// Measured state.
+	private final double[] measuredAngle;
+	private final double[] measuredSpeed;
+
+	// Commanded state.
+	private final double[] targetVx;
+	private final double[] targetVy;
+	private final double[] targetSpeed;
+	private final double[] targetAngle;
+	private final double[] steerTicks;
+	private final double[] driveTicksPer100ms;
+
+	private double chassisVx;
+	private double chassisVy;
+	private double chassisOmega;
+
+	/**
+	 * Creates a kinematics engine for modules at the passed positions.
+	 *
+	 * @param modulePositions - the position of each module relative to the center of rotation, in inches
+	 */
+	public SwerveKinematics(Vec2d... modulePositions)
+	{
+		if(modulePositions.length < 2)
+		{
+			throw new IllegalArgumentException("Swerve kinematics needs at least two modules");
+		}
+
+		this.moduleCount = modulePositions.length;
+		this.moduleX = new double[this.moduleCount];
+		this.moduleY = new double[this.moduleCount];
+		this.centeredX = new double[this.moduleCount];
+		this.centeredY = new double[this.moduleCount];
+		this.measuredAngle = new double[this.moduleCount];
+		this.measuredSpeed = new double[this.moduleCount];
+		this.targetVx = new double[this.moduleCount];
+		this.targetVy = new double[this.moduleCount];
+		this.targetSpeed = new double[this.moduleCount];
+		this.targetAngle = new double[this.moduleCount];
+		this.steerTicks = new double[this.moduleCount];
+		this.driveTicksPer100ms = new double[this.moduleCount];
+
+		double sumX = 0d;
+		double sumY = 0d;
+
+		for(int i = 0; i < this.moduleCount; i++)
+		{
+			this.moduleX[i] = modulePositions[i].x;
+			this.moduleY[i] = modulePositions[i].y;
+			sumX += modulePositions[i].x;
+			sumY += modulePositions[i].y;
+		}
+
+		this.centroidX = sumX / this.moduleCount;
+		this.centroidY = sumY / this.moduleCount;
+
+		double radiusSquaredSum = 0d;
+
+		for(int i = 0; i < this.moduleCount; i++)
+		{
+			this.centeredX[i] = this.moduleX[i] - this.centroidX;
+			this.centeredY[i] = this.moduleY[i] - this.centroidY;
+			radiusSquaredSum += this.centeredX[i] * this.centeredX[i] + this.centeredY[i] * this.centeredY[i];
+		}
+
+		if(radiusSquaredSum == 0d)
+		{
+			throw new IllegalArgumentException("Swerve modules must not all be at the same position");
+		}
+
+		this.inverseRadiusSquaredSum = 1d / radiusSquaredSum;
+	}
+
+	/**
+	 * @return The number of modules.
+	 */
+	public int getModuleCount()
+	{
+		return this.moduleCount;
+	}
+
+	/**
+	 * Sets the measured steering position of a module. The module's next target angle is
+	 * chosen relative to this, so it should be updated every loop before
+	 * {@link #toModuleStates(double, double, double, double) toModuleStates()}.
+	 *
+	 * @param module - the module index
+	 * @param ticks - the steering motor position in ticks
+	 */
+	public void setMeasuredSteerTicks(int module, double ticks)
+	{
+		this.measuredAngle[module] = ticks * STEER_TICK_TO_RAD;
+	}
+
+	/**
+	 * Sets the measured drive speed of a module.
+	 *
+	 * @param module - the module index
+	 * @param ticksPer100ms - the drive motor velocity in ticks per 100ms
+	 */
+	public void setMeasuredDriveVelocity(int module, double ticksPer100ms)
+	{
+		this.measuredSpeed[module] = ticksPer100ms * TICKS_PER_100MS_TO_IN_PER_SEC;
+	}
+
+	/**
+	 * Calculates module commands for the passed chassis motion. Results are read with the
+	 * per-module getters.
+	 *
+	 * @param velocity - the robot relative chassis velocity, in inches per second
+	 * @param omega - the chassis rotation rate, in radians per second (counterclockwise positive)
+	 * @param maxSpeed - the fastest a module may be commanded to go, in inches per second
+	 */
+	public void toModuleStates(Vec2d velocity, double omega, double maxSpeed)
+	{
+		this.toModuleStates(velocity.x, velocity.y, omega, maxSpeed);
+	}
+
+	/**
+	 * Calculates module commands for the passed chassis motion. Results are read with the
+	 * per-module getters.
+	 * <p>
+	 * If any module would exceed {@code maxSpeed}, all modules are slowed by the same factor so
+	 * the robot keeps its direction of travel. Each module then turns by at most 90°: if the
+	 * requested direction is more than 90° away from where the module points, the module
+	 * targets the opposite direction and drives in reverse instead. Module commands are
+	 * continuous, so a module at 350° asked for 10° is sent to 370° rather than spun back.
+	 *
+	 * @param vx - the robot relative x velocity, in inches per second
+	 * @param vy - the robot relative y velocity, in inches per second
+	 * @param omega - the chassis rotation rate, in radians per second (counterclockwise positive)
+	 * @param maxSpeed - the fastest a module may be commanded to go, in inches per second
+	 */
+	public void toModuleStates(double vx, double vy, double omega, double maxSpeed)
+	{
+		double fastest = 0d;
+
+		for(int i = 0; i < this.moduleCount; i++)
+		{
+			double mvx = vx - omega * this.moduleY[i];
+			double mvy = vy + omega * this.moduleX[i];
+			double speed = Math.sqrt(mvx * mvx + mvy * mvy);
+
+			this.targetVx[i] = mvx;
+			this.targetVy[i] = mvy;
+			this.targetSpeed[i] = speed;
+
+			if(speed > fastest)
+			{
+				fastest = speed;
+			}
+		}
+
+		double speedScale = fastest > maxSpeed ? maxSpeed / fastest : 1d;
+
+		for(int i = 0; i < this.moduleCount; i++)
+		{
+			double current = this.measuredAngle[i];
+			double speed = this.targetSpeed[i] * speedScale;
+			double angle;
+
+			if(speed == 0d)
+			{
+				// Hold the current heading instead of snapping the module back to 0°.
+				angle = current;
+			}
+			else
+			{
+				double delta = FastTrig.atan2(this.targetVy[i], this.targetVx[i]) - current;
+
+				// Wrap to [-π, π].
+				delta -= Constants.TWO_PI * Math.floor((delta + Math.PI) / Constants.TWO_PI);
+
+				if(delta > Constants.PI_OVER_TWO)
+				{
+					delta -= Math.PI;
+					speed = -speed;
+				}
+				else if(delta < -Constants.PI_OVER_TWO)
+				{
+					delta += Math.PI;
+					speed = -speed;
+				}
+
+				angle = current + delta;
+			}
+
+			this.targetSpeed[i] = speed;
+			this.targetAngle[i] = angle;
+			this.steerTicks[i] = angle * RAD_TO_STEER_TICK;
+			this.driveTicksPer100ms[i] = speed * IN_PER_SEC_TO_TICKS_PER_100MS;
+		}
+	}
+
+	/**
+	 * Calculates the chassis motion from the measured module states using a least squares fit.
+	 * Results are read with {@link #getChassisVx()}, {@link #getChassisVy()} and
+	 * {@link #getChassisOmega()}.
+	 */
+	public void toChassisSpeeds()
+	{
+		double sumVx = 0d;
+		double sumVy = 0d;
+		double sumTorque = 0d;
+
+		for(int i = 0; i < this.moduleCount; i++)
+		{
+			double angle = this.measuredAngle[i];
+			double mvx = FastTrig.cos(angle) * this.measuredSpeed[i];
+			double mvy = FastTrig.sin(angle) * this.measuredSpeed[i];
+
+			sumVx += mvx;
+			sumVy += mvy;
+			sumTorque += this.centeredX[i] * mvy - this.centeredY[i] * mvx;
+		}
+
+		double omega = sumTorque * this.inverseRadiusSquaredSum;
+
+		// The average module velocity is the velocity of the module centroid, which also
+		// includes the rotation about the center of rotation.
+		this.chassisOmega = omega;
+		this.chassisVx = sumVx / this.moduleCount + omega * this.centroidY;
+		this.chassisVy = sumVy / this.moduleCount - omega * this.centroidX;
+	}
+
+	/**
+	 * @param module - the module index
+	 * @return The commanded steering position, in steering motor ticks.
+	 */
+	public double getSteerTicks(int module)
+	{
+		return this.steerTicks[module];
+	}
+
+	/**
+	 * @param module - the module index
+	 * @return The commanded drive velocity, in drive motor ticks per 100ms.
+	 */
+	public double getDriveTicksPer100ms(int module)
+	{
+		return this.driveTicksPer100ms[module];
+	}
+
+	/**
+	 * @param module - the module index
+	 * @return The commanded module angle in radians. Not wrapped to [0, 2π).
+	 */
+	public double getTargetAngle(int module)
+	{
+		return this.targetAngle[module];
+	}
+
+	/**
+	 * @param module - the module index
+	 * @return The commanded module speed in inches per second. Negative when the module was flipped.
+	 */
+	public double getTargetSpeed(int module)
+	{
+		return this.targetSpeed[module];
+	}
+
+	/**
+	 * @param module - the module index
+	 * @return The measured module angle in radians.
+	 */
+	public double getMeasuredAngle(int module)
+	{
+		return this.measuredAngle[module];
+	}
+
+	/**
+	 * @return The robot relative x velocity from the last {@link #toChassisSpeeds()}, in inches per second.
+	 */
+	public double getChassisVx()
+	{
+		return this.chassisVx;
+	}
+
+	/**
+	 * @return The robot relative y velocity from the last {@link #toChassisSpeeds()}, in inches per second.
+	 */
+	public double getChassisVy()
+	{
+		return this.chassisVy;
+	}
+
+	/**
+	 * @return The rotation rate from the last {@link #toChassisSpeeds()}, in radians per second.
+	 */
+	public double getChassisOmega()
+	{
+		return this.chassisOmega;
+	}
+
+	/**
+	 * Copies the chassis velocity from the last {@link #toChassisSpeeds()} into the passed vector.
+	 *
+	 * @param out - the vector to write to
+	 * @return The passed vector.
+	 */
+	public MutableVec2d getChassisVelocity(MutableVec2d out)
+	{
+		return out.set(this.chassisVx, this.chassisVy);
+	}
+}
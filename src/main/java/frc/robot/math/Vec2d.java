@@ -173,8 +173,8 @@ public class Vec2d
 	 */
 	public double getAngle()
 	{
-		double a = Math.acos(this.x / this.getLength());
-		return this.y < 0d ? 2d * Math.PI - a : a;
+		double a = Math.atan2(this.y, this.x);
+		return a < 0d ? a + 2d * Math.PI : a;
 	}
 	
 	/**
@@ -185,11 +185,9 @@ public class Vec2d
 	 */
 	public double distanceTo(Vec2d vec)
 	{
-		double l1 = this.getLength();
-		double l2 = vec.getLength();
-		double d = this.dot(vec);
-		
-		return Math.acos(d / (l1 * l2));
+		// atan2 of the cross and dot products avoids both square roots, and unlike acos
+		// stays accurate for nearly parallel vectors.
+		return Math.atan2(Math.abs(this.cross(vec)), this.dot(vec));
 	}
 	
 	/**
@@ -207,10 +205,20 @@ public class Vec2d
 			rotation *= Math.PI / 180d;
 		}
 		
-		double l = this.getLength();
-		double a = this.getAngle();
-		
-		return new Vec2d(a + rotation, false).scale(l);
+		return this.rotate(Math.cos(rotation), Math.sin(rotation));
+	}
+	
+	/**
+	 * Rotates the vector by an angle given as its cosine and sine. Use this when the same
+	 * rotation is applied to several vectors so the trig is only done once.
+	 * 
+	 * @param cos - the cosine of the angle to rotate
+	 * @param sin - the sine of the angle to rotate
+	 * @return The rotated vector.
+	 */
+	public Vec2d rotate(double cos, double sin)
+	{
+		return new Vec2d(this.x * cos - this.y * sin, this.x * sin + this.y * cos);
 	}
 	
 	/**
@@ -0,0 +1,105 @@
+package frc.robot.math;
+
+
+/**
+ * A fixed pool of scratch {@link MutableVec2d}s for temporary values in per-loop math.
+ * All vectors are created up front, so taking one never allocates.
+ * <p>
+ * Call {@link #reset() reset()} once at the start of each loop, after which every vector
+ * handed out in the previous loop may be reused. The pool is not thread safe; give each
+ * thread its own.
+ */
+public class Vec2dPool
+{
+	/** Pool shared by code running on the main robot loop. Reset by {@link frc.robot.Robot}. */
+	public static final Vec2dPool MAIN_LOOP = new Vec2dPool(64);
+
+	private final MutableVec2d[] vectors;
+	private int next;
+	private int highWaterMark;
+
+	/**
+	 * Creates a pool holding the specified number of vectors.
+	 *
+	 * @param size - the number of vectors in the pool
+	 */
+	public Vec2dPool(int size)
+	{
+		this.vectors = new MutableVec2d[size];
+
+		for(int i = 0; i < size; i++)
+		{
+			this.vectors[i] = new MutableVec2d();
+		}
+	}
+
+	/**
+	 * Takes a zeroed vector from the pool.
+	 *
+	 * @return A scratch vector, valid until the next {@link #reset() reset()}.
+	 * @throws IllegalStateException if every vector has already been taken this loop
+	 */
+	public MutableVec2d take()
+	{
+		if(this.next == this.vectors.length)
+		{
+			throw new IllegalStateException("Vec2dPool exhausted (size " + this.vectors.length + ")");
+		}
+
+		MutableVec2d vec = this.vectors[this.next++];
+
+		if(this.next > this.highWaterMark)
+		{
+			this.highWaterMark = this.next;
+		}
+
+		return vec.set(0d, 0d);
+	}
+
+	/**
+	 * Takes a vector from the pool holding a copy of the passed vector.
+	 *
+	 * @param vec - the vector to copy
+	 * @return A scratch vector, valid until the next {@link #reset() reset()}.
+	 */
+	public MutableVec2d take(Vec2d vec)
+	{
+		return this.take().set(vec);
+	}
+
+	/**
+	 * Takes a vector from the pool with the specified coordinates.
+	 *
+	 * @param x - the x coordinate
+	 * @param y - the y coordinate
+	 * @return A scratch vector, valid until the next {@link #reset() reset()}.
+	 */
+	public MutableVec2d take(double x, double y)
+	{
+		return this.take().set(x, y);
+	}
+
+	/**
+	 * Returns every vector to the pool.
+	 */
+	public void reset()
+	{
+		this.next = 0;
+	}
+
+	/**
+	 * @return The number of vectors in the pool.
+	 */
+	public int size()
+	{
+		return this.vectors.length;
+	}
+
+	/**
+	 * @return The most vectors ever taken between two resets. Useful for sizing the pool.
+	 */
+	public int getHighWaterMark()
+	{
+		return this.highWaterMark;
+	}
+}
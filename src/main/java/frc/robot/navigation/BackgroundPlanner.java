@@ -0,0 +1,241 @@
+package frc.robot.navigation;
+
+import java.util.concurrent.locks.LockSupport;
+
+import frc.robot.auto.PursuitPath;
+import frc.robot.control.SingleWriterDoubleBuffer;
+import frc.robot.math.Vec2d;
+
+
+/**
+ * Runs a {@link GridPlanner} on its own thread, so planning never holds up the robot loop.
+ * <p>
+ * The robot loop {@link #request(double, double, double, double) requests} a plan and
+ * carries on; the planner thread wakes up, plans and publishes the waypoints. Each loop,
+ * {@link #poll()} picks up a finished plan. Requests and results both go through
+ * {@link SingleWriterDoubleBuffer}s, so neither thread ever waits on the other, and a
+ * newer request replaces one that hasn't started yet. Results carry the id of the request
+ * they answer, so a stale plan can be told apart from the one just asked for. A path with
+ * more than {@link GridPlanner#MAX_WAYPOINTS} waypoints comes back with no waypoints, like
+ * a failed plan, but {@link #hasTooManyWaypoints()} tells the two apart.
+ * <p>
+ * Only the robot loop thread may request and poll.
+ */
+public class BackgroundPlanner
+{
+	private static final int REQUEST_ID = 0;
+	private static final int REQUEST_START_X = 1;
+	private static final int REQUEST_START_Y = 2;
+	private static final int REQUEST_GOAL_X = 3;
+	private static final int REQUEST_GOAL_Y = 4;
+	private static final int REQUEST_SIZE = 5;
+
+	private static final int RESULT_ID = 0;
+	// The planner's result: a waypoint count or GridPlanner.TOO_MANY_WAYPOINTS.
+	private static final int RESULT_COUNT = 1;
+	private static final int RESULT_NANOS = 2;
+	private static final int RESULT_WAYPOINTS = 3;
+
+	private final GridPlanner planner;
+	private final SingleWriterDoubleBuffer requests = new SingleWriterDoubleBuffer(REQUEST_SIZE);
+	private final SingleWriterDoubleBuffer results = new SingleWriterDoubleBuffer(RESULT_WAYPOINTS + 2 * GridPlanner.MAX_WAYPOINTS);
+
+	// Planner thread only.
+	private final double[] request = new double[REQUEST_SIZE];
+	private final double[] published = new double[RESULT_WAYPOINTS + 2 * GridPlanner.MAX_WAYPOINTS];
+
+	// Robot loop thread only.
+	private final double[] result = new double[RESULT_WAYPOINTS + 2 * GridPlanner.MAX_WAYPOINTS];
+	private int nextId;
+	private int seenVersion;
+
+	private Thread worker;
+
+	/**
+	 * @param grid - the grid to plan across
+	 */
+	public BackgroundPlanner(OccupancyGrid grid)
+	{
+		this.planner = new GridPlanner(grid);
+	}
+
+	/**
+	 * Starts the planner thread.
+	 */
+	public synchronized void start()
+	{
+		if(this.worker != null)
+		{
+			return;
+		}
+
+		this.worker = new Thread(this::planLoop, "GridPlanner");
+		this.worker.setDaemon(true);
+		this.worker.start();
+	}
+
+	/**
+	 * Asks for a plan. Never blocks or allocates.
+	 *
+	 * @param startX - the start field x position, in inches
+	 * @param startY - the start field y position, in inches
+	 * @param goalX - the goal field x position, in inches
+	 * @param goalY - the goal field y position, in inches
+	 * @return The id of the request, matched by {@link #getResultId()}.
+	 */
+	public int request(double startX, double startY, double goalX, double goalY)
+	{
+		int id = ++this.nextId;
+
+		this.requests.beginWrite();
+		this.requests.set(REQUEST_ID, id);
+		this.requests.set(REQUEST_START_X, startX);
+		this.requests.set(REQUEST_START_Y, startY);
+		this.requests.set(REQUEST_GOAL_X, goalX);
+		this.requests.set(REQUEST_GOAL_Y, goalY);
+		this.requests.endWrite();
+
+		if(this.worker != null)
+		{
+			LockSupport.unpark(this.worker);
+		}
+
+		return id;
+	}
+
+	/**
+	 * Picks up a plan finished since the last poll. Call once per loop; doesn't allocate.
+	 *
+	 * @return Whether a new plan is available through the result getters.
+	 */
+	public boolean poll()
+	{
+		int version = this.results.getVersion();
+
+		if(version == this.seenVersion)
+		{
+			return false;
+		}
+
+		this.seenVersion = this.results.read(this.result);
+		return true;
+	}
+
+	/**
+	 * @return The id of the request the latest polled plan answers, or 0 before any.
+	 */
+	public int getResultId()
+	{
+		return (int) this.result[RESULT_ID];
+	}
+
+	/**
+	 * @return The number of waypoints in the latest polled plan, or 0 if no path was found or
+	 * it had too many waypoints.
+	 */
+	public int getWaypointCount()
+	{
+		return Math.max(0, (int) this.result[RESULT_COUNT]);
+	}
+
+	/**
+	 * @return Whether the latest polled plan found a path but dropped it for needing more than
+	 * {@link GridPlanner#MAX_WAYPOINTS} waypoints.
+	 */
+	public boolean hasTooManyWaypoints()
+	{
+		return (int) this.result[RESULT_COUNT] == GridPlanner.TOO_MANY_WAYPOINTS;
+	}
+
+	/**
+	 * @return How long the planner thread took to make the latest polled plan, in seconds.
+	 */
+	public double getPlanSeconds()
+	{
+		return this.result[RESULT_NANOS] / 1e9d;
+	}
+
+	/**
+	 * @param waypoint - the waypoint index
+	 * @return The field x position of a waypoint of the latest polled plan, in inches.
+	 */
+	public double getWaypointX(int waypoint)
+	{
+		return this.result[RESULT_WAYPOINTS + 2 * waypoint];
+	}
+
+	/**
+	 * @param waypoint - the waypoint index
+	 * @return The field y position of a waypoint of the latest polled plan, in inches.
+	 */
+	public double getWaypointY(int waypoint)
+	{
+		return this.result[RESULT_WAYPOINTS + 2 * waypoint + 1];
+	}
+
+	/**
+	 * Copies the latest polled plan into new vectors. This allocates, but only a handful of
+	 * objects per plan.
+	 *
+	 * @return The waypoints, empty if no path was found.
+	 */
+	public Vec2d[] getWaypoints()
+	{
+		Vec2d[] waypoints = new Vec2d[this.getWaypointCount()];
+
+		for(int i = 0; i < waypoints.length; i++)
+		{
+			waypoints[i] = new Vec2d(this.getWaypointX(i), this.getWaypointY(i));
+		}
+
+		return waypoints;
+	}
+
+	/**
+	 * Turns the latest polled plan into a path for {@link frc.robot.auto.PurePursuitFollower}.
+	 * This allocates.
+	 *
+	 * @param startHeading - the heading at the start, in radians
+	 * @param endHeading - the heading at the end, in radians
+	 * @return The path, or null if no path was found.
+	 */
+	public PursuitPath toPath(double startHeading, double endHeading)
+	{
+		return this.getWaypointCount() < 2 ? null : PursuitPath.fromWaypoints(startHeading, endHeading, this.getWaypoints());
+	}
+
+	private void planLoop()
+	{
+		int planned = 0;
+
+		while(!Thread.currentThread().isInterrupted())
+		{
+			this.requests.read(this.request);
+			int id = (int) this.request[REQUEST_ID];
+
+			if(id == planned)
+			{
+				LockSupport.park(this);
+				continue;
+			}
+
+			long start = System.nanoTime();
+			int count = this.planner.plan(
+				this.request[REQUEST_START_X], this.request[REQUEST_START_Y],
+				this.request[REQUEST_GOAL_X], this.request[REQUEST_GOAL_Y]);
+
+			this.published[RESULT_ID] = id;
+			this.published[RESULT_COUNT] = count;
+			this.published[RESULT_NANOS] = System.nanoTime() - start;
+
+			for(int i = 0; i < count; i++)
+			{
+				this.published[RESULT_WAYPOINTS + 2 * i] = this.planner.getWaypointX(i);
+				this.published[RESULT_WAYPOINTS + 2 * i + 1] = this.planner.getWaypointY(i);
+			}
+
+			this.results.write(this.published);
+			planned = id;
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package frc.robot.navigation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+
+/**
+ * Builds the {@link OccupancyGrid} of the field and writes it in the grid file format.
+ * <p>
+ * The field is described as rectangles the robot must stay out of, in field coordinates:
+ * inches from the corner of the blue alliance wall, with the positive x direction toward
+ * the red alliance. Each blue side obstacle is mirrored onto the red side. A cell is
+ * blocked if its center is within {@link #ROBOT_RADIUS} of an obstacle or the field
+ * border, so the planner can treat the robot as a point.
+ * <p>
+ * This is meant to run off the robot, from the {@code generateFieldGrid} Gradle task, or
+ * once on first boot if the file is missing.
+ */
+public class FieldGridBuilder
+{
+	/** Length of the field along x, in inches. */
+	public static final double FIELD_LENGTH = 651.25;
+
+	/** Width of the field along y, in inches. */
+	public static final double FIELD_WIDTH = 315.5;
+
+	/** Side length of a grid cell, in inches. */
+	public static final double CELL_SIZE = 3d;
+
+	/** Distance from the robot's center to its furthest bumper corner, in inches. */
+	public static final double ROBOT_RADIUS = 20d;
+
+	/**
+	 * Blue side obstacles as {minX, minY, maxX, maxY}, in inches. The grids, the charge
+	 * station and the barrier between the community and the loading zone.
+	 */
+	public static final double[][] OBSTACLES = {
+		{0d, 0d, 54.25d, 216.5d},
+		{115.0d, 59.25d, 191.25d, 156.5d},
+		{0d, 214.5d, 132.25d, 218.5d},
+	};
+
+	/**
+	 * Builds the grid from {@link #OBSTACLES}.
+	 *
+	 * @return The grid.
+	 */
+	public static OccupancyGrid build()
+	{
+		int width = (int) Math.ceil(FIELD_LENGTH / CELL_SIZE);
+		int height = (int) Math.ceil(FIELD_WIDTH / CELL_SIZE);
+		long[] blocked = new long[OccupancyGrid.wordCount(width, height)];
+
+		for(int y = 0; y < height; y++)
+		{
+			for(int x = 0; x < width; x++)
+			{
+				double fieldX = (x + 0.5d) * CELL_SIZE;
+				double fieldY = (y + 0.5d) * CELL_SIZE;
+
+				if(isBlocked(fieldX, fieldY))
+				{
+					int cell = y * width + x;
+					blocked[cell >>> 6] |= 1L << cell;
+				}
+			}
+		}
+
+		return new OccupancyGrid(width, height, CELL_SIZE, hash(), blocked);
+	}
+
+	private static boolean isBlocked(double fieldX, double fieldY)
+	{
+		if(fieldX < ROBOT_RADIUS || fieldY < ROBOT_RADIUS
+			|| fieldX > FIELD_LENGTH - ROBOT_RADIUS || fieldY > FIELD_WIDTH - ROBOT_RADIUS)
+		{
+			return true;
+		}
+
+		for(double[] obstacle : OBSTACLES)
+		{
+			if(isNear(obstacle[0], obstacle[1], obstacle[2], obstacle[3], fieldX, fieldY)
+				|| isNear(FIELD_LENGTH - obstacle[2], obstacle[1], FIELD_LENGTH - obstacle[0], obstacle[3], fieldX, fieldY))
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean isNear(double minX, double minY, double maxX, double maxY, double fieldX, double fieldY)
+	{
+		double dx = Math.max(0d, Math.max(minX - fieldX, fieldX - maxX));
+		double dy = Math.max(0d, Math.max(minY - fieldY, fieldY - maxY));
+		return dx * dx + dy * dy <= ROBOT_RADIUS * ROBOT_RADIUS;
+	}
+
+	/**
+	 * Hashes everything that affects the built grid, so stale files can be detected.
+	 *
+	 * @return The hash of the field definition.
+	 */
+	public static long hash()
+	{
+		long hash = 7L;
+		hash = hash * 31L + Double.hashCode(FIELD_LENGTH);
+		hash = hash * 31L + Double.hashCode(FIELD_WIDTH);
+		hash = hash * 31L + Double.hashCode(CELL_SIZE);
+		hash = hash * 31L + Double.hashCode(ROBOT_RADIUS);
+
+		for(double[] obstacle : OBSTACLES)
+		{
+			for(double value : obstacle)
+			{
+				hash = hash * 31L + Double.hashCode(value);
+			}
+		}
+
+		return hash * 31L + OccupancyGrid.VERSION;
+	}
+
+	/**
+	 * Writes a grid to a file.
+	 *
+	 * @param grid - the grid to write
+	 * @param path - the file to write
+	 * @throws IOException if the file can't be written
+	 */
+	public static void write(OccupancyGrid grid, Path path) throws IOException
+	{
+		long[] words = grid.getBlockedWords();
+		ByteBuffer buffer = ByteBuffer.allocate(OccupancyGrid.HEADER_BYTES + words.length * Long.BYTES);
+		buffer.put(OccupancyGrid.MAGIC);
+		buffer.putInt(OccupancyGrid.VERSION);
+		buffer.putInt(grid.getWidth());
+		buffer.putInt(grid.getHeight());
+		buffer.putInt(0);
+		buffer.putLong(grid.getDefinitionHash());
+		buffer.putDouble(grid.getCellSize());
+
+		for(long word : words)
+		{
+			buffer.putLong(word);
+		}
+
+		Files.createDirectories(path.toAbsolutePath().getParent());
+
+		// Write to a temporary file first so a half written file is never read.
+		Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		Files.write(temporary, buffer.array());
+		Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Builds the field grid into a directory. Used by the {@code generateFieldGrid} Gradle task.
+	 *
+	 * @param args - the output directory
+	 * @throws IOException if the file can't be written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		write(build(), new File(args[0]).toPath().resolve(OccupancyGrid.FILE_NAME));
+	}
+}
@@ -0,0 +1,506 @@
+package frc.robot.navigation;
+
+import java.util.Arrays;
+
+import frc.robot.math.Vec2d;
+
+
+/**
+ * Plans short, any-angle paths across an {@link OccupancyGrid} with Lazy Theta*.
+ * <p>
+ * Theta* is A* over the 8-connected grid that lets a cell take its grandparent as its
+ * parent whenever the straight line between them is clear, so paths come out as a few long
+ * straight segments that only bend at obstacle corners instead of zig-zagging along grid
+ * directions. The lazy variant assumes the line is clear when a cell is reached and only
+ * checks it when the cell is expanded, which saves most of the line checks.
+ * <p>
+ * Every buffer is sized to the grid up front, and a generation counter marks which entries
+ * belong to the current plan, so {@link #plan(double, double, double, double) plan()}
+ * neither allocates nor clears anything. Only one thread may use a planner.
+ */
+public class GridPlanner
+{
+	/** Most waypoints a plan can have, including the start and goal. */
+	public static final int MAX_WAYPOINTS = 32;
+
+	/**
+	 * Returned by {@link #plan(double, double, double, double) plan()} when there is a path
+	 * but it bends more often than {@link #MAX_WAYPOINTS} allows.
+	 */
+	public static final int TOO_MANY_WAYPOINTS = -1;
+
+	/** How far from a blocked start or goal to look for a free cell, in cells. */
+	public static final int FREE_CELL_SEARCH_RADIUS = 8;
+
+	private static final double SQRT_2 = Math.sqrt(2d);
+
+	private final OccupancyGrid grid;
+	private final int width;
+	private final int height;
+
+	// Per cell, valid only where visited[cell] == generation.
+	private final double[] costs;
+	private final double[] estimates;
+	private final int[] parents;
+	private final int[] heapIndex;
+	private final int[] visited;
+	private final int[] closed;
+	private int generation;
+
+	private final int[] heap;
+	private int heapSize;
+
+	private final double[] waypointX = new double[MAX_WAYPOINTS];
+	private final double[] waypointY = new double[MAX_WAYPOINTS];
+	private int waypointCount;
+	private int expansions;
+
+	/**
+	 * @param grid - the grid to plan across
+	 */
+	public GridPlanner(OccupancyGrid grid)
+	{
+		this.grid = grid;
+		this.width = grid.getWidth();
+		this.height = grid.getHeight();
+
+		int cells = grid.getCellCount();
+		this.costs = new double[cells];
+		this.estimates = new double[cells];
+		this.parents = new int[cells];
+		this.heapIndex = new int[cells];
+		this.visited = new int[cells];
+		this.closed = new int[cells];
+		this.heap = new int[cells];
+	}
+
+	/**
+	 * Plans a path. A start or goal inside an obstacle, e.g. with the robot pushed against a
+	 * wall, is moved to the nearest free cell within {@link #FREE_CELL_SEARCH_RADIUS}.
+	 *
+	 * @param startX - the start field x position, in inches
+	 * @param startY - the start field y position, in inches
+	 * @param goalX - the goal field x position, in inches
+	 * @param goalY - the goal field y position, in inches
+	 * @return The number of waypoints, including the start and goal, 0 if there is no path, or
+	 * {@link #TOO_MANY_WAYPOINTS} if the path needs more than {@link #MAX_WAYPOINTS}.
+	 */
+	public int plan(double startX, double startY, double goalX, double goalY)
+	{
+		this.waypointCount = 0;
+		this.expansions = 0;
+		this.heapSize = 0;
+
+		if(++this.generation == 0)
+		{
+			// Wrapped after four billion plans; start the stamps over.
+			Arrays.fill(this.visited, 0);
+			Arrays.fill(this.closed, 0);
+			this.generation = 1;
+		}
+
+		int start = this.nearestFree(this.grid.toCellX(startX), this.grid.toCellY(startY));
+		int goal = this.nearestFree(this.grid.toCellX(goalX), this.grid.toCellY(goalY));
+
+		if(start < 0 || goal < 0)
+		{
+			return 0;
+		}
+
+		int goalCellX = goal % this.width;
+		int goalCellY = goal / this.width;
+
+		// Aim for the exact goal unless it had to be moved.
+		if(goalCellX != this.grid.toCellX(goalX) || goalCellY != this.grid.toCellY(goalY))
+		{
+			goalX = this.grid.toFieldX(goalCellX);
+			goalY = this.grid.toFieldY(goalCellY);
+		}
+
+		this.visit(start, start, 0d, goalCellX, goalCellY);
+
+		while(this.heapSize > 0)
+		{
+			int cell = this.pop();
+			this.closed[cell] = this.generation;
+			this.expansions++;
+
+			this.fixParent(cell);
+
+			if(cell == goal)
+			{
+				return this.tracePath(start, goal, startX, startY, goalX, goalY);
+			}
+
+			this.expand(cell, goalCellX, goalCellY);
+		}
+
+		return 0;
+	}
+
+	private void expand(int cell, int goalCellX, int goalCellY)
+	{
+		int x = cell % this.width;
+		int y = cell / this.width;
+		int parent = this.parents[cell];
+		int parentX = parent % this.width;
+		int parentY = parent / this.width;
+
+		for(int dy = -1; dy <= 1; dy++)
+		{
+			for(int dx = -1; dx <= 1; dx++)
+			{
+				int nx = x + dx;
+				int ny = y + dy;
+
+				if((dx == 0 && dy == 0) || this.grid.isBlocked(nx, ny))
+				{
+					continue;
+				}
+
+				// No cutting corners between two blocked cells.
+				if(dx != 0 && dy != 0 && (this.grid.isBlocked(x + dx, y) || this.grid.isBlocked(x, y + dy)))
+				{
+					continue;
+				}
+
+				int neighbor = ny * this.width + nx;
+
+				if(this.closed[neighbor] == this.generation)
+				{
+					continue;
+				}
+
+				// Lazily assume the parent can see the neighbor; checked once it is expanded.
+				double cost = this.costs[parent] + distance(parentX, parentY, nx, ny);
+
+				if(this.visited[neighbor] != this.generation || cost < this.costs[neighbor])
+				{
+					this.visit(neighbor, parent, cost, goalCellX, goalCellY);
+				}
+			}
+		}
+	}
+
+	private void fixParent(int cell)
+	{
+		int parent = this.parents[cell];
+		int x = cell % this.width;
+		int y = cell / this.width;
+
+		if(parent == cell || this.lineOfSight(parent % this.width, parent / this.width, x, y))
+		{
+			return;
+		}
+
+		// The parent can't see the cell after all, so go through the best expanded neighbor.
+		double best = Double.MAX_VALUE;
+
+		for(int dy = -1; dy <= 1; dy++)
+		{
+			for(int dx = -1; dx <= 1; dx++)
+			{
+				int nx = x + dx;
+				int ny = y + dy;
+
+				if((dx == 0 && dy == 0) || nx < 0 || ny < 0 || nx >= this.width || ny >= this.height)
+				{
+					continue;
+				}
+
+				if(dx != 0 && dy != 0 && (this.grid.isBlocked(x + dx, y) || this.grid.isBlocked(x, y + dy)))
+				{
+					continue;
+				}
+
+				int neighbor = ny * this.width + nx;
+
+				if(this.closed[neighbor] != this.generation)
+				{
+					continue;
+				}
+
+				double cost = this.costs[neighbor] + (dx != 0 && dy != 0 ? SQRT_2 : 1d);
+
+				if(cost < best)
+				{
+					best = cost;
+					this.parents[cell] = neighbor;
+					this.costs[cell] = cost;
+				}
+			}
+		}
+	}
+
+	private int tracePath(int start, int goal, double startX, double startY, double goalX, double goalY)
+	{
+		int count = 1;
+
+		for(int cell = goal; cell != start; cell = this.parents[cell])
+		{
+			count++;
+		}
+
+		if(count > MAX_WAYPOINTS)
+		{
+			return TOO_MANY_WAYPOINTS;
+		}
+
+		int cell = goal;
+
+		for(int i = count - 1; i >= 0; i--)
+		{
+			this.waypointX[i] = this.grid.toFieldX(cell % this.width);
+			this.waypointY[i] = this.grid.toFieldY(cell / this.width);
+			cell = this.parents[cell];
+		}
+
+		// The robot is where it is, and wants to be exactly on the goal.
+		this.waypointX[0] = startX;
+		this.waypointY[0] = startY;
+
+		if(count == 1)
+		{
+			count = 2;
+		}
+
+		this.waypointX[count - 1] = goalX;
+		this.waypointY[count - 1] = goalY;
+		this.waypointCount = count;
+		return count;
+	}
+
+	private int nearestFree(int x, int y)
+	{
+		for(int radius = 0; radius <= FREE_CELL_SEARCH_RADIUS; radius++)
+		{
+			int best = -1;
+			int bestDistance = Integer.MAX_VALUE;
+
+			// Only the ring at this radius; the inner rings were all blocked.
+			for(int dy = -radius; dy <= radius; dy++)
+			{
+				for(int dx = -radius; dx <= radius; dx++)
+				{
+					if(Math.max(Math.abs(dx), Math.abs(dy)) != radius || this.grid.isBlocked(x + dx, y + dy))
+					{
+						continue;
+					}
+
+					int distance = dx * dx + dy * dy;
+
+					if(distance < bestDistance)
+					{
+						bestDistance = distance;
+						best = (y + dy) * this.width + x + dx;
+					}
+				}
+			}
+
+			if(best >= 0)
+			{
+				return best;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Checks that every cell a straight line between two cell centers passes through is
+	 * free. A line through a cell corner counts as touching both cells beside the corner.
+	 */
+	private boolean lineOfSight(int x0, int y0, int x1, int y1)
+	{
+		int dx = Math.abs(x1 - x0);
+		int dy = Math.abs(y1 - y0);
+		int stepX = x1 > x0 ? 1 : -1;
+		int stepY = y1 > y0 ? 1 : -1;
+		int error = dx - dy;
+		int x = x0;
+		int y = y0;
+
+		dx *= 2;
+		dy *= 2;
+
+		for(int n = (dx + dy) / 2; n > 0; n--)
+		{
+			if(error > 0)
+			{
+				x += stepX;
+				error -= dy;
+			}
+			else if(error < 0)
+			{
+				y += stepY;
+				error += dx;
+			}
+			else
+			{
+				if(this.grid.isBlocked(x + stepX, y) || this.grid.isBlocked(x, y + stepY))
+				{
+					return false;
+				}
+
+				x += stepX;
+				y += stepY;
+				error += dx - dy;
+				n--;
+			}
+
+			if(this.grid.isBlocked(x, y))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static double distance(int x0, int y0, int x1, int y1)
+	{
+		int dx = x1 - x0;
+		int dy = y1 - y0;
+		return Math.sqrt(dx * dx + dy * dy);
+	}
+
+	private void visit(int cell, int parent, double cost, int goalCellX, int goalCellY)
+	{
+		this.parents[cell] = parent;
+		this.costs[cell] = cost;
+		this.estimates[cell] = cost + distance(cell % this.width, cell / this.width, goalCellX, goalCellY);
+
+		if(this.visited[cell] != this.generation)
+		{
+			this.visited[cell] = this.generation;
+			this.heap[this.heapSize] = cell;
+			this.heapIndex[cell] = this.heapSize;
+			this.heapSize++;
+		}
+
+		this.siftUp(this.heapIndex[cell]);
+	}
+
+	private int pop()
+	{
+		int top = this.heap[0];
+		this.heapSize--;
+
+		if(this.heapSize > 0)
+		{
+			this.heap[0] = this.heap[this.heapSize];
+			this.heapIndex[this.heap[0]] = 0;
+			this.siftDown(0);
+		}
+
+		return top;
+	}
+
+	private void siftUp(int index)
+	{
+		int cell = this.heap[index];
+		double estimate = this.estimates[cell];
+
+		while(index > 0)
+		{
+			int parentIndex = (index - 1) >>> 1;
+			int parent = this.heap[parentIndex];
+
+			if(this.estimates[parent] <= estimate)
+			{
+				break;
+			}
+
+			this.heap[index] = parent;
+			this.heapIndex[parent] = index;
+			index = parentIndex;
+		}
+
+		this.heap[index] = cell;
+		this.heapIndex[cell] = index;
+	}
+
+	private void siftDown(int index)
+	{
+		int cell = this.heap[index];
+		double estimate = this.estimates[cell];
+
+		while(true)
+		{
+			int child = index * 2 + 1;
+
+			if(child >= this.heapSize)
+			{
+				break;
+			}
+
+			if(child + 1 < this.heapSize && this.estimates[this.heap[child + 1]] < this.estimates[this.heap[child]])
+			{
+				child++;
+			}
+
+			if(this.estimates[this.heap[child]] >= estimate)
+			{
+				break;
+			}
+
+			this.heap[index] = this.heap[child];
+			this.heapIndex[this.heap[index]] = index;
+			index = child;
+		}
+
+		this.heap[index] = cell;
+		this.heapIndex[cell] = index;
+	}
+
+	/**
+	 * @return The number of waypoints in the last plan, or 0 if it failed or had too many.
+	 */
+	public int getWaypointCount()
+	{
+		return this.waypointCount;
+	}
+
+	/**
+	 * @param waypoint - the waypoint index
+	 * @return The field x position of a waypoint of the last plan, in inches.
+	 */
+	public double getWaypointX(int waypoint)
+	{
+		return this.waypointX[waypoint];
+	}
+
+	/**
+	 * @param waypoint - the waypoint index
+	 * @return The field y position of a waypoint of the last plan, in inches.
+	 */
+	public double getWaypointY(int waypoint)
+	{
+		return this.waypointY[waypoint];
+	}
+
+	/**
+	 * Copies the last plan into new vectors. This allocates.
+	 *
+	 * @return The waypoints of the last plan, empty if it failed.
+	 */
+	public Vec2d[] getWaypoints()
+	{
+		Vec2d[] waypoints = new Vec2d[this.waypointCount];
+
+		for(int i = 0; i < waypoints.length; i++)
+		{
+			waypoints[i] = new Vec2d(this.waypointX[i], this.waypointY[i]);
+		}
+
+		return waypoints;
+	}
+
+	/**
+	 * @return The number of cells expanded by the last plan.
+	 */
+	public int getExpansionCount()
+	{
+		return this.expansions;
+	}
+}
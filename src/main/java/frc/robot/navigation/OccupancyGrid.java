@@ -0,0 +1,276 @@
+package frc.robot.navigation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.GeneratedFiles;
+
+
+/**
+ * Which parts of the field the robot's center can be in, as a grid of square cells packed
+ * one bit per cell.
+ * <p>
+ * Obstacles are already grown by the robot's size when the grid is built, so the planner
+ * can treat the robot as a point. Files are written by {@link FieldGridBuilder}. All values
+ * are big endian. The header is {@value #HEADER_BYTES} bytes:
+ * <pre>
+ *  0  magic "FRCGRD01"
+ *  8  int    format version ({@value #VERSION})
+ * 12  int    width in cells
+ * 16  int    height in cells
+ * 20  int    unused
+ * 24  long   hash of the field definition the grid was built from
+ * 32  double cell size, in inches
+ * </pre>
+ * followed by the blocked bits as longs, row by row from the field origin, with cell
+ * {@code (x, y)} at bit {@code y * width + x}. The bits are small enough to read onto the
+ * heap, which makes lookups a shift and a mask.
+ */
+public class OccupancyGrid
+{
+	/** File format version. */
+	public static final int VERSION = 1;
+
+	/** Size of the header in bytes. */
+	public static final int HEADER_BYTES = 40;
+
+	/** Name of the directory of generated files that holds the grid file. */
+	public static final String DIRECTORY = "navigation";
+
+	/** Name of the grid file. */
+	public static final String FILE_NAME = "field.grid";
+
+	static final byte[] MAGIC = "FRCGRD01".getBytes(StandardCharsets.US_ASCII);
+
+	private final int width;
+	private final int height;
+	private final double cellSize;
+	private final long definitionHash;
+	private final long[] blocked;
+
+	OccupancyGrid(int width, int height, double cellSize, long definitionHash, long[] blocked)
+	{
+		this.width = width;
+		this.height = height;
+		this.cellSize = cellSize;
+		this.definitionHash = definitionHash;
+		this.blocked = blocked;
+	}
+
+	/**
+	 * Loads the field grid from the generated files, rebuilding it if it is missing or stale.
+	 *
+	 * @return The grid.
+	 */
+	public static OccupancyGrid load()
+	{
+		return load(GeneratedFiles.getDirectory().resolve(DIRECTORY).resolve(FILE_NAME));
+	}
+
+	/**
+	 * Loads a grid file, rebuilding it if it is missing or stale.
+	 *
+	 * @param path - the grid file
+	 * @return The grid.
+	 */
+	public static OccupancyGrid load(Path path)
+	{
+		if(Files.isRegularFile(path))
+		{
+			try
+			{
+				OccupancyGrid grid = read(path);
+
+				if(grid.getDefinitionHash() == FieldGridBuilder.hash())
+				{
+					return grid;
+				}
+			}
+			catch(IOException e)
+			{
+				// Rebuilt below.
+			}
+		}
+
+		DriverStation.reportWarning("Rebuilding stale or missing field grid " + path, false);
+		OccupancyGrid grid = FieldGridBuilder.build();
+
+		try
+		{
+			FieldGridBuilder.write(grid, path);
+		}
+		catch(IOException e)
+		{
+			DriverStation.reportError("Unable to save field grid: " + e.getMessage(), false);
+		}
+
+		return grid;
+	}
+
+	/**
+	 * Reads a grid file.
+	 *
+	 * @param path - the grid file
+	 * @return The grid.
+	 * @throws IOException if the file can't be read or isn't a grid
+	 */
+	public static OccupancyGrid read(Path path) throws IOException
+	{
+		ByteBuffer buffer;
+
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+		}
+
+		if(buffer.capacity() < HEADER_BYTES)
+		{
+			throw new IOException(path + " is too short to be a field grid");
+		}
+
+		for(int i = 0; i < MAGIC.length; i++)
+		{
+			if(buffer.get(i) != MAGIC[i])
+			{
+				throw new IOException(path + " is not a field grid file");
+			}
+		}
+
+		if(buffer.getInt(8) != VERSION)
+		{
+			throw new IOException(path + " has field grid format version " + buffer.getInt(8) + ", expected " + VERSION);
+		}
+
+		int width = buffer.getInt(12);
+		int height = buffer.getInt(16);
+		long[] blocked = new long[wordCount(width, height)];
+
+		if(width < 1 || height < 1 || buffer.capacity() < HEADER_BYTES + (long) blocked.length * Long.BYTES)
+		{
+			throw new IOException(path + " is truncated");
+		}
+
+		for(int i = 0; i < blocked.length; i++)
+		{
+			blocked[i] = buffer.getLong(HEADER_BYTES + i * Long.BYTES);
+		}
+
+		return new OccupancyGrid(width, height, buffer.getDouble(32), buffer.getLong(24), blocked);
+	}
+
+	static int wordCount(int width, int height)
+	{
+		return (int) (((long) width * height + 63L) >>> 6);
+	}
+
+	/**
+	 * @return The number of cells along the field's x axis.
+	 */
+	public int getWidth()
+	{
+		return this.width;
+	}
+
+	/**
+	 * @return The number of cells along the field's y axis.
+	 */
+	public int getHeight()
+	{
+		return this.height;
+	}
+
+	/**
+	 * @return The side length of a cell, in inches.
+	 */
+	public double getCellSize()
+	{
+		return this.cellSize;
+	}
+
+	/**
+	 * @return The hash of the field definition the grid was built from.
+	 */
+	public long getDefinitionHash()
+	{
+		return this.definitionHash;
+	}
+
+	/**
+	 * @return The number of cells.
+	 */
+	public int getCellCount()
+	{
+		return this.width * this.height;
+	}
+
+	/**
+	 * @param x - the cell column
+	 * @param y - the cell row
+	 * @return Whether the robot can't be in the cell. Cells off the grid are blocked.
+	 */
+	public boolean isBlocked(int x, int y)
+	{
+		if(x < 0 || y < 0 || x >= this.width || y >= this.height)
+		{
+			return true;
+		}
+
+		return this.isBlocked(y * this.width + x);
+	}
+
+	/**
+	 * @param cell - the cell index, {@code y * width + x}
+	 * @return Whether the robot can't be in the cell.
+	 */
+	public boolean isBlocked(int cell)
+	{
+		return (this.blocked[cell >>> 6] & (1L << cell)) != 0L;
+	}
+
+	/**
+	 * @param fieldX - a field x position, in inches
+	 * @return The column holding the position, which may be off the grid.
+	 */
+	public int toCellX(double fieldX)
+	{
+		return (int) Math.floor(fieldX / this.cellSize);
+	}
+
+	/**
+	 * @param fieldY - a field y position, in inches
+	 * @return The row holding the position, which may be off the grid.
+	 */
+	public int toCellY(double fieldY)
+	{
+		return (int) Math.floor(fieldY / this.cellSize);
+	}
+
+	/**
+	 * @param cellX - a cell column
+	 * @return The field x position of the center of the column, in inches.
+	 */
+	public double toFieldX(int cellX)
+	{
+		return (cellX + 0.5d) * this.cellSize;
+	}
+
+	/**
+	 * @param cellY - a cell row
+	 * @return The field y position of the center of the row, in inches.
+	 */
+	public double toFieldY(int cellY)
+	{
+		return (cellY + 0.5d) * this.cellSize;
+	}
+
+	long[] getBlockedWords()
+	{
+		return this.blocked;
+	}
+}
@@ -0,0 +1,49 @@
+package frc.robot.navigation;
+
+import frc.robot.math.MutableVec2d;
+
+
+/**
+ * Where the robot lines up to score, in the same field coordinates as
+ * {@link FieldGridBuilder}: one spot in front of each column of each alliance's grid, facing
+ * the grid.
+ */
+public final class ScoringPositions
+{
+	/** Distance from the alliance wall to the robot's center when lined up, in inches. */
+	public static final double SCORING_X = 76d;
+
+	/** Field y position of each grid column, in inches. */
+	public static final double[] COLUMN_Y = {20.19d, 42.19d, 64.19d, 86.19d, 108.19d, 130.19d, 152.19d, 174.19d, 196.19d};
+
+	private ScoringPositions()
+	{
+	}
+
+	/**
+	 * Finds the scoring position closest to a field position.
+	 *
+	 * @param fieldX - the field x position, in inches
+	 * @param fieldY - the field y position, in inches
+	 * @param out - set to the scoring position, in inches
+	 * @return The heading to score with, in radians.
+	 */
+	public static double nearest(double fieldX, double fieldY, MutableVec2d out)
+	{
+		// Each alliance scores on the grid at its own end of the field.
+		boolean red = fieldX > FieldGridBuilder.FIELD_LENGTH / 2d;
+		double x = red ? FieldGridBuilder.FIELD_LENGTH - SCORING_X : SCORING_X;
+		double bestY = COLUMN_Y[0];
+
+		for(double y : COLUMN_Y)
+		{
+			if(Math.abs(y - fieldY) < Math.abs(bestY - fieldY))
+			{
+				bestY = y;
+			}
+		}
+
+		out.set(x, bestY);
+		return red ? 0d : Math.PI;
+	}
+}
@@ -0,0 +1,140 @@
+package frc.robot.odometry;
+
+import frc.robot.Constants;
+import frc.robot.math.FastTrig;
+import frc.robot.math.MutableVec2d;
+import frc.robot.math.Vec2d;
+
+
+/**
+ * Tracks the robot's field position by integrating swerve drive encoder ticks and gyro yaw.
+ * <p>
+ * Every {@link #update(double, double[], double[], double) update()} turns the change in
+ * each module's drive encoder into a distance along the module's direction, averages the
+ * modules, and rotates the result onto the field using the heading halfway through the step.
+ * Each pose is added to a {@link PoseHistory}, so callers can ask where the robot was when
+ * a sensor reading was taken.
+ * <p>
+ * Positions are in inches and headings in radians, counterclockwise positive. Updates may
+ * come from a different thread than lookups, but only one thread may update.
+ */
+public class PoseEstimator
+{
+	private final int moduleCount;
+	private final double[] lastDriveTicks;
+	private final PoseHistory history;
+	private final MutableVec2d position = new MutableVec2d();
+	private final MutableVec2d step = new MutableVec2d();
+
+	private double heading;
+	private double headingOffset;
+	private double lastYaw;
+	private boolean initialized;
+
+	/**
+	 * @param moduleCount - the number of swerve modules
+	 * @param historyCapacity - the number of past poses to keep
+	 */
+	public PoseEstimator(int moduleCount, int historyCapacity)
+	{
+		this.moduleCount = moduleCount;
+		this.lastDriveTicks = new double[moduleCount];
+		this.history = new PoseHistory(historyCapacity);
+	}
+
+	/**
+	 * Sets the current pose. Must be called from the updating thread.
+	 *
+	 * @param timestamp - the current time, in seconds
+	 * @param fieldPosition - the field position, in inches
+	 * @param fieldHeading - the heading, in radians
+	 * @param driveTicks - the current drive encoder positions, in ticks
+	 * @param yaw - the current gyro yaw, in radians counterclockwise
+	 */
+	public void reset(double timestamp, Vec2d fieldPosition, double fieldHeading, double[] driveTicks, double yaw)
+	{
+		System.arraycopy(driveTicks, 0, this.lastDriveTicks, 0, this.moduleCount);
+		this.position.set(fieldPosition);
+		this.headingOffset = fieldHeading - yaw;
+		this.heading = fieldHeading;
+		this.lastYaw = yaw;
+		this.initialized = true;
+
+		this.history.clear();
+		this.history.add(timestamp, this.position.x, this.position.y, this.heading);
+	}
+
+	/**
+	 * Integrates the change since the last update. The first call only records the sensor
+	 * readings, starting from the origin facing the positive x direction.
+	 *
+	 * @param timestamp - the time the sensors were read, in seconds
+	 * @param driveTicks - the drive encoder positions, in ticks
+	 * @param moduleAngles - the robot relative module angles, in radians
+	 * @param yaw - the gyro yaw, in radians counterclockwise
+	 */
+	public void update(double timestamp, double[] driveTicks, double[] moduleAngles, double yaw)
+	{
+		if(!this.initialized)
+		{
+			this.reset(timestamp, new Vec2d(0d, 0d), 0d, driveTicks, yaw);
+			return;
+		}
+
+		this.step.set(0d, 0d);
+
+		for(int i = 0; i < this.moduleCount; i++)
+		{
+			double distance = (driveTicks[i] - this.lastDriveTicks[i]) * Constants.INCHES_PER_TICK;
+			this.lastDriveTicks[i] = driveTicks[i];
+			this.step.addInPlace(FastTrig.cos(moduleAngles[i]) * distance, FastTrig.sin(moduleAngles[i]) * distance);
+		}
+
+		if(this.moduleCount > 0)
+		{
+			this.step.scaleInPlace(1d / this.moduleCount);
+		}
+
+		// Rotate by the average heading over the step to follow arcs more closely.
+		double turn = yaw - this.lastYaw;
+		turn -= Constants.TWO_PI * Math.floor((turn + Math.PI) / Constants.TWO_PI);
+		double midHeading = this.heading + turn / 2d;
+
+		this.position.addInPlace(this.step.rotateInPlace(midHeading, false));
+		this.heading = yaw + this.headingOffset;
+		this.lastYaw = yaw;
+
+		this.history.add(timestamp, this.position.x, this.position.y, this.heading);
+	}
+
+	/**
+	 * Looks up where the robot was at a past time.
+	 *
+	 * @param timestamp - the time to look up, in seconds
+	 * @param out - set to the field position at that time, in inches
+	 * @return The heading at that time in radians, or NaN before the first update.
+	 */
+	public double getPoseAt(double timestamp, MutableVec2d out)
+	{
+		return this.history.sample(timestamp, out);
+	}
+
+	/**
+	 * Looks up the newest pose. Safe to call from any thread.
+	 *
+	 * @param out - set to the field position, in inches
+	 * @return The heading in radians, or NaN before the first update.
+	 */
+	public double getLatestPose(MutableVec2d out)
+	{
+		return this.history.latest(out);
+	}
+
+	/**
+	 * @return The history of poses.
+	 */
+	public PoseHistory getHistory()
+	{
+		return this.history;
+	}
+}
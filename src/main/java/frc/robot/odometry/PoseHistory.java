@@ -0,0 +1,195 @@
+package frc.robot.odometry;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import frc.robot.Constants;
+import frc.robot.math.MutableVec2d;
+
+
+/**
+ * A fixed-capacity ring of timestamped poses that can be looked up at any past time.
+ * <p>
+ * Poses are stored in parallel primitive arrays and looked up with a binary search, then
+ * interpolated between the two surrounding samples. One thread may add poses while others
+ * look them up; lookups retry if a pose was added while they were reading, like
+ * {@link frc.robot.control.SingleWriterDoubleBuffer}. Nothing allocates after construction.
+ */
+public class PoseHistory
+{
+	private final int capacity;
+	private final double[] timestamps;
+	private final double[] xs;
+	private final double[] ys;
+	private final double[] headings;
+	private final AtomicInteger sequence = new AtomicInteger();
+
+	// Index of the oldest pose, and the number of poses stored.
+	private int start;
+	private int count;
+
+	/**
+	 * @param capacity - the number of poses to keep
+	 */
+	public PoseHistory(int capacity)
+	{
+		this.capacity = capacity;
+		this.timestamps = new double[capacity];
+		this.xs = new double[capacity];
+		this.ys = new double[capacity];
+		this.headings = new double[capacity];
+	}
+
+	/**
+	 * Adds a pose, replacing the oldest one if the history is full. Only one thread may add
+	 * poses, and timestamps must increase.
+	 *
+	 * @param timestamp - the time of the pose, in seconds
+	 * @param x - the field x position, in inches
+	 * @param y - the field y position, in inches
+	 * @param heading - the heading, in radians
+	 */
+	public void add(double timestamp, double x, double y, double heading)
+	{
+		this.sequence.set(this.sequence.get() + 1);
+		VarHandle.storeStoreFence();
+
+		int index;
+
+		if(this.count < this.capacity)
+		{
+			index = (this.start + this.count) % this.capacity;
+			this.count++;
+		}
+		else
+		{
+			index = this.start;
+			this.start = (this.start + 1) % this.capacity;
+		}
+
+		this.timestamps[index] = timestamp;
+		this.xs[index] = x;
+		this.ys[index] = y;
+		this.headings[index] = heading;
+
+		this.sequence.set(this.sequence.get() + 1);
+	}
+
+	/**
+	 * Removes every pose. Must be called from the thread that adds poses.
+	 */
+	public void clear()
+	{
+		this.sequence.set(this.sequence.get() + 1);
+		VarHandle.storeStoreFence();
+		this.start = 0;
+		this.count = 0;
+		this.sequence.set(this.sequence.get() + 1);
+	}
+
+	/**
+	 * Looks up the pose at a past time, interpolating between the two closest samples.
+	 * Times before the oldest or after the newest sample return that sample.
+	 *
+	 * @param timestamp - the time to look up, in seconds
+	 * @param position - set to the field position at that time, in inches
+	 * @return The heading at that time in radians, or NaN if the history is empty.
+	 */
+	public double sample(double timestamp, MutableVec2d position)
+	{
+		while(true)
+		{
+			int before = this.sequence.get();
+
+			if((before & 1) != 0)
+			{
+				Thread.onSpinWait();
+				continue;
+			}
+
+			double heading = this.sampleUnsafe(timestamp, position);
+			VarHandle.loadLoadFence();
+
+			if(this.sequence.get() == before)
+			{
+				return heading;
+			}
+		}
+	}
+
+	/**
+	 * Looks up the newest pose.
+	 *
+	 * @param position - set to the newest field position, in inches
+	 * @return The newest heading in radians, or NaN if the history is empty.
+	 */
+	public double latest(MutableVec2d position)
+	{
+		return this.sample(Double.POSITIVE_INFINITY, position);
+	}
+
+	/**
+	 * @return The number of poses stored.
+	 */
+	public int size()
+	{
+		return this.count;
+	}
+
+	private double sampleUnsafe(double timestamp, MutableVec2d position)
+	{
+		int size = this.count;
+
+		if(size == 0)
+		{
+			position.set(0d, 0d);
+			return Double.NaN;
+		}
+
+		int first = this.start;
+		int last = (first + size - 1) % this.capacity;
+
+		if(timestamp <= this.timestamps[first])
+		{
+			position.set(this.xs[first], this.ys[first]);
+			return this.headings[first];
+		}
+
+		if(timestamp >= this.timestamps[last])
+		{
+			position.set(this.xs[last], this.ys[last]);
+			return this.headings[last];
+		}
+
+		// Find the last sample at or before the timestamp. Both ends are known to bracket it.
+		int low = 0;
+		int high = size - 1;
+
+		while(high - low > 1)
+		{
+			int middle = (low + high) >>> 1;
+
+			if(this.timestamps[(first + middle) % this.capacity] <= timestamp)
+			{
+				low = middle;
+			}
+			else
+			{
+				high = middle;
+			}
+		}
+
+		int a = (first + low) % this.capacity;
+		int b = (first + high) % this.capacity;
+		double span = this.timestamps[b] - this.timestamps[a];
+		double t = span <= 0d ? 0d : (timestamp - this.timestamps[a]) / span;
+
+		position.set(
+			this.xs[a] + (this.xs[b] - this.xs[a]) * t,
+			this.ys[a] + (this.ys[b] - this.ys[a]) * t);
+
+		double turn = this.headings[b] - this.headings[a];
+		turn -= Constants.TWO_PI * Math.floor((turn + Math.PI) / Constants.TWO_PI);
+		return this.headings[a] + turn * t;
+	}
+}
@@ -0,0 +1,370 @@
+package frc.robot.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.DoubleController;
+import frc.robot.telemetry.LogFiles;
+
+
+/**
+ * Records every input the robot loop reads, once per loop, so a match can be replayed
+ * offline with {@link frc.robot.sim.ReplaySimulation}.
+ * <p>
+ * Each loop, {@link #record(DoubleController) record()} copies the controller snapshot,
+ * the Driver Station mode and match time, and every registered sensor value into a
+ * preallocated ring buffer. A background thread appends the ring buffer to a file in the
+ * {@link LogFiles#getDirectory() log directory}, so the loop never touches the file system.
+ * If the loop gets a whole ring buffer ahead of the writer, records are dropped and counted
+ * instead of blocking.
+ * <p>
+ * Each boot writes a new file named by {@link LogFiles#newLog(String, int, long) LogFiles},
+ * {@code cycles-<boot>-<date>-<time>.bin}, created only if it doesn't exist. At about 10KB
+ * a second, only the newest {@link #MAX_LOG_FILES} logs are kept.
+ * <p>
+ * The file is append-only and big endian. It starts with a header:
+ * <pre>
+ *  0  magic "FRCRPL01"
+ *  8  int    format version ({@value #VERSION})
+ * 12  int    header size in bytes
+ * 16  int    record size in bytes
+ * 20  int    sensor count
+ * 24  long   wall clock time the log was opened, in ms since the epoch
+ * 32  the sensor names, each as a short byte length followed by UTF-8 bytes
+ * </pre>
+ * followed by one record per loop:
+ * <pre>
+ *  0  double FPGA timestamp, in seconds
+ *  8  double match time, in seconds
+ * 16  int    mode flags ({@link #FLAG_ENABLED}, {@link #FLAG_AUTONOMOUS}, {@link #FLAG_TEST}, {@link #FLAG_DS_ATTACHED})
+ * 20  int    loop number
+ * 24  int    raw buttons of each controller
+ * 32  int    POV angle of each controller
+ * 40  float  six raw axes of each controller
+ * 88  double each sensor value, in registration order
+ * </pre>
+ * Axes are stored as floats because that is how the Driver Station sends them, so nothing
+ * is lost.
+ * <p>
+ * Only one thread may record; on the robot that is the main loop thread.
+ */
+public class CycleRecorder
+{
+	/** Format version written to the header. */
+	public static final int VERSION = 1;
+
+	/** Size of the fixed part of the header in bytes. */
+	public static final int FIXED_HEADER_BYTES = 32;
+
+	/** Size of a record without sensors in bytes. */
+	public static final int BASE_RECORD_BYTES = 88;
+
+	/** Number of axes recorded per controller. */
+	public static final int AXIS_COUNT = 6;
+
+	/** Mode flag set while the robot is enabled. */
+	public static final int FLAG_ENABLED = 1 << 0;
+
+	/** Mode flag set in autonomous. */
+	public static final int FLAG_AUTONOMOUS = 1 << 1;
+
+	/** Mode flag set in test. */
+	public static final int FLAG_TEST = 1 << 2;
+
+	/** Mode flag set while the Driver Station is connected. */
+	public static final int FLAG_DS_ATTACHED = 1 << 3;
+
+	/** Number of logs kept, including the one being written. */
+	public static final int MAX_LOG_FILES = 10;
+
+	static final byte[] MAGIC = "FRCRPL01".getBytes(StandardCharsets.US_ASCII);
+
+	/** Number of records the in-memory ring buffer holds; must be a power of two. */
+	private static final int RING_CAPACITY = 1 << 10;
+
+	/** How long the writer sleeps when the ring buffer is empty. */
+	private static final long WRITER_IDLE_NANOS = 20_000_000L;
+
+	private static CycleRecorder instance;
+
+	private final int mask = RING_CAPACITY - 1;
+	private final List<String> sensorNames = new ArrayList<>();
+	private final double[] axes = new double[AXIS_COUNT];
+
+	// The producer only writes head, the consumer only writes tail.
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+
+	private double[] sensors = new double[0];
+	private int recordBytes;
+	private byte[] ring;
+	private ByteBuffer records;
+	private int loop;
+	private boolean disabled;
+	private Thread writer;
+
+	/**
+	 * @return The robot's cycle recorder.
+	 */
+	public static synchronized CycleRecorder getInstance()
+	{
+		if(instance == null)
+		{
+			instance = new CycleRecorder();
+		}
+
+		return instance;
+	}
+
+	private CycleRecorder()
+	{
+	}
+
+	/**
+	 * Registers a sensor to record. Sensors are part of the record layout, so they must be
+	 * registered before {@link #start()}.
+	 *
+	 * @param name - the sensor name, e.g. "drive/frontLeftTicks"
+	 * @return The sensor id to pass to {@link #setSensor(int, double) setSensor()}.
+	 */
+	public synchronized int registerSensor(String name)
+	{
+		int id = this.sensorNames.indexOf(name);
+
+		if(id >= 0)
+		{
+			return id;
+		}
+
+		if(this.ring != null)
+		{
+			throw new IllegalStateException("Sensor " + name + " registered after the cycle recorder started");
+		}
+
+		this.sensorNames.add(name);
+		this.sensors = new double[this.sensorNames.size()];
+		return this.sensorNames.size() - 1;
+	}
+
+	/**
+	 * Turns recording off for good, e.g. while replaying a log. Call before {@link #start()},
+	 * which then does nothing, so {@link #record(DoubleController) record()} never records.
+	 */
+	public synchronized void disable()
+	{
+		this.disabled = true;
+	}
+
+	/**
+	 * Opens a new log file in the log directory and starts the writer thread.
+	 */
+	public synchronized void start()
+	{
+		if(this.writer != null || this.disabled)
+		{
+			return;
+		}
+
+		this.recordBytes = BASE_RECORD_BYTES + this.sensors.length * 8;
+		this.ring = new byte[RING_CAPACITY * this.recordBytes];
+		this.records = ByteBuffer.wrap(this.ring);
+
+		try
+		{
+			long startMillis = System.currentTimeMillis();
+			Path base = LogFiles.newLog("cycles", MAX_LOG_FILES, startMillis);
+			Path path = base.resolveSibling(base.getFileName() + ".bin");
+			FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+			channel.write(this.createHeader(startMillis));
+
+			this.writer = new Thread(() -> this.drainLoop(channel), "CycleRecorder");
+			this.writer.setDaemon(true);
+			this.writer.setPriority(Thread.MIN_PRIORITY);
+			this.writer.start();
+		}
+		catch(IOException e)
+		{
+			this.disabled = true;
+			DriverStation.reportError("Unable to open cycle log: " + e.getMessage(), false);
+		}
+	}
+
+	private ByteBuffer createHeader(long startMillis)
+	{
+		int headerBytes = FIXED_HEADER_BYTES;
+
+		for(String name : this.sensorNames)
+		{
+			headerBytes += 2 + name.getBytes(StandardCharsets.UTF_8).length;
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(headerBytes);
+		header.put(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(headerBytes);
+		header.putInt(this.recordBytes);
+		header.putInt(this.sensors.length);
+		header.putLong(startMillis);
+
+		for(String name : this.sensorNames)
+		{
+			byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+			header.putShort((short) bytes.length);
+			header.put(bytes);
+		}
+
+		header.flip();
+		return header;
+	}
+
+	/**
+	 * Sets a sensor's value for the current loop. Call before {@link #record(DoubleController) record()}.
+	 *
+	 * @param sensor - the sensor id from {@link #registerSensor(String) registerSensor()}
+	 * @param value - the value read this loop
+	 */
+	public void setSensor(int sensor, double value)
+	{
+		this.sensors[sensor] = value;
+	}
+
+	/**
+	 * Records this loop's inputs. Call once per loop, after the controller has been sampled.
+	 * Never blocks or allocates.
+	 *
+	 * @param controller - the controller whose snapshot to record
+	 * @return Whether the record fit in the ring buffer.
+	 */
+	public boolean record(DoubleController controller)
+	{
+		if(this.writer == null)
+		{
+			return false;
+		}
+
+		long index = this.head.get();
+
+		if(index - this.tail.get() >= RING_CAPACITY)
+		{
+			this.dropped.incrementAndGet();
+			this.loop++;
+			return false;
+		}
+
+		int flags = 0;
+
+		if(DriverStation.isEnabled())
+		{
+			flags |= FLAG_ENABLED;
+		}
+
+		if(DriverStation.isAutonomous())
+		{
+			flags |= FLAG_AUTONOMOUS;
+		}
+
+		if(DriverStation.isTest())
+		{
+			flags |= FLAG_TEST;
+		}
+
+		if(DriverStation.isDSAttached())
+		{
+			flags |= FLAG_DS_ATTACHED;
+		}
+
+		ByteBuffer buffer = this.records;
+		int position = ((int) index & this.mask) * this.recordBytes;
+
+		buffer.putDouble(position, Timer.getFPGATimestamp());
+		buffer.putDouble(position + 8, DriverStation.getMatchTime());
+		buffer.putInt(position + 16, flags);
+		buffer.putInt(position + 20, this.loop++);
+		buffer.putInt(position + 24, controller.getRawButtons1());
+		buffer.putInt(position + 28, controller.getRawButtons2());
+		buffer.putInt(position + 32, controller.getPOV1());
+		buffer.putInt(position + 36, controller.getPOV2());
+
+		controller.getRawAxes1(this.axes);
+
+		for(int i = 0; i < AXIS_COUNT; i++)
+		{
+			buffer.putFloat(position + 40 + i * 4, (float) this.axes[i]);
+		}
+
+		controller.getRawAxes2(this.axes);
+
+		for(int i = 0; i < AXIS_COUNT; i++)
+		{
+			buffer.putFloat(position + 64 + i * 4, (float) this.axes[i]);
+		}
+
+		for(int i = 0; i < this.sensors.length; i++)
+		{
+			buffer.putDouble(position + BASE_RECORD_BYTES + i * 8, this.sensors[i]);
+		}
+
+		// Publishes the slot to the writer thread.
+		this.head.lazySet(index + 1L);
+		return true;
+	}
+
+	/**
+	 * @return The number of records dropped because the ring buffer was full.
+	 */
+	public long getDroppedCount()
+	{
+		return this.dropped.get();
+	}
+
+	private void drainLoop(FileChannel channel)
+	{
+		// A second view of the ring, so the writer's position and limit never touch the producer's buffer.
+		ByteBuffer view = ByteBuffer.wrap(this.ring);
+
+		try
+		{
+			while(!Thread.currentThread().isInterrupted())
+			{
+				long from = this.tail.get();
+				long to = this.head.get();
+
+				if(from == to)
+				{
+					LockSupport.parkNanos(WRITER_IDLE_NANOS);
+					continue;
+				}
+
+				// Write up to the end of the ring, the rest goes out on the next pass.
+				int first = (int) from & this.mask;
+				int count = (int) Math.min(to - from, RING_CAPACITY - first);
+
+				view.limit((first + count) * this.recordBytes);
+				view.position(first * this.recordBytes);
+
+				while(view.hasRemaining())
+				{
+					channel.write(view);
+				}
+
+				// Frees the slots for the producer.
+				this.tail.lazySet(from + count);
+			}
+		}
+		catch(IOException e)
+		{
+			DriverStation.reportError("Cycle log write failed, recording stopped: " + e.getMessage(), false);
+		}
+	}
+}
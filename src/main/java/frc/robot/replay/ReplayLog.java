@@ -0,0 +1,219 @@
+package frc.robot.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+
+/**
+ * A cycle log written by {@link CycleRecorder}, memory-mapped for reading. Records are read
+ * straight from the mapping by loop index, so even a full match loads instantly.
+ * <p>
+ * A partly written last record, e.g. from power being cut mid-write, is ignored.
+ */
+public class ReplayLog
+{
+	private final Path path;
+	private final MappedByteBuffer buffer;
+	private final int headerBytes;
+	private final int recordBytes;
+	private final int recordCount;
+	private final long startMillis;
+	private final String[] sensorNames;
+
+	private ReplayLog(Path path, MappedByteBuffer buffer)
+	{
+		this.path = path;
+		this.buffer = buffer;
+
+		// Relative reads go through a duplicate so the shared buffer's position never moves.
+		ByteBuffer header = buffer.duplicate();
+		byte[] magic = new byte[CycleRecorder.MAGIC.length];
+
+		if(buffer.capacity() >= CycleRecorder.FIXED_HEADER_BYTES)
+		{
+			header.get(magic);
+		}
+
+		if(!Arrays.equals(magic, CycleRecorder.MAGIC) || buffer.getInt(8) != CycleRecorder.VERSION)
+		{
+			throw new IllegalArgumentException(path + " is not a version " + CycleRecorder.VERSION + " cycle log");
+		}
+
+		this.headerBytes = buffer.getInt(12);
+		this.recordBytes = buffer.getInt(16);
+		this.sensorNames = new String[buffer.getInt(20)];
+		this.startMillis = buffer.getLong(24);
+		this.recordCount = (buffer.capacity() - this.headerBytes) / this.recordBytes;
+
+		header.position(CycleRecorder.FIXED_HEADER_BYTES);
+
+		for(int i = 0; i < this.sensorNames.length; i++)
+		{
+			byte[] name = new byte[header.getShort()];
+			header.get(name);
+			this.sensorNames[i] = new String(name, StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Maps a cycle log.
+	 *
+	 * @param path - the log file
+	 * @return The mapped log.
+	 * @throws IOException If the file can't be read.
+	 * @throws IllegalArgumentException If the file isn't a cycle log of this version.
+	 */
+	public static ReplayLog open(Path path) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			return new ReplayLog(path, channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size()));
+		}
+	}
+
+	/**
+	 * @return The log file.
+	 */
+	public Path getPath()
+	{
+		return this.path;
+	}
+
+	/**
+	 * @return The number of complete loops in the log.
+	 */
+	public int getCycleCount()
+	{
+		return this.recordCount;
+	}
+
+	/**
+	 * @return The wall clock time the log was opened, in ms since the epoch.
+	 */
+	public long getStartMillis()
+	{
+		return this.startMillis;
+	}
+
+	/**
+	 * @return The number of sensors in each record.
+	 */
+	public int getSensorCount()
+	{
+		return this.sensorNames.length;
+	}
+
+	/**
+	 * @param sensor - the sensor index
+	 * @return The name the sensor was registered with.
+	 */
+	public String getSensorName(int sensor)
+	{
+		return this.sensorNames[sensor];
+	}
+
+	/**
+	 * @param name - the sensor name
+	 * @return The sensor index, or -1 if the log has no such sensor.
+	 */
+	public int findSensor(String name)
+	{
+		for(int i = 0; i < this.sensorNames.length; i++)
+		{
+			if(this.sensorNames[i].equals(name))
+			{
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	private int position(int cycle)
+	{
+		return this.headerBytes + cycle * this.recordBytes;
+	}
+
+	/**
+	 * @param cycle - the index of the loop in the log
+	 * @return The FPGA timestamp the loop was recorded at, in seconds.
+	 */
+	public double getTimestamp(int cycle)
+	{
+		return this.buffer.getDouble(this.position(cycle));
+	}
+
+	/**
+	 * @param cycle - the index of the loop in the log
+	 * @return The match time reported by the Driver Station, in seconds.
+	 */
+	public double getMatchTime(int cycle)
+	{
+		return this.buffer.getDouble(this.position(cycle) + 8);
+	}
+
+	/**
+	 * @param cycle - the index of the loop in the log
+	 * @return The mode flags, made of the {@code CycleRecorder.FLAG_} constants.
+	 */
+	public int getFlags(int cycle)
+	{
+		return this.buffer.getInt(this.position(cycle) + 16);
+	}
+
+	/**
+	 * @param cycle - the index of the loop in the log
+	 * @return The robot's loop number. Differs from the index if records were dropped.
+	 */
+	public int getLoopNumber(int cycle)
+	{
+		return this.buffer.getInt(this.position(cycle) + 20);
+	}
+
+	/**
+	 * @param cycle - the index of the loop in the log
+	 * @param controller - 0 for the first controller, 1 for the second
+	 * @return The raw buttons, bit n - 1 for button n.
+	 */
+	public int getButtons(int cycle, int controller)
+	{
+		return this.buffer.getInt(this.position(cycle) + 24 + controller * 4);
+	}
+
+	/**
+	 * @param cycle - the index of the loop in the log
+	 * @param controller - 0 for the first controller, 1 for the second
+	 * @return The POV angle, or -1.
+	 */
+	public int getPOV(int cycle, int controller)
+	{
+		return this.buffer.getInt(this.position(cycle) + 32 + controller * 4);
+	}
+
+	/**
+	 * @param cycle - the index of the loop in the log
+	 * @param controller - 0 for the first controller, 1 for the second
+	 * @param axis - the raw axis index
+	 * @return The raw axis value.
+	 */
+	public double getAxis(int cycle, int controller, int axis)
+	{
+		return this.buffer.getFloat(this.position(cycle) + 40 + (controller * CycleRecorder.AXIS_COUNT + axis) * 4);
+	}
+
+	/**
+	 * @param cycle - the index of the loop in the log
+	 * @param sensor - the sensor index
+	 * @return The sensor value.
+	 */
+	public double getSensor(int cycle, int sensor)
+	{
+		return this.buffer.getDouble(this.position(cycle) + CycleRecorder.BASE_RECORD_BYTES + sensor * 8);
+	}
+}
@@ -0,0 +1,278 @@
+package frc.robot.scheduling;
+
+import frc.robot.diagnostics.SchedulerProfiler;
+
+
+/**
+ * Runs housekeeping, such as dashboard updates and diagnostic dumps, only in the time left
+ * over at the end of each robot loop, so it can never push the loop past its period.
+ * <p>
+ * Tasks are added during startup. A task added with {@link #addEveryLoop(String, Runnable)}
+ * wants to run every loop; one added with {@link #add(String, Runnable)} runs once each time
+ * it is {@link #request(int) requested}. Call {@link #run(long)} at the very end of
+ * {@code robotPeriodic()}. It goes through the waiting tasks, starting after the last one
+ * that ran so every task gets its turn first, and runs each one only if its cost estimate
+ * fits before the deadline: the loop's start plus its period, less a reserve for what
+ * WPILib does after {@code robotPeriodic()}. A task that doesn't fit waits for the next
+ * loop. A task is only ever waiting once, so an every-loop task that misses loops runs once
+ * when it gets the chance, not once per loop missed. A task that has waited
+ * {@link #MAX_WAITING_LOOPS} loops runs regardless, so a loop that is always busy can delay
+ * housekeeping but never starve it.
+ * <p>
+ * Cost estimates are learned from each run the way TCP estimates round trip times: a moving
+ * average of the run time plus four times a moving average of its deviation, so a task
+ * with jittery run times is given room for its slower runs. A task that has never run is
+ * assumed to cost nothing, so it runs at the first chance and gets measured.
+ * <p>
+ * Each task's time is recorded in the {@link SchedulerProfiler} under "deferred/" and its
+ * name. Running never allocates. Only the robot loop thread may use this.
+ */
+public class DeferredWorkQueue
+{
+	/** Loops a task may wait before it runs even without time left for it. */
+	public static final int MAX_WAITING_LOOPS = 50;
+
+	/** Weight of each new run time in the average, as a right shift (1/8). */
+	private static final int MEAN_SHIFT = 3;
+
+	/** Weight of each new deviation in the average deviation, as a right shift (1/4). */
+	private static final int DEVIATION_SHIFT = 2;
+
+	/** How many average deviations are added to the average run time for a cost estimate. */
+	private static final int DEVIATION_MULTIPLIER = 4;
+
+	private final long periodNanos;
+	private final long reserveNanos;
+	private final int capacity;
+
+	private final String[] names;
+	private final Runnable[] tasks;
+	private final boolean[] everyLoop;
+	private final boolean[] waiting;
+	private final int[] waitingLoops;
+	private final long[] meanNanos;
+	private final long[] deviationNanos;
+	private final boolean[] measured;
+	private final long[] runCounts;
+	private final int[] sections;
+	private int taskCount;
+
+	private final SchedulerProfiler profiler = SchedulerProfiler.getInstance();
+
+	private int nextTask;
+	private long forcedCount;
+	private long lastSlackNanos;
+
+	/**
+	 * @param periodSeconds - the robot loop period, in seconds
+	 * @param reserveSeconds - time to leave at the end of each loop for what runs after
+	 * {@code robotPeriodic()}, in seconds
+	 * @param capacity - the most tasks that will be added
+	 */
+	public DeferredWorkQueue(double periodSeconds, double reserveSeconds, int capacity)
+	{
+		this.periodNanos = (long) (periodSeconds * 1e9d);
+		this.reserveNanos = (long) (reserveSeconds * 1e9d);
+		this.capacity = capacity;
+
+		this.names = new String[capacity];
+		this.tasks = new Runnable[capacity];
+		this.everyLoop = new boolean[capacity];
+		this.waiting = new boolean[capacity];
+		this.waitingLoops = new int[capacity];
+		this.meanNanos = new long[capacity];
+		this.deviationNanos = new long[capacity];
+		this.measured = new boolean[capacity];
+		this.runCounts = new long[capacity];
+		this.sections = new int[capacity];
+	}
+
+	/**
+	 * Adds a task that runs once each time it is requested.
+	 *
+	 * @param name - the name of the task
+	 * @param task - the work to run
+	 * @return The task index, passed to {@link #request(int)}.
+	 */
+	public int add(String name, Runnable task)
+	{
+		return this.add(name, task, false);
+	}
+
+	/**
+	 * Adds a task that wants to run every loop.
+	 *
+	 * @param name - the name of the task
+	 * @param task - the work to run
+	 * @return The task index.
+	 */
+	public int addEveryLoop(String name, Runnable task)
+	{
+		return this.add(name, task, true);
+	}
+
+	private int add(String name, Runnable task, boolean everyLoop)
+	{
+		if(this.taskCount == this.capacity)
+		{
+			throw new IllegalStateException("Deferred work queue is full (capacity " + this.capacity + ")");
+		}
+
+		int index = this.taskCount++;
+		this.names[index] = name;
+		this.tasks[index] = task;
+		this.everyLoop[index] = everyLoop;
+		this.sections[index] = this.profiler.registerSection("deferred/" + name);
+		return index;
+	}
+
+	/**
+	 * Asks for a task to run once, in this loop if there's time left or a later one if not.
+	 * Requesting a task that is already waiting does nothing.
+	 *
+	 * @param task - the task index
+	 */
+	public void request(int task)
+	{
+		this.waiting[task] = true;
+	}
+
+	/**
+	 * Runs the waiting tasks that fit in the time left in this loop. Call at the very end of
+	 * {@code robotPeriodic()}.
+	 *
+	 * @param cycleStartNanos - when this loop started, from {@link System#nanoTime()}
+	 */
+	public void run(long cycleStartNanos)
+	{
+		long deadline = cycleStartNanos + this.periodNanos - this.reserveNanos;
+		int start = this.nextTask;
+
+		for(int i = 0; i < this.taskCount; i++)
+		{
+			int task = start + i < this.taskCount ? start + i : start + i - this.taskCount;
+
+			if(this.everyLoop[task])
+			{
+				this.waiting[task] = true;
+			}
+
+			if(!this.waiting[task])
+			{
+				continue;
+			}
+
+			long now = System.nanoTime();
+			boolean fits = now + this.getEstimateNanos(task) <= deadline;
+
+			if(!fits && this.waitingLoops[task] < MAX_WAITING_LOOPS)
+			{
+				this.waitingLoops[task]++;
+				continue;
+			}
+
+			if(!fits)
+			{
+				this.forcedCount++;
+			}
+
+			this.waiting[task] = false;
+			this.waitingLoops[task] = 0;
+			this.tasks[task].run();
+
+			long nanos = System.nanoTime() - now;
+			this.learn(task, nanos);
+			this.runCounts[task]++;
+			this.profiler.record(this.sections[task], nanos);
+			this.nextTask = task + 1 < this.taskCount ? task + 1 : 0;
+		}
+
+		this.lastSlackNanos = deadline - System.nanoTime();
+	}
+
+	private void learn(int task, long nanos)
+	{
+		if(!this.measured[task])
+		{
+			this.measured[task] = true;
+			this.meanNanos[task] = nanos;
+			this.deviationNanos[task] = nanos >> 1;
+			return;
+		}
+
+		long error = nanos - this.meanNanos[task];
+		this.meanNanos[task] += error >> MEAN_SHIFT;
+		this.deviationNanos[task] += (Math.abs(error) - this.deviationNanos[task]) >> DEVIATION_SHIFT;
+	}
+
+	/**
+	 * @param task - the task index
+	 * @return The time the task is expected to need, in nanoseconds, or 0 before it has run.
+	 */
+	public long getEstimateNanos(int task)
+	{
+		return this.meanNanos[task] + DEVIATION_MULTIPLIER * this.deviationNanos[task];
+	}
+
+	/**
+	 * @param task - the task index
+	 * @return Whether the task is waiting for time to run.
+	 */
+	public boolean isWaiting(int task)
+	{
+		return this.waiting[task];
+	}
+
+	/**
+	 * @param task - the task index
+	 * @return How many loops in a row the task has waited without running.
+	 */
+	public int getWaitingLoops(int task)
+	{
+		return this.waitingLoops[task];
+	}
+
+	/**
+	 * @param task - the task index
+	 * @return The number of times the task has run.
+	 */
+	public long getRunCount(int task)
+	{
+		return this.runCounts[task];
+	}
+
+	/**
+	 * @param task - the task index
+	 * @return The name of the task.
+	 */
+	public String getName(int task)
+	{
+		return this.names[task];
+	}
+
+	/**
+	 * @return The number of tasks added.
+	 */
+	public int getTaskCount()
+	{
+		return this.taskCount;
+	}
+
+	/**
+	 * @return The number of times a task ran without time left for it, after waiting
+	 * {@link #MAX_WAITING_LOOPS} loops.
+	 */
+	public long getForcedCount()
+	{
+		return this.forcedCount;
+	}
+
+	/**
+	 * @return The time left before the deadline at the end of the latest run, in
+	 * nanoseconds; negative if the loop was already past it.
+	 */
+	public long getLastSlackNanos()
+	{
+		return this.lastSlackNanos;
+	}
+}
@@ -0,0 +1,292 @@
+package frc.robot.scheduling;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import frc.robot.diagnostics.SchedulerProfiler;
+
+
+/**
+ * Runs the per-loop work that doesn't need the command scheduler, such as sensor refresh,
+ * odometry and subsystem periodic math, spread across a small fixed pool of worker threads.
+ * <p>
+ * Work is added during startup as named tasks, each listing the tasks it depends on, which
+ * must have been added before it. Every loop, {@link #run()} wakes the workers and works
+ * alongside them: each thread claims the next task in the order they were added, waits for
+ * that task's dependencies to finish, then runs it. Since dependencies are always claimed
+ * first, every wait is on a task that is already running. {@code run()} returns once every
+ * task has finished, so everything after it in the loop sees all of their results, just as
+ * if they had run in order on the robot loop thread.
+ * <p>
+ * With no workers the tasks simply run in order on the calling thread, so parallel running
+ * can be switched off without changing anything else. Tasks must not touch the command
+ * scheduler, the controllers or anything else only the robot loop thread may use, and two
+ * tasks may only share state if one depends on the other.
+ * <p>
+ * Each task's time is recorded in the {@link SchedulerProfiler} under "periodic/" and its
+ * name. Running never allocates.
+ */
+public class ParallelPeriodicRunner
+{
+	private static final int[] NO_DEPENDENCIES = {};
+
+	private final int capacity;
+	private final String[] names;
+	private final Runnable[] tasks;
+	private final int[][] dependencies;
+	private final int[] sections;
+	private final long[] taskNanos;
+	private int taskCount;
+
+	private final SchedulerProfiler profiler = SchedulerProfiler.getInstance();
+	private final int totalSection;
+
+	private final Thread[] workers;
+	private boolean started;
+
+	// Written by the robot loop thread, read by the workers.
+	private volatile long cycle;
+
+	private final AtomicInteger nextTask = new AtomicInteger();
+	private final AtomicInteger finishedTasks = new AtomicInteger();
+	private final AtomicLongArray finishedCycle;
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+	private volatile int failedTask;
+
+	/**
+	 * @param workerCount - how many worker threads to run tasks on besides the caller of
+	 *            {@link #run()}; 0 runs every task on the caller
+	 * @param capacity - the most tasks that will be added
+	 */
+	public ParallelPeriodicRunner(int workerCount, int capacity)
+	{
+		this.capacity = capacity;
+		this.names = new String[capacity];
+		this.tasks = new Runnable[capacity];
+		this.dependencies = new int[capacity][];
+		this.sections = new int[capacity];
+		this.taskNanos = new long[capacity];
+		this.finishedCycle = new AtomicLongArray(capacity);
+		this.workers = new Thread[workerCount];
+		this.totalSection = this.profiler.registerSection("periodic/total");
+	}
+
+	/**
+	 * Adds a task.
+	 *
+	 * @param name - the name of the task
+	 * @param task - the work to run once per loop
+	 * @param dependsOn - the indices of tasks that must finish before this one starts
+	 * @return The task index.
+	 */
+	public int add(String name, Runnable task, int... dependsOn)
+	{
+		if(this.started)
+		{
+			throw new IllegalStateException("Tasks must be added before the periodic runner starts");
+		}
+
+		if(this.taskCount == this.capacity)
+		{
+			throw new IllegalStateException("Periodic runner is full (capacity " + this.capacity + ")");
+		}
+
+		for(int dependency : dependsOn)
+		{
+			if(dependency < 0 || dependency >= this.taskCount)
+			{
+				throw new IllegalArgumentException("Task " + name + " depends on task " + dependency + ", which hasn't been added");
+			}
+		}
+
+		int index = this.taskCount++;
+		this.names[index] = name;
+		this.tasks[index] = task;
+		this.dependencies[index] = dependsOn.length == 0 ? NO_DEPENDENCIES : dependsOn.clone();
+		this.sections[index] = this.profiler.registerSection("periodic/" + name);
+		return index;
+	}
+
+	/**
+	 * Starts the worker threads. No more tasks can be added after this.
+	 */
+	public synchronized void start()
+	{
+		if(this.started)
+		{
+			return;
+		}
+
+		this.started = true;
+
+		for(int i = 0; i < this.workers.length; i++)
+		{
+			this.workers[i] = new Thread(this::workLoop, "PeriodicWorker" + i);
+			this.workers[i].setDaemon(true);
+			this.workers[i].start();
+		}
+	}
+
+	/**
+	 * Runs every task once and waits for them all to finish. Only the robot loop thread may
+	 * call this, once per loop. Starts the runner if it hasn't been started.
+	 *
+	 * @throws IllegalStateException if a task threw, after every task has finished
+	 */
+	public void run()
+	{
+		if(!this.started)
+		{
+			this.start();
+		}
+
+		long start = System.nanoTime();
+
+		if(this.workers.length == 0)
+		{
+			for(int task = 0; task < this.taskCount; task++)
+			{
+				this.runTask(task, this.cycle);
+			}
+		}
+		else
+		{
+			this.finishedTasks.set(0);
+			this.cycle++;
+
+			// Workers claim from this, so anything that claims a task sees the new cycle.
+			this.nextTask.set(0);
+
+			for(Thread worker : this.workers)
+			{
+				LockSupport.unpark(worker);
+			}
+
+			this.claimTasks();
+
+			while(this.finishedTasks.get() < this.taskCount)
+			{
+				Thread.onSpinWait();
+			}
+		}
+
+		for(int task = 0; task < this.taskCount; task++)
+		{
+			this.profiler.record(this.sections[task], this.taskNanos[task]);
+		}
+
+		this.profiler.record(this.totalSection, System.nanoTime() - start);
+
+		Throwable thrown = this.failure.getAndSet(null);
+
+		if(thrown != null)
+		{
+			throw new IllegalStateException("Periodic task " + this.names[this.failedTask] + " failed", thrown);
+		}
+	}
+
+	/**
+	 * @return The number of tasks added.
+	 */
+	public int getTaskCount()
+	{
+		return this.taskCount;
+	}
+
+	/**
+	 * @param task - the task index
+	 * @return The name of the task.
+	 */
+	public String getName(int task)
+	{
+		return this.names[task];
+	}
+
+	/**
+	 * @param task - the task index
+	 * @return How long the task took in the latest run, in nanoseconds.
+	 */
+	public long getTaskNanos(int task)
+	{
+		return this.taskNanos[task];
+	}
+
+	/**
+	 * @return The number of worker threads besides the caller of {@link #run()}.
+	 */
+	public int getWorkerCount()
+	{
+		return this.workers.length;
+	}
+
+	private void workLoop()
+	{
+		long seenCycle = 0L;
+
+		while(!Thread.currentThread().isInterrupted())
+		{
+			if(this.cycle == seenCycle)
+			{
+				LockSupport.park(this);
+				continue;
+			}
+
+			seenCycle = this.cycle;
+			this.claimTasks();
+		}
+	}
+
+	private void claimTasks()
+	{
+		while(true)
+		{
+			int task = this.nextTask.get();
+
+			if(task >= this.taskCount)
+			{
+				return;
+			}
+
+			if(!this.nextTask.compareAndSet(task, task + 1))
+			{
+				continue;
+			}
+
+			long cycle = this.cycle;
+
+			for(int dependency : this.dependencies[task])
+			{
+				while(this.finishedCycle.get(dependency) != cycle)
+				{
+					Thread.onSpinWait();
+				}
+			}
+
+			this.runTask(task, cycle);
+			this.finishedTasks.incrementAndGet();
+		}
+	}
+
+	private void runTask(int task, long cycle)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			this.tasks[task].run();
+		}
+		catch(Throwable thrown)
+		{
+			// Still marked finished below, so nothing waits on it forever.
+			if(this.failure.compareAndSet(null, thrown))
+			{
+				this.failedTask = task;
+			}
+		}
+
+		this.taskNanos[task] = System.nanoTime() - start;
+		this.finishedCycle.set(task, cycle);
+	}
+}
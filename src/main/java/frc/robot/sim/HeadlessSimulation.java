@@ -0,0 +1,176 @@
+package frc.robot.sim;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Robot;
+import frc.robot.diagnostics.LoopTimer;
+import frc.robot.diagnostics.TimingHistogram;
+
+
+/**
+ * Steps the whole robot program through disabled, autonomous and teleop on the desktop
+ * simulator as fast as the CPU allows, then reports how much each part of the loop cost.
+ * <p>
+ * Robot time is paused and advanced by exactly one period before every loop, so notifiers
+ * such as the control executor still run the right number of times per loop, but nothing
+ * waits on the wall clock. The Driver Station's controllers are replaced by a scripted
+ * pattern of stick and button inputs. For each mode the report shows loops per second of
+ * wall time, the {@link LoopTimer} phases, the whole loop including WPILib's own work, and
+ * bytes allocated per loop by the robot thread.
+ * <p>
+ * Run with {@code ./gradlew simulateHeadless}, optionally passing {@code -PsimLoops=<n>} to
+ * set the number of loops per mode.
+ */
+public final class HeadlessSimulation
+{
+	/** Loops run in each mode when no count is passed. */
+	public static final int DEFAULT_LOOPS = 3000;
+
+	/** Modes the robot is stepped through, in order. */
+	private enum Mode
+	{
+		DISABLED(LoopTimer.Phase.DISABLED_PERIODIC),
+		AUTONOMOUS(LoopTimer.Phase.AUTONOMOUS_PERIODIC),
+		TELEOP(LoopTimer.Phase.TELEOP_PERIODIC);
+
+		private final LoopTimer.Phase phase;
+
+		private Mode(LoopTimer.Phase phase)
+		{
+			this.phase = phase;
+		}
+	}
+
+	private final Robot robot;
+	private final double period;
+	private final com.sun.management.ThreadMXBean threads;
+	private final GarbageCollectorMXBean[] collectors;
+	private final TimingHistogram loopHistogram = new TimingHistogram("LOOP");
+
+	private HeadlessSimulation(Robot robot)
+	{
+		this.robot = robot;
+		this.period = robot.getPeriod();
+		this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		this.threads.setThreadAllocatedMemoryEnabled(true);
+		this.collectors = ManagementFactory.getGarbageCollectorMXBeans().toArray(new GarbageCollectorMXBean[0]);
+	}
+
+	public static void main(String[] args)
+	{
+		int loops = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LOOPS;
+
+		SimDriverStation.start();
+		setMode(Mode.DISABLED);
+
+		Robot robot = new Robot();
+		robot.robotInit();
+		robot.simulationInit();
+
+		HeadlessSimulation simulation = new HeadlessSimulation(robot);
+		StringBuilder report = new StringBuilder();
+
+		for(Mode mode : Mode.values())
+		{
+			simulation.run(mode, loops, report);
+		}
+
+		// One more disabled loop so the last mode's exit runs.
+		setMode(Mode.DISABLED);
+		simulation.step(0);
+
+		System.out.println(report);
+
+		// The HAL and telemetry threads keep the JVM alive otherwise.
+		System.exit(0);
+	}
+
+	private void run(Mode mode, int loops, StringBuilder report)
+	{
+		setMode(mode);
+		this.robot.getLoopTimer().reset();
+		this.loopHistogram.reset();
+
+		long threadId = Thread.currentThread().getId();
+		long startBytes = this.threads.getThreadAllocatedBytes(threadId);
+		long startGcs = this.getGcCount();
+		long start = System.nanoTime();
+
+		for(int i = 0; i < loops; i++)
+		{
+			this.step(i);
+		}
+
+		long elapsed = System.nanoTime() - start;
+		long bytes = this.threads.getThreadAllocatedBytes(threadId) - startBytes;
+		long gcs = this.getGcCount() - startGcs;
+
+		LoopTimer timer = this.robot.getLoopTimer();
+		report.append(String.format("%s: %d loops in %.2fs, %.0f loops/s, %.0f bytes/loop, %d GCs%n",
+			mode, loops, elapsed / 1e9d, loops / (elapsed / 1e9d), (double) bytes / loops, gcs));
+		report.append("  ").append(timer.getHistogram(mode.phase)).append('\n');
+		report.append("  ").append(timer.getHistogram(LoopTimer.Phase.SCHEDULER)).append('\n');
+		report.append("  ").append(timer.getHistogram(LoopTimer.Phase.CYCLE)).append('\n');
+		report.append("  ").append(this.loopHistogram).append('\n');
+	}
+
+	private void step(int loop)
+	{
+		driveInputs(loop);
+		DriverStationSim.notifyNewData();
+
+		// Runs every notifier due in the period and waits for them to finish.
+		SimHooks.stepTiming(this.period);
+
+		long start = System.nanoTime();
+		this.robot.runLoopOnce();
+		this.loopHistogram.record(System.nanoTime() - start);
+	}
+
+	private static void setMode(Mode mode)
+	{
+		SimDriverStation.setMode(mode != Mode.DISABLED, mode == Mode.AUTONOMOUS, false,
+			mode == Mode.AUTONOMOUS ? 15d : mode == Mode.TELEOP ? 135d : -1d);
+		DriverStationSim.notifyNewData();
+	}
+
+	/**
+	 * Sweeps the sticks in slow circles and cycles through the buttons and D-pad so every
+	 * input path is exercised, including button edges.
+	 */
+	private static void driveInputs(int loop)
+	{
+		double t = loop * 0.01d;
+		double x = Math.cos(t);
+		double y = Math.sin(t);
+
+		for(int port : SimDriverStation.PORTS)
+		{
+			DriverStationSim.setJoystickAxis(port, 0, x);
+			DriverStationSim.setJoystickAxis(port, 1, y);
+			DriverStationSim.setJoystickAxis(port, 2, (x + 1d) / 2d);
+			DriverStationSim.setJoystickAxis(port, 3, (y + 1d) / 2d);
+			DriverStationSim.setJoystickAxis(port, 4, -y);
+			DriverStationSim.setJoystickAxis(port, 5, x);
+
+			// Holds each button for 8 loops, and the second controller lags the first.
+			DriverStationSim.setJoystickButtons(port, 1 << ((loop / 8 + port * 3) % SimDriverStation.BUTTON_COUNT));
+			DriverStationSim.setJoystickPOV(port, 0, (loop / 16) % 9 == 8 ? -1 : (loop / 16) % 9 * 45);
+		}
+	}
+
+	private long getGcCount()
+	{
+		long total = 0L;
+
+		for(GarbageCollectorMXBean collector : this.collectors)
+		{
+			total += Math.max(0L, collector.getCollectionCount());
+		}
+
+		return total;
+	}
+}
@@ -0,0 +1,84 @@
+package frc.robot.sim;
+
+import frc.robot.hardware.SensorBackend;
+import frc.robot.hardware.SensorCache;
+import frc.robot.replay.ReplayLog;
+
+
+/**
+ * A {@link SensorBackend} that plays back the sensor readings recorded in the log of a
+ * running {@link ReplaySimulation}, for whichever loop it is replaying.
+ */
+public class ReplaySensors implements SensorBackend
+{
+	private final ReplaySimulation replay;
+	private final ReplayLog log;
+	private final int moduleCount;
+	private final int[] logIndices;
+
+	/**
+	 * @param replay - the running replay
+	 */
+	public ReplaySensors(ReplaySimulation replay)
+	{
+		this.replay = replay;
+		this.log = replay.getLog();
+
+		int modules = 0;
+
+		while(this.log.findSensor(SensorCache.getName(SensorCache.drivePositionIndex(modules))) >= 0)
+		{
+			modules++;
+		}
+
+		this.moduleCount = modules;
+		this.logIndices = new int[SensorCache.drivePositionIndex(modules)];
+
+		for(int i = SensorCache.YAW; i < this.logIndices.length; i++)
+		{
+			this.logIndices[i] = this.log.findSensor(SensorCache.getName(i));
+		}
+	}
+
+	private double read(int index)
+	{
+		int sensor = this.logIndices[index];
+		return sensor < 0 ? 0d : this.log.getSensor(this.replay.getCycle(), sensor);
+	}
+
+	@Override
+	public int getModuleCount()
+	{
+		return this.moduleCount;
+	}
+
+	@Override
+	public double readYaw()
+	{
+		return this.read(SensorCache.YAW);
+	}
+
+	@Override
+	public double readYawRate()
+	{
+		return this.read(SensorCache.YAW_RATE);
+	}
+
+	@Override
+	public double readDrivePosition(int module)
+	{
+		return this.read(SensorCache.drivePositionIndex(module));
+	}
+
+	@Override
+	public double readDriveVelocity(int module)
+	{
+		return this.read(SensorCache.driveVelocityIndex(module));
+	}
+
+	@Override
+	public double readSteerPosition(int module)
+	{
+		return this.read(SensorCache.steerPositionIndex(module));
+	}
+}
@@ -0,0 +1,194 @@
+package frc.robot.sim;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Robot;
+import frc.robot.diagnostics.TimingHistogram;
+import frc.robot.replay.CycleRecorder;
+import frc.robot.replay.ReplayLog;
+
+
+/**
+ * Replays a log written by {@link CycleRecorder} through the robot program on the desktop
+ * simulator, one recorded loop at a time.
+ * <p>
+ * Before each loop the recorded controller state, mode and match time are loaded into the
+ * simulated Driver Station and robot time is advanced by exactly the recorded gap between
+ * loops, so the robot sees the same inputs at the same timestamps as it did on the field.
+ * Nothing depends on the wall clock, so a replay runs the same way every time.
+ * <p>
+ * To profile a particular loop, pass its index: the replay stops right before it and waits
+ * for Enter so a profiler can be attached. After the replay, the loop timing and the
+ * slowest loops are printed.
+ * <p>
+ * Run with {@code ./gradlew replay -PreplayLog=<file> [-PreplayPause=<loop>]}.
+ */
+public final class ReplaySimulation
+{
+	/** Number of slowest loops listed in the report. */
+	private static final int SLOWEST_COUNT = 10;
+
+	private static ReplaySimulation active;
+
+	private final Robot robot;
+	private final ReplayLog log;
+	private final TimingHistogram loopHistogram = new TimingHistogram("LOOP");
+	private final int[] slowestCycles = new int[SLOWEST_COUNT];
+	private final long[] slowestNanos = new long[SLOWEST_COUNT];
+
+	private int cycle;
+
+	private ReplaySimulation(Robot robot, ReplayLog log)
+	{
+		this.robot = robot;
+		this.log = log;
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if(args.length < 1)
+		{
+			System.err.println("Usage: ReplaySimulation <cycle log> [loop to pause before]");
+			System.exit(1);
+		}
+
+		ReplayLog log = ReplayLog.open(Paths.get(args[0]));
+		int pauseCycle = args.length > 1 ? Integer.parseInt(args[1]) : -1;
+
+		System.out.println("Replaying " + log.getCycleCount() + " loops from " + log.getPath());
+
+		// Don't record the replay over the top of real logs.
+		CycleRecorder.getInstance().disable();
+
+		SimDriverStation.start();
+		applyInputs(log, 0);
+
+		Robot robot = new Robot();
+		ReplaySimulation replay = new ReplaySimulation(robot, log);
+		active = replay;
+
+		robot.robotInit();
+		robot.simulationInit();
+		replay.run(pauseCycle);
+
+		System.exit(0);
+	}
+
+	/**
+	 * @return The replay that is running, or null when the robot isn't being replayed.
+	 */
+	public static ReplaySimulation getActive()
+	{
+		return active;
+	}
+
+	/**
+	 * @return The log being replayed.
+	 */
+	public ReplayLog getLog()
+	{
+		return this.log;
+	}
+
+	/**
+	 * @return The index in the log of the loop being replayed.
+	 */
+	public int getCycle()
+	{
+		return this.cycle;
+	}
+
+	private void run(int pauseCycle) throws IOException
+	{
+		double period = this.robot.getPeriod();
+
+		for(int i = 0; i < this.log.getCycleCount(); i++)
+		{
+			this.cycle = i;
+			applyInputs(this.log, i);
+
+			double delta = i == 0 ? period : this.log.getTimestamp(i) - this.log.getTimestamp(i - 1);
+
+			if(delta > 0d)
+			{
+				// Runs every notifier due in the gap and waits for them to finish.
+				SimHooks.stepTiming(delta);
+			}
+
+			if(i == pauseCycle)
+			{
+				System.out.println("Paused before loop " + i + ". Attach a profiler, then press Enter.");
+				System.in.read();
+			}
+
+			long start = System.nanoTime();
+			this.robot.runLoopOnce();
+			long nanos = System.nanoTime() - start;
+
+			this.loopHistogram.record(nanos);
+			this.recordSlowest(i, nanos);
+		}
+
+		this.robot.getLoopTimer().report();
+		System.out.println(this.loopHistogram);
+		System.out.println("Slowest loops:");
+
+		for(int i = 0; i < SLOWEST_COUNT && this.slowestNanos[i] > 0L; i++)
+		{
+			int slow = this.slowestCycles[i];
+			System.out.printf("  loop %d (robot loop %d, match time %.2fs, flags %d): %.2fms%n",
+				slow, this.log.getLoopNumber(slow), this.log.getMatchTime(slow), this.log.getFlags(slow),
+				this.slowestNanos[i] / 1e6d);
+		}
+	}
+
+	private void recordSlowest(int cycle, long nanos)
+	{
+		int position = SLOWEST_COUNT;
+
+		while(position > 0 && nanos > this.slowestNanos[position - 1])
+		{
+			position--;
+		}
+
+		if(position == SLOWEST_COUNT)
+		{
+			return;
+		}
+
+		System.arraycopy(this.slowestNanos, position, this.slowestNanos, position + 1, SLOWEST_COUNT - position - 1);
+		System.arraycopy(this.slowestCycles, position, this.slowestCycles, position + 1, SLOWEST_COUNT - position - 1);
+		this.slowestNanos[position] = nanos;
+		this.slowestCycles[position] = cycle;
+	}
+
+	private static void applyInputs(ReplayLog log, int cycle)
+	{
+		int flags = log.getFlags(cycle);
+
+		SimDriverStation.setMode(
+			(flags & CycleRecorder.FLAG_ENABLED) != 0,
+			(flags & CycleRecorder.FLAG_AUTONOMOUS) != 0,
+			(flags & CycleRecorder.FLAG_TEST) != 0,
+			log.getMatchTime(cycle));
+		DriverStationSim.setDsAttached((flags & CycleRecorder.FLAG_DS_ATTACHED) != 0);
+
+		for(int controller = 0; controller < SimDriverStation.PORTS.length; controller++)
+		{
+			int port = SimDriverStation.PORTS[controller];
+
+			for(int axis = 0; axis < CycleRecorder.AXIS_COUNT; axis++)
+			{
+				DriverStationSim.setJoystickAxis(port, axis, log.getAxis(cycle, controller, axis));
+			}
+
+			DriverStationSim.setJoystickButtons(port, log.getButtons(cycle, controller));
+			DriverStationSim.setJoystickPOV(port, 0, log.getPOV(cycle, controller));
+		}
+
+		DriverStationSim.notifyNewData();
+	}
+}
@@ -0,0 +1,68 @@
+package frc.robot.sim;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Constants;
+
+
+/**
+ * Sets up the simulated HAL and Driver Station for the desktop runners, which step robot
+ * time themselves instead of letting it follow the wall clock.
+ */
+public final class SimDriverStation
+{
+	/** Number of axes on each simulated controller. */
+	public static final int AXIS_COUNT = 6;
+
+	/** Number of buttons on each simulated controller. */
+	public static final int BUTTON_COUNT = 10;
+
+	/** Ports of the driver controllers. */
+	public static final int[] PORTS = {Constants.CONTROLLER_1_PORT, Constants.CONTROLLER_2_PORT};
+
+	private SimDriverStation()
+	{
+	}
+
+	/**
+	 * Initializes the simulated HAL, pauses robot time and attaches a Driver Station with
+	 * both controllers plugged in. Call before the robot is constructed.
+	 */
+	public static void start()
+	{
+		if(!HAL.initialize(500, 0))
+		{
+			throw new IllegalStateException("Failed to initialize the simulated HAL");
+		}
+
+		SimHooks.pauseTiming();
+		DriverStationSim.setDsAttached(true);
+
+		for(int port : PORTS)
+		{
+			DriverStationSim.setJoystickAxisCount(port, AXIS_COUNT);
+			DriverStationSim.setJoystickButtonCount(port, BUTTON_COUNT);
+			DriverStationSim.setJoystickPOVCount(port, 1);
+		}
+
+		DriverStationSim.notifyNewData();
+	}
+
+	/**
+	 * Sets the robot mode and match time. Takes effect at the next
+	 * {@link DriverStationSim#notifyNewData()}.
+	 *
+	 * @param enabled - whether the robot is enabled
+	 * @param autonomous - whether the robot is in autonomous
+	 * @param test - whether the robot is in test
+	 * @param matchTime - the match time in seconds, or -1
+	 */
+	public static void setMode(boolean enabled, boolean autonomous, boolean test, double matchTime)
+	{
+		DriverStationSim.setEnabled(enabled);
+		DriverStationSim.setAutonomous(autonomous);
+		DriverStationSim.setTest(test);
+		DriverStationSim.setMatchTime(matchTime);
+	}
+}
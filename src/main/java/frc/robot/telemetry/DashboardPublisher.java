@@ -0,0 +1,191 @@
+package frc.robot.telemetry;
+
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.PubSubOption;
+
+
+/**
+ * Sends values to the dashboard over NetworkTables without costing the loop much.
+ * <p>
+ * Every signal gets its own NetworkTables publisher when it is added during startup, so
+ * setting a value is an array write instead of the key lookup, string hashing and boxing
+ * behind {@code SmartDashboard.putNumber()}. The robot loop {@link #set(int, double) sets}
+ * values as often as it likes, and {@link #periodic()} only hands them to NetworkTables
+ * once every publish period, and then only the numbers that moved more than their
+ * threshold since they were last sent and the booleans that flipped. The period is timed
+ * with {@link System#nanoTime()} rather than by counting calls, so loops skipped by the
+ * deferred work queue don't stretch it. The publishers are created with the same period,
+ * so NetworkTables batches them onto the radio at that rate as well.
+ * <p>
+ * The NetworkTables server keeps the last value of every signal, so a dashboard that
+ * connects late still sees values that stopped changing.
+ * <p>
+ * Only the robot loop thread may use this.
+ */
+public class DashboardPublisher
+{
+	private final NetworkTable table;
+	private final double periodSeconds;
+	private final long periodNanos;
+
+	private final DoublePublisher[] numberPublishers;
+	private final BooleanPublisher[] booleanPublishers;
+	private final double[] thresholds;
+	private final double[] values;
+	private final double[] sentValues;
+	private final boolean[] sent;
+
+	private int count;
+	private long nextPublishNanos;
+	private long publishCount;
+
+	/**
+	 * @param tableName - the NetworkTables table to publish under, e.g. "Robot"
+	 * @param periodSeconds - how often to publish, in seconds
+	 * @param capacity - the most signals that will be added
+	 */
+	public DashboardPublisher(String tableName, double periodSeconds, int capacity)
+	{
+		this.table = NetworkTableInstance.getDefault().getTable(tableName);
+		this.periodSeconds = periodSeconds;
+		this.periodNanos = (long) (periodSeconds * 1e9d);
+
+		this.numberPublishers = new DoublePublisher[capacity];
+		this.booleanPublishers = new BooleanPublisher[capacity];
+		this.thresholds = new double[capacity];
+		this.values = new double[capacity];
+		this.sentValues = new double[capacity];
+		this.sent = new boolean[capacity];
+	}
+
+	/**
+	 * Adds a number signal. Call during startup; this allocates.
+	 *
+	 * @param name - the key under the table, e.g. "pose/x"
+	 * @param threshold - the smallest change worth sending, in the signal's units
+	 * @return The id to set the signal with.
+	 */
+	public int addNumber(String name, double threshold)
+	{
+		int id = this.reserve(name);
+		this.numberPublishers[id] = this.table.getDoubleTopic(name).publish(PubSubOption.periodic(this.periodSeconds));
+		this.thresholds[id] = threshold;
+		return id;
+	}
+
+	/**
+	 * Adds a boolean signal, sent whenever it flips. Call during startup; this allocates.
+	 *
+	 * @param name - the key under the table, e.g. "intake/hasPiece"
+	 * @return The id to set the signal with.
+	 */
+	public int addBoolean(String name)
+	{
+		int id = this.reserve(name);
+		this.booleanPublishers[id] = this.table.getBooleanTopic(name).publish(PubSubOption.periodic(this.periodSeconds));
+		return id;
+	}
+
+	private int reserve(String name)
+	{
+		if(this.count == this.values.length)
+		{
+			throw new IllegalStateException("Dashboard publisher capacity " + this.values.length + " exceeded adding " + name);
+		}
+
+		return this.count++;
+	}
+
+	/**
+	 * Sets a number signal's value. Nothing is sent until the next publish.
+	 *
+	 * @param signal - the id from {@link #addNumber(String, double) addNumber()}
+	 * @param value - the value
+	 */
+	public void set(int signal, double value)
+	{
+		this.values[signal] = value;
+	}
+
+	/**
+	 * Sets a boolean signal's value. Nothing is sent until the next publish.
+	 *
+	 * @param signal - the id from {@link #addBoolean(String) addBoolean()}
+	 * @param value - the value
+	 */
+	public void set(int signal, boolean value)
+	{
+		this.values[signal] = value ? 1d : 0d;
+	}
+
+	/**
+	 * Publishes the changed signals if a publish period has passed since the last publish.
+	 * Call once per loop, after every signal has been set.
+	 *
+	 * @return The number of signals sent, 0 on loops that don't publish.
+	 */
+	public int periodic()
+	{
+		long now = System.nanoTime();
+
+		// nanoTime() may wrap, so only the difference between two readings is meaningful.
+		if(this.publishCount > 0L && now - this.nextPublishNanos < 0L)
+		{
+			return 0;
+		}
+
+		// Stay on the period's beat, unless a stall left us more than a period behind.
+		this.nextPublishNanos = this.publishCount > 0L && now - this.nextPublishNanos < this.periodNanos
+			? this.nextPublishNanos + this.periodNanos
+			: now + this.periodNanos;
+		this.publishCount++;
+
+		int written = 0;
+
+		for(int i = 0; i < this.count; i++)
+		{
+			double value = this.values[i];
+			double last = this.sentValues[i];
+
+			// NaN never equals itself, so compare() keeps a NaN signal from being resent forever.
+			if(this.sent[i] && (Double.compare(value, last) == 0 || Math.abs(value - last) <= this.thresholds[i]))
+			{
+				continue;
+			}
+
+			if(this.numberPublishers[i] != null)
+			{
+				this.numberPublishers[i].set(value);
+			}
+			else
+			{
+				this.booleanPublishers[i].set(value != 0d);
+			}
+
+			this.sentValues[i] = value;
+			this.sent[i] = true;
+			written++;
+		}
+
+		return written;
+	}
+
+	/**
+	 * @return The number of signals added.
+	 */
+	public int getCount()
+	{
+		return this.count;
+	}
+
+	/**
+	 * @return The number of publishes so far.
+	 */
+	public long getPublishCount()
+	{
+		return this.publishCount;
+	}
+}
@@ -0,0 +1,103 @@
+package frc.robot.telemetry;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotBase;
+
+
+/**
+ * Where the robot's logs are written.
+ * <p>
+ * Logs must stay out of the deploy directory. In simulation that is
+ * {@code src/main/deploy}, and everything in it is copied to the roboRIO on the next
+ * deploy. On the robot, logs go to {@code /home/lvuser/logs}. On the desktop (simulation,
+ * headless simulation, replay and tests) they go to {@code build/logs} under the directory
+ * the program was started from, which Gradle sets to the project directory.
+ * <p>
+ * Each boot's log is named {@code <kind>-<boot>-<date>-<time>}, where the boot number is
+ * one more than the highest of that kind already in the directory. The clock may not be
+ * set yet at boot, so the boot number is what keeps names apart. Only the newest logs of
+ * each kind are kept; older ones are deleted when a new one is named.
+ */
+public final class LogFiles
+{
+	private LogFiles()
+	{
+	}
+
+	/**
+	 * @return The directory logs are written to. It may not exist yet.
+	 */
+	public static Path getDirectory()
+	{
+		Path operating = Filesystem.getOperatingDirectory().toPath();
+		return RobotBase.isReal() ? operating.resolve("logs") : operating.resolve("build").resolve("logs");
+	}
+
+	/**
+	 * Names a new log and deletes the logs of the same kind that would be older than the
+	 * newest {@code keep} once it is added. Creates the log directory if needed.
+	 *
+	 * @param kind - the kind of log, e.g. "telemetry"
+	 * @param keep - the number of logs of this kind to keep, including the new one
+	 * @param startMillis - wall clock time the log is opened, in ms since the epoch
+	 * @return The path of the new log without an extension; every file of one log shares it.
+	 * @throws IOException if the directory can't be created or listed
+	 */
+	public static Path newLog(String kind, int keep, long startMillis) throws IOException
+	{
+		Path directory = getDirectory();
+		Files.createDirectories(directory);
+
+		Pattern pattern = Pattern.compile(Pattern.quote(kind) + "-(\\d+)-\\d{8}-\\d{6}\\.\\w+");
+		List<Path> logs = new ArrayList<>();
+		List<Integer> boots = new ArrayList<>();
+		int newest = 0;
+
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(directory))
+		{
+			for(Path file : files)
+			{
+				Matcher matcher = pattern.matcher(file.getFileName().toString());
+
+				if(matcher.matches())
+				{
+					int boot = Integer.parseInt(matcher.group(1));
+					logs.add(file);
+					boots.add(boot);
+					newest = Math.max(newest, boot);
+				}
+			}
+		}
+
+		int boot = newest + 1;
+
+		for(int i = 0; i < logs.size(); i++)
+		{
+			if(boots.get(i) <= boot - keep)
+			{
+				try
+				{
+					Files.deleteIfExists(logs.get(i));
+				}
+				catch(IOException e)
+				{
+					DriverStation.reportWarning("Unable to delete old " + kind + " log: " + e.getMessage(), false);
+				}
+			}
+		}
+
+		return directory.resolve(kind + "-" + boot + "-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date(startMillis)));
+	}
+}
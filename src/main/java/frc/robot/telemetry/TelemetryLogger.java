@@ -0,0 +1,323 @@
+package frc.robot.telemetry;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+
+/**
+ * Structured binary telemetry log.
+ * <p>
+ * The robot loop logs numbers against channels registered during startup. Logging only
+ * copies the value into a preallocated ring buffer, so it never formats strings, allocates
+ * or touches the file system. A background thread drains the ring buffer into a
+ * memory-mapped file in the {@link LogFiles#getDirectory() log directory}. If the loop ever
+ * gets a whole ring buffer ahead of the writer, new records are dropped and counted instead
+ * of blocking the loop.
+ * <p>
+ * The log file is itself a ring: once full, the oldest records are overwritten. It starts
+ * with a {@value #HEADER_BYTES} byte header, big endian:
+ * <pre>
+ *  0  magic "FRCTLM01"
+ *  8  int    record size ({@value #RECORD_BYTES})
+ * 12  int    record capacity of the file
+ * 16  long   total records written (the next record goes at this index modulo capacity)
+ * 24  long   records dropped because the ring buffer was full
+ * 32  long   wall clock time the log was opened, in ms since the epoch
+ * </pre>
+ * followed by records of:
+ * <pre>
+ *  0  long   time since the log was opened, in µs
+ *  8  int    channel id
+ * 12  int    record kind ({@link #KIND_VALUE} or {@link #KIND_EVENT})
+ * 16  double value
+ * </pre>
+ * Channel names are written to a text file next to the log, one {@code id name} per line.
+ * <p>
+ * Each boot writes a new pair of files named by {@link LogFiles#newLog(String, int, long)
+ * LogFiles}, {@code telemetry-<boot>-<date>-<time>}. Files are created only if they don't
+ * exist, so an earlier log is never written over. Only the newest {@link #MAX_LOG_FILES}
+ * logs are kept; older ones are deleted when a new one is opened.
+ * <p>
+ * Only one thread may log; on the robot that is the main loop thread.
+ */
+public class TelemetryLogger
+{
+	/** Size of one record in bytes. */
+	public static final int RECORD_BYTES = 24;
+
+	/** Size of the file header in bytes. */
+	public static final int HEADER_BYTES = 64;
+
+	/** Record kind for a sampled value. */
+	public static final int KIND_VALUE = 0;
+
+	/** Record kind for an event, where the value is optional. */
+	public static final int KIND_EVENT = 1;
+
+	/** Number of logs kept, including the one being written; about 24MB each. */
+	public static final int MAX_LOG_FILES = 4;
+
+	private static final byte[] MAGIC = "FRCTLM01".getBytes(StandardCharsets.US_ASCII);
+
+	/** Number of records the in-memory ring buffer holds; must be a power of two. */
+	private static final int RING_CAPACITY = 1 << 14;
+
+	/** Number of records the log file holds: 1M records, 24MB. */
+	private static final int FILE_CAPACITY = 1 << 20;
+
+	/** How long the writer sleeps when the ring buffer is empty. */
+	private static final long WRITER_IDLE_NANOS = 5_000_000L;
+
+	private static TelemetryLogger instance;
+
+	private final int mask = RING_CAPACITY - 1;
+	private final long[] times = new long[RING_CAPACITY];
+	private final int[] channels = new int[RING_CAPACITY];
+	private final int[] kinds = new int[RING_CAPACITY];
+	private final double[] values = new double[RING_CAPACITY];
+
+	// The producer only writes head, the consumer only writes tail.
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+
+	private final long startNanos = System.nanoTime();
+	private final long startMillis = System.currentTimeMillis();
+	private final List<String> channelNames = new ArrayList<>();
+
+	private Path logPath;
+	private Path channelPath;
+	private Thread writer;
+
+	/**
+	 * @return The robot's telemetry logger.
+	 */
+	public static synchronized TelemetryLogger getInstance()
+	{
+		if(instance == null)
+		{
+			instance = new TelemetryLogger();
+		}
+
+		return instance;
+	}
+
+	private TelemetryLogger()
+	{
+	}
+
+	/**
+	 * Registers a channel. Call this during startup, not from the loop; it writes to disk
+	 * once the logger is started.
+	 *
+	 * @param name - the channel name, e.g. "drive/leftSpeed"
+	 * @return The channel id to log against.
+	 */
+	public synchronized int registerChannel(String name)
+	{
+		int id = this.channelNames.indexOf(name);
+
+		if(id >= 0)
+		{
+			return id;
+		}
+
+		this.channelNames.add(name);
+		id = this.channelNames.size() - 1;
+
+		if(this.channelPath != null)
+		{
+			this.appendChannel(id, name);
+		}
+
+		return id;
+	}
+
+	/**
+	 * Opens the log file in the log directory and starts the writer thread. Records
+	 * logged before this are kept as long as they fit in the ring buffer.
+	 */
+	public synchronized void start()
+	{
+		if(this.writer != null)
+		{
+			return;
+		}
+
+		try
+		{
+			Path base = LogFiles.newLog("telemetry", MAX_LOG_FILES, this.startMillis);
+			this.logPath = base.resolveSibling(base.getFileName() + ".bin");
+			this.channelPath = base.resolveSibling(base.getFileName() + ".channels");
+
+			StringBuilder names = new StringBuilder();
+
+			for(int i = 0; i < this.channelNames.size(); i++)
+			{
+				names.append(i).append(' ').append(this.channelNames.get(i)).append('\n');
+			}
+
+			Files.write(this.channelPath, names.toString().getBytes(StandardCharsets.UTF_8),
+				StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+			MappedByteBuffer file;
+
+			try(FileChannel channel = FileChannel.open(this.logPath,
+				StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE))
+			{
+				file = channel.map(FileChannel.MapMode.READ_WRITE, 0L, HEADER_BYTES + (long) FILE_CAPACITY * RECORD_BYTES);
+			}
+
+			file.put(MAGIC);
+			file.putInt(8, RECORD_BYTES);
+			file.putInt(12, FILE_CAPACITY);
+			file.putLong(16, 0L);
+			file.putLong(24, 0L);
+			file.putLong(32, this.startMillis);
+
+			this.writer = new Thread(() -> this.drainLoop(file), "TelemetryLogger");
+			this.writer.setDaemon(true);
+			this.writer.setPriority(Thread.MIN_PRIORITY);
+			this.writer.start();
+		}
+		catch(IOException e)
+		{
+			DriverStation.reportError("Unable to open telemetry log: " + e.getMessage(), false);
+		}
+	}
+
+	/**
+	 * Logs a value. Never blocks or allocates.
+	 *
+	 * @param channel - the channel id from {@link #registerChannel(String) registerChannel()}
+	 * @param value - the value to log
+	 * @return Whether the record fit in the ring buffer.
+	 */
+	public boolean log(int channel, double value)
+	{
+		return this.put(channel, KIND_VALUE, value);
+	}
+
+	/**
+	 * Logs a value. Never blocks or allocates.
+	 *
+	 * @param channel - the channel id from {@link #registerChannel(String) registerChannel()}
+	 * @param value - the value to log
+	 * @return Whether the record fit in the ring buffer.
+	 */
+	public boolean log(int channel, boolean value)
+	{
+		return this.put(channel, KIND_VALUE, value ? 1d : 0d);
+	}
+
+	/**
+	 * Logs that an event happened. Never blocks or allocates.
+	 *
+	 * @param channel - the channel id from {@link #registerChannel(String) registerChannel()}
+	 * @return Whether the record fit in the ring buffer.
+	 */
+	public boolean event(int channel)
+	{
+		return this.put(channel, KIND_EVENT, 0d);
+	}
+
+	/**
+	 * Logs that an event happened, with a value attached. Never blocks or allocates.
+	 *
+	 * @param channel - the channel id from {@link #registerChannel(String) registerChannel()}
+	 * @param value - the value to attach
+	 * @return Whether the record fit in the ring buffer.
+	 */
+	public boolean event(int channel, double value)
+	{
+		return this.put(channel, KIND_EVENT, value);
+	}
+
+	private boolean put(int channel, int kind, double value)
+	{
+		long index = this.head.get();
+
+		if(index - this.tail.get() >= RING_CAPACITY)
+		{
+			this.dropped.incrementAndGet();
+			return false;
+		}
+
+		int slot = (int) index & this.mask;
+		this.times[slot] = (System.nanoTime() - this.startNanos) / 1000L;
+		this.channels[slot] = channel;
+		this.kinds[slot] = kind;
+		this.values[slot] = value;
+
+		// Publishes the slot to the writer thread.
+		this.head.lazySet(index + 1L);
+		return true;
+	}
+
+	/**
+	 * @return The number of records dropped because the ring buffer was full.
+	 */
+	public long getDroppedCount()
+	{
+		return this.dropped.get();
+	}
+
+	private void drainLoop(MappedByteBuffer file)
+	{
+		long written = 0L;
+
+		while(!Thread.currentThread().isInterrupted())
+		{
+			long from = this.tail.get();
+			long to = this.head.get();
+
+			if(from == to)
+			{
+				LockSupport.parkNanos(WRITER_IDLE_NANOS);
+				continue;
+			}
+
+			for(long index = from; index < to; index++)
+			{
+				int slot = (int) index & this.mask;
+				int position = HEADER_BYTES + (int) (written % FILE_CAPACITY) * RECORD_BYTES;
+
+				file.putLong(position, this.times[slot]);
+				file.putInt(position + 8, this.channels[slot]);
+				file.putInt(position + 12, this.kinds[slot]);
+				file.putDouble(position + 16, this.values[slot]);
+				written++;
+			}
+
+			// Frees the slots for the producer.
+			this.tail.lazySet(to);
+
+			file.putLong(16, written);
+			file.putLong(24, this.dropped.get());
+		}
+	}
+
+	private void appendChannel(int id, String name)
+	{
+		try
+		{
+			Files.write(this.channelPath, (id + " " + name + "\n").getBytes(StandardCharsets.UTF_8),
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		}
+		catch(IOException e)
+		{
+			DriverStation.reportError("Unable to write telemetry channel " + name + ": " + e.getMessage(), false);
+		}
+	}
+}
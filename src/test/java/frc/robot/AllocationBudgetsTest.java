@@ -0,0 +1,335 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntConsumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+
+import edu.wpi.first.wpilibj.XboxController;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.auto.PurePursuitFollower;
+import frc.robot.auto.PursuitPath;
+import frc.robot.diagnostics.SchedulerProfiler;
+import frc.robot.hardware.MotorDevice;
+import frc.robot.hardware.MotorOutputs;
+import frc.robot.hardware.MotorRole;
+import frc.robot.math.MutableVec2d;
+import frc.robot.math.SwerveKinematics;
+import frc.robot.math.Vec2d;
+import frc.robot.math.Vec2dPool;
+import frc.robot.navigation.FieldGridBuilder;
+import frc.robot.navigation.GridPlanner;
+import frc.robot.odometry.PoseEstimator;
+import frc.robot.sim.SimDriverStation;
+
+
+/**
+ * Checks that the robot loop's hot paths stay within their allocation budgets.
+ * <p>
+ * Each hot path is run until the JIT has compiled it, then run again while the bytes the
+ * thread allocates are counted through {@code com.sun.management.ThreadMXBean}. A path
+ * fails if it allocates more per cycle than its budget. Our own paths are budgeted at zero.
+ * The robot loop is measured whole, with the real {@link RobotContainer} built on the stub
+ * sensors. WPILib's scheduler may allocate on its own, so the loop's budget is what an
+ * empty {@code CommandScheduler.run()} allocates, measured in the same test run.
+ */
+class AllocationBudgetsTest
+{
+	/** Cycles measured for each path. */
+	private static final int MEASURED_CYCLES = 10_000;
+
+	/** Cycles measured for paths that take around a millisecond each. */
+	private static final int SLOW_PATH_CYCLES = 500;
+
+	/** Cycles run before measuring, per measured cycle, so the JIT has compiled each path. */
+	private static final int WARMUP_FACTOR = 2;
+
+	/**
+	 * Times each path is measured. The lowest count is used, so a one-off allocation, such
+	 * as the JIT deoptimizing a method mid-measurement, doesn't fail a path that allocates
+	 * nothing per cycle.
+	 */
+	private static final int ROUNDS = 3;
+
+	private static com.sun.management.ThreadMXBean threads;
+
+	// Results go here so the JIT can't drop the work.
+	private double sink;
+
+	private static final class NullMotor implements MotorDevice
+	{
+		private final String name;
+
+		private NullMotor(String name)
+		{
+			this.name = name;
+		}
+
+		@Override
+		public String getName()
+		{
+			return this.name;
+		}
+
+		@Override
+		public void set(ControlMode mode, double value)
+		{
+		}
+
+		@Override
+		public void configureStatusFrames(MotorRole role)
+		{
+		}
+	}
+
+	@BeforeAll
+	static void setUp()
+	{
+		SimDriverStation.start();
+
+		threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		threads.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	/**
+	 * Leaves the command scheduler the way the next test expects it: nothing scheduled and
+	 * no profiler hooked in.
+	 */
+	@AfterEach
+	void tearDown()
+	{
+		CommandScheduler.getInstance().cancelAll();
+		SchedulerProfiler.getInstance().uninstall();
+	}
+
+	@Test
+	void vec2dReadsDoNotAllocate()
+	{
+		Vec2d a = new Vec2d(3.25d, -1.5d);
+		Vec2d b = new Vec2d(-2d, 4.75d);
+
+		this.assertWithinBudget("Vec2d reads", 0L, MEASURED_CYCLES, cycle ->
+		{
+			this.sink += a.getAngle() + a.dot(b) + a.cross(cycle, 1d) + a.getLength() + a.distanceTo(b);
+		});
+	}
+
+	@Test
+	void mutableVec2dAndPoolDoNotAllocate()
+	{
+		Vec2d a = new Vec2d(3.25d, -1.5d);
+		Vec2d b = new Vec2d(-2d, 4.75d);
+		Vec2dPool pool = new Vec2dPool(8);
+
+		this.assertWithinBudget("MutableVec2d and Vec2dPool", 0L, MEASURED_CYCLES, cycle ->
+		{
+			pool.reset();
+			MutableVec2d vec = pool.take().set(a).addInPlace(b).scaleInPlace(cycle).normalizeInPlace();
+			this.sink += vec.rotateInPlace(0.3d, false).getAngle() + pool.take().set(b).getLength();
+		});
+	}
+
+	@Test
+	void doubleControllerDoesNotAllocate()
+	{
+		DoubleController controller = new DoubleController(new XboxController(0), new XboxController(1));
+		double[] axes1 = new double[6];
+		double[] axes2 = new double[6];
+
+		this.assertWithinBudget("DoubleController snapshot and reads", 0L, MEASURED_CYCLES, cycle ->
+		{
+			axes1[0] = (cycle % 20) * 0.1d - 1d;
+			axes2[1] = -axes1[0];
+			controller.loadSnapshot(axes1, axes2, cycle & 0xFF, 0, cycle % 8 * 45, -1);
+			controller.dispatchEvents();
+			this.sink += controller.getLeftX() + controller.getLeftY() + controller.getLeftTrigger()
+				+ controller.getButtons() + (controller.getAButton() ? 1d : 0d) + (controller.getDUp() ? 1d : 0d);
+		});
+	}
+
+	@Test
+	void swerveKinematicsDoesNotAllocate()
+	{
+		SwerveKinematics kinematics = new SwerveKinematics(
+			new Vec2d(11.5d, 11.5d),
+			new Vec2d(-11.5d, 11.5d),
+			new Vec2d(-11.5d, -11.5d),
+			new Vec2d(11.5d, -11.5d));
+
+		this.assertWithinBudget("SwerveKinematics", 0L, MEASURED_CYCLES, cycle ->
+		{
+			kinematics.toModuleStates(cycle % 100, 20d, 1.5d, 150d);
+
+			for(int i = 0; i < kinematics.getModuleCount(); i++)
+			{
+				kinematics.setMeasuredSteerTicks(i, kinematics.getSteerTicks(i));
+				kinematics.setMeasuredDriveVelocity(i, kinematics.getDriveTicksPer100ms(i));
+			}
+
+			kinematics.toChassisSpeeds();
+			this.sink += kinematics.getChassisVx();
+		});
+	}
+
+	@Test
+	void poseEstimatorDoesNotAllocate()
+	{
+		PoseEstimator poseEstimator = new PoseEstimator(4, 256);
+		double[] driveTicks = new double[4];
+		double[] moduleAngles = new double[4];
+		MutableVec2d pose = new MutableVec2d();
+
+		this.assertWithinBudget("PoseEstimator", 0L, MEASURED_CYCLES, cycle ->
+		{
+			for(int i = 0; i < driveTicks.length; i++)
+			{
+				driveTicks[i] += 40d;
+				moduleAngles[i] = cycle * 1e-3d;
+			}
+
+			poseEstimator.update(cycle * 0.02d, driveTicks, moduleAngles, cycle * 1e-3d);
+			this.sink += poseEstimator.getLatestPose(pose);
+		});
+	}
+
+	@Test
+	void purePursuitFollowerDoesNotAllocate()
+	{
+		PursuitPath path = PursuitPath.fromWaypoints(0d, Math.PI, new Vec2d(0d, 0d), new Vec2d(200d, 0d), new Vec2d(200d, 200d));
+		PurePursuitFollower follower = new PurePursuitFollower(18d, 120d, 100d, 4d, 6d);
+		MutableVec2d position = new MutableVec2d();
+
+		this.assertWithinBudget("PurePursuitFollower", 0L, MEASURED_CYCLES, cycle ->
+		{
+			if(cycle % 1000 == 0)
+			{
+				follower.start(path);
+				position.set(0d, 0d);
+			}
+
+			follower.update(position, 0d);
+			position.addInPlace(follower.getVx() * 0.02d, follower.getVy() * 0.02d);
+			this.sink += follower.getProgress();
+		});
+	}
+
+	@Test
+	void gridPlannerDoesNotAllocate()
+	{
+		GridPlanner planner = new GridPlanner(FieldGridBuilder.build());
+
+		this.assertWithinBudget("GridPlanner", 0L, SLOW_PATH_CYCLES, cycle ->
+		{
+			this.sink += planner.plan(300d, 280d - cycle % 40, 76d, 108d);
+		});
+	}
+
+	@Test
+	void motorOutputsDoNotAllocate()
+	{
+		MotorOutputs outputs = new MotorOutputs(8);
+
+		for(int i = 0; i < 8; i++)
+		{
+			outputs.add(new NullMotor("motor" + i), MotorRole.DRIVE);
+		}
+
+		this.assertWithinBudget("MotorOutputs", 0L, MEASURED_CYCLES, cycle ->
+		{
+			for(int i = 0; i < outputs.getCount(); i++)
+			{
+				outputs.set(i, (cycle % 7) * 0.1d);
+			}
+
+			this.sink += outputs.flush();
+		});
+	}
+
+	@Test
+	void robotLoopStaysWithinTheSchedulerBudget()
+	{
+		CommandScheduler scheduler = CommandScheduler.getInstance();
+
+		// What WPILib allocates on its own for a scheduler run with nothing registered.
+		long wpilibBytes = this.measureBytesPerCycle(MEASURED_CYCLES, cycle -> scheduler.run());
+
+		// The real container, which picks the stub sensors off the robot, with stand-in
+		// motors so every flush has something to send.
+		RobotContainer container = new RobotContainer();
+		MotorOutputs outputs = container.getMotorOutputs();
+		SchedulerProfiler profiler = SchedulerProfiler.getInstance();
+
+		for(int i = 0; i < 8; i++)
+		{
+			outputs.add(new NullMotor("motor" + i), MotorRole.DRIVE);
+		}
+
+		// The same steps as Robot.robotPeriodic(), without the loop timer.
+		this.assertWithinBudget("Robot loop", wpilibBytes, MEASURED_CYCLES, cycle ->
+		{
+			long start = System.nanoTime();
+			container.getPeriodicRunner().run();
+			container.updateInputs();
+
+			profiler.startRun();
+			scheduler.run();
+			profiler.endRun();
+
+			for(int i = 0; i < outputs.getCount(); i++)
+			{
+				outputs.set(i, (cycle % 7) * 0.1d);
+			}
+
+			outputs.flush();
+			Vec2dPool.MAIN_LOOP.reset();
+			container.getDeferredWork().run(start);
+		});
+	}
+
+	private void assertWithinBudget(String name, long budgetBytes, int cycles, IntConsumer cycle)
+	{
+		long bytes = this.measureBytesPerCycle(cycles, cycle);
+		assertTrue(bytes <= budgetBytes, () -> name + " allocates " + bytes + " bytes per cycle, budget " + budgetBytes);
+	}
+
+	/**
+	 * @return The bytes the path allocates per cycle, rounded up, once warmed up.
+	 */
+	private long measureBytesPerCycle(int cycles, IntConsumer cycle)
+	{
+		for(int i = 0; i < cycles * WARMUP_FACTOR; i++)
+		{
+			cycle.accept(i);
+		}
+
+		// What measuring nothing costs, so it isn't blamed on the path.
+		long overhead = measure(value -> { }, 0);
+		long bytes = Long.MAX_VALUE;
+
+		for(int round = 0; round < ROUNDS; round++)
+		{
+			bytes = Math.min(bytes, Math.max(0L, measure(cycle, cycles) - overhead));
+		}
+
+		return (bytes + cycles - 1) / cycles;
+	}
+
+	private static long measure(IntConsumer cycle, int cycles)
+	{
+		long threadId = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(threadId);
+
+		for(int i = 0; i < cycles; i++)
+		{
+			cycle.accept(i);
+		}
+
+		return threads.getThreadAllocatedBytes(threadId) - before;
+	}
+}
@@ -0,0 +1,202 @@
+package frc.robot.auto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import frc.robot.math.MutableVec2d;
+import frc.robot.math.Vec2d;
+
+
+/**
+ * Drives a simulated robot along {@link PursuitPath}s with a {@link PurePursuitFollower} and
+ * checks the path's segment index against a plain scan.
+ */
+class PurePursuitFollowerTest
+{
+	private static final double LOOKAHEAD = 18d;
+	private static final double MAX_VELOCITY = 120d;
+	private static final double MAX_ACCELERATION = 100d;
+
+	/** Loop period of the simulated robot, in seconds. */
+	private static final double DT = 0.02d;
+
+	/** Most loops any of the test paths should take. */
+	private static final int MAX_LOOPS = 1500;
+
+	private final PurePursuitFollower follower = new PurePursuitFollower(LOOKAHEAD, MAX_VELOCITY, MAX_ACCELERATION, 4d, 6d);
+	private final MutableVec2d position = new MutableVec2d();
+	private final MutableVec2d velocity = new MutableVec2d();
+	private double heading;
+
+	@Test
+	void segmentIndexMatchesALinearScan()
+	{
+		// Uneven segments, from repeated points to several buckets long.
+		Random random = new Random(2023);
+		int count = 200;
+		double[] x = new double[count];
+		double[] y = new double[count];
+
+		for(int i = 1; i < count; i++)
+		{
+			double step = random.nextInt(5) == 0 ? 0d : random.nextDouble() * (random.nextBoolean() ? 2d : 40d);
+			double angle = random.nextDouble() * 2d * Math.PI;
+			x[i] = x[i - 1] + Math.cos(angle) * step;
+			y[i] = y[i - 1] + Math.sin(angle) * step;
+		}
+
+		PursuitPath path = new PursuitPath(x, y, new double[count]);
+		int previous = 0;
+
+		for(double along = -5d; along < path.getLength() + 5d; along += 0.37d)
+		{
+			int expected = scan(path, along);
+
+			assertEquals(expected, path.segmentAt(along, 0), "from the start at " + along);
+			assertEquals(expected, path.segmentAt(along, previous), "from the last answer at " + along);
+			previous = expected;
+		}
+
+		// Exactly on the points, where the scan steps over zero-length segments.
+		for(int i = 0; i < count; i++)
+		{
+			assertEquals(scan(path, path.getDistance(i)), path.segmentAt(path.getDistance(i), 0), "at point " + i);
+		}
+	}
+
+	@Test
+	void stopsAtTheEndWithinTolerance()
+	{
+		PursuitPath path = PursuitPath.fromWaypoints(0d, Math.PI / 2d, new Vec2d(0d, 0d), new Vec2d(80d, 0d), new Vec2d(80d, 60d));
+
+		assertTrue(this.drive(path), "never finished");
+		assertEquals(0d, this.follower.getVx());
+		assertEquals(0d, this.follower.getVy());
+		assertEquals(0d, this.follower.getOmega());
+		assertTrue(distanceToEnd(path) <= PurePursuitFollower.DISTANCE_TOLERANCE, "stopped " + distanceToEnd(path) + " in from the end");
+		assertEquals(Math.PI / 2d, this.heading, PurePursuitFollower.ANGLE_TOLERANCE);
+	}
+
+	@Test
+	void progressOnlyMovesForwardOnAPathThatCrossesItself()
+	{
+		// The last segment crosses the first at (50, 0).
+		PursuitPath path = PursuitPath.fromWaypoints(0d, 0d, new Vec2d(0d, 0d), new Vec2d(100d, 0d), new Vec2d(100d, 50d),
+			new Vec2d(50d, 50d), new Vec2d(50d, -50d));
+
+		// At the crossing on the way out, the robot is on the first segment, not the last.
+		this.follower.start(path);
+		this.follower.update(this.position.set(50d, 0d), 0d);
+		assertEquals(50d, this.follower.getProgress(), 1e-9d);
+
+		this.position.set(0d, 0d);
+		this.follower.start(path);
+		double progress = 0d;
+		double farthestX = 0d;
+
+		for(int i = 0; i < MAX_LOOPS && !this.follower.update(this.position, this.heading); i++)
+		{
+			assertTrue(this.follower.getProgress() >= progress, "progress went back at loop " + i);
+			progress = this.follower.getProgress();
+			farthestX = Math.max(farthestX, this.position.x);
+			this.step();
+		}
+
+		assertTrue(this.follower.isFinished(), "never finished");
+		assertTrue(farthestX > 90d, "cut across at the crossing");
+		assertTrue(distanceToEnd(path) <= PurePursuitFollower.DISTANCE_TOLERANCE);
+	}
+
+	@Test
+	void slowsDownWithinTheAccelerationLimit()
+	{
+		PursuitPath path = PursuitPath.fromWaypoints(0d, 0d, new Vec2d(0d, 0d), new Vec2d(150d, 0d));
+
+		this.position.set(0d, 0d);
+		this.follower.start(path);
+		double farthestX = 0d;
+
+		for(int i = 0; i < MAX_LOOPS && !this.follower.update(this.position, this.heading); i++)
+		{
+			// Never faster than it can stop from before the end.
+			double speed = Math.hypot(this.follower.getVx(), this.follower.getVy());
+			assertTrue(speed <= MAX_VELOCITY + 1e-9d, "over the top speed at loop " + i);
+			assertTrue(speed <= Math.sqrt(2d * MAX_ACCELERATION * distanceToEnd(path)) + 1e-9d, "too fast to stop at loop " + i);
+
+			this.step();
+			farthestX = Math.max(farthestX, this.position.x);
+		}
+
+		// A robot that can only brake at the limit still stops at the end.
+		assertTrue(this.follower.isFinished(), "never finished");
+		assertTrue(farthestX <= 150d + PurePursuitFollower.DISTANCE_TOLERANCE, "overshot to " + farthestX);
+	}
+
+	/**
+	 * Follows a path from its start until the follower finishes or the loop limit.
+	 *
+	 * @return Whether the follower finished.
+	 */
+	private boolean drive(PursuitPath path)
+	{
+		this.position.set(path.getX(0), path.getY(0));
+		this.heading = path.getHeading(0);
+		this.follower.start(path);
+
+		for(int i = 0; i < MAX_LOOPS; i++)
+		{
+			if(this.follower.update(this.position, this.heading))
+			{
+				return true;
+			}
+
+			this.step();
+		}
+
+		return false;
+	}
+
+	/**
+	 * Moves the simulated robot for one loop. Its velocity follows the follower's within the
+	 * acceleration limit, and it turns at the commanded rate.
+	 */
+	private void step()
+	{
+		double dvx = this.follower.getVx() - this.velocity.x;
+		double dvy = this.follower.getVy() - this.velocity.y;
+		double change = Math.hypot(dvx, dvy);
+		double limit = MAX_ACCELERATION * DT;
+
+		if(change > limit)
+		{
+			dvx *= limit / change;
+			dvy *= limit / change;
+		}
+
+		this.velocity.addInPlace(dvx, dvy);
+		this.position.addInPlace(this.velocity.x * DT, this.velocity.y * DT);
+		this.heading += this.follower.getOmega() * DT;
+	}
+
+	private double distanceToEnd(PursuitPath path)
+	{
+		int last = path.getPointCount() - 1;
+		return Math.hypot(path.getX(last) - this.position.x, path.getY(last) - this.position.y);
+	}
+
+	private static int scan(PursuitPath path, double along)
+	{
+		int segment = 0;
+
+		while(segment < path.getSegmentCount() - 1 && path.getDistance(segment + 1) <= along)
+		{
+			segment++;
+		}
+
+		return segment;
+	}
+}
@@ -0,0 +1,184 @@
+package frc.robot.hardware;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+
+
+/**
+ * Checks that {@link MotorOutputs} only sends commands that changed, using recording motors
+ * in place of real controllers.
+ */
+class MotorOutputsTest
+{
+	private static final class RecordingMotor implements MotorDevice
+	{
+		private final String name;
+		private final List<MotorRole> configuredRoles = new ArrayList<>();
+		private ControlMode lastMode;
+		private double lastValue;
+		private int writes;
+
+		private RecordingMotor(String name)
+		{
+			this.name = name;
+		}
+
+		@Override
+		public String getName()
+		{
+			return this.name;
+		}
+
+		@Override
+		public void set(ControlMode mode, double value)
+		{
+			this.lastMode = mode;
+			this.lastValue = value;
+			this.writes++;
+		}
+
+		@Override
+		public void configureStatusFrames(MotorRole role)
+		{
+			this.configuredRoles.add(role);
+		}
+	}
+
+	private MotorOutputs outputs;
+	private RecordingMotor drive;
+	private RecordingMotor steer;
+	private int driveId;
+	private int steerId;
+
+	@BeforeEach
+	void setUp()
+	{
+		this.outputs = new MotorOutputs(2);
+		this.drive = new RecordingMotor("drive");
+		this.steer = new RecordingMotor("steer");
+		this.driveId = this.outputs.add(this.drive, MotorRole.DRIVE);
+		this.steerId = this.outputs.add(this.steer, MotorRole.STEER);
+	}
+
+	@Test
+	void addConfiguresEachMotorForItsRoleOnce()
+	{
+		MotorOutputs outputs = new MotorOutputs(MotorRole.values().length);
+
+		for(MotorRole role : MotorRole.values())
+		{
+			RecordingMotor motor = new RecordingMotor(role.name());
+			outputs.add(motor, role);
+
+			assertEquals(List.of(role), motor.configuredRoles, "status frames of " + role);
+			assertEquals(0, motor.writes, "writes while adding " + role);
+		}
+	}
+
+	@Test
+	void addRejectsMotorsPastCapacity()
+	{
+		assertThrows(IllegalStateException.class, () -> this.outputs.add(new RecordingMotor("extra"), MotorRole.MECHANISM));
+	}
+
+	@Test
+	void firstFlushSendsNeutralToEveryMotor()
+	{
+		assertEquals(2, this.outputs.flush());
+		assertSame(ControlMode.PercentOutput, this.drive.lastMode);
+		assertEquals(0d, this.drive.lastValue);
+		assertSame(ControlMode.PercentOutput, this.steer.lastMode);
+	}
+
+	@Test
+	void flushSendsOnlyChangedMotors()
+	{
+		this.outputs.flush();
+
+		this.outputs.set(this.driveId, 0.5d);
+
+		assertEquals(1, this.outputs.flush());
+		assertEquals(2, this.drive.writes);
+		assertEquals(0.5d, this.drive.lastValue);
+		assertEquals(1, this.steer.writes);
+
+		assertEquals(0, this.outputs.flush());
+		assertEquals(2, this.drive.writes);
+	}
+
+	@Test
+	void flushSendsOnlyTheLatestRequest()
+	{
+		this.outputs.flush();
+
+		this.outputs.set(this.driveId, 0.2d);
+		this.outputs.set(this.driveId, 0.7d);
+
+		assertEquals(1, this.outputs.flush());
+		assertEquals(2, this.drive.writes);
+		assertEquals(0.7d, this.drive.lastValue);
+	}
+
+	@Test
+	void flushSkipsChangesWithinTheModeEpsilon()
+	{
+		this.outputs.set(this.driveId, 0.5d);
+		this.outputs.set(this.steerId, ControlMode.Position, 100d);
+		this.outputs.flush();
+
+		this.outputs.set(this.driveId, 0.5d + MotorOutputs.PERCENT_EPSILON / 2d);
+		this.outputs.set(this.steerId, ControlMode.Position, 100d + MotorOutputs.POSITION_EPSILON);
+
+		assertEquals(0, this.outputs.flush());
+		assertEquals(1, this.drive.writes);
+		assertEquals(1, this.steer.writes);
+		assertEquals(2, this.outputs.getSkipCount());
+
+		this.outputs.set(this.driveId, 0.5d + MotorOutputs.PERCENT_EPSILON * 2d);
+
+		assertEquals(1, this.outputs.flush());
+		assertEquals(0.5d + MotorOutputs.PERCENT_EPSILON * 2d, this.drive.lastValue);
+	}
+
+	@Test
+	void flushSendsAModeChangeEvenWithTheSameValue()
+	{
+		this.outputs.set(this.driveId, ControlMode.Velocity, 0d);
+
+		this.outputs.flush();
+
+		assertSame(ControlMode.Velocity, this.drive.lastMode);
+		assertEquals(1, this.drive.writes);
+	}
+
+	@Test
+	void invalidateResendsEveryMotor()
+	{
+		this.outputs.flush();
+		this.outputs.invalidate();
+
+		assertEquals(2, this.outputs.flush());
+		assertEquals(2, this.drive.writes);
+		assertEquals(2, this.steer.writes);
+		assertEquals(4, this.outputs.getWriteCount());
+	}
+
+	@Test
+	void nothingIsSentBeforeFlush()
+	{
+		this.outputs.set(this.driveId, 1d);
+
+		assertNull(this.drive.lastMode);
+		assertEquals(1d, this.outputs.getRequested(this.driveId));
+	}
+}
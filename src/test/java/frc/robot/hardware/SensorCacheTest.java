@@ -0,0 +1,180 @@
+package frc.robot.hardware;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.math.SwerveKinematics;
+
+
+/**
+ * Checks that {@link SensorCache} reads every sensor once per refresh, serves the same
+ * readings until the next one, and shares them with other threads as one consistent copy.
+ */
+class SensorCacheTest
+{
+	private static final int MODULES = 4;
+
+	private final StubSensors sensors = new StubSensors(MODULES);
+	private final SensorCache cache = new SensorCache(this.sensors);
+
+	@Test
+	void refreshReadsEverySensor()
+	{
+		this.setReadings(1d);
+
+		double before = Timer.getFPGATimestamp();
+		this.cache.refresh();
+		double after = Timer.getFPGATimestamp();
+
+		assertTrue(this.cache.getTimestamp() >= before && this.cache.getTimestamp() <= after, "timestamp " + this.cache.getTimestamp());
+		assertEquals(0.5d, this.cache.getYaw());
+		assertEquals(-0.25d, this.cache.getYawRate());
+
+		for(int i = 0; i < MODULES; i++)
+		{
+			assertEquals(100d * i + 1d, this.cache.getDrivePosition(i));
+			assertEquals(10d * i + 1d, this.cache.getDriveVelocity(i));
+			assertEquals(1000d * i + 1d, this.cache.getSteerPosition(i));
+			assertEquals((1000d * i + 1d) * SwerveKinematics.STEER_TICK_TO_RAD, this.cache.getModuleAngle(i));
+		}
+	}
+
+	@Test
+	void moduleArraysMatchTheGetters()
+	{
+		this.setReadings(3d);
+		this.cache.refresh();
+
+		double[] drivePositions = this.cache.getDrivePositions();
+		double[] moduleAngles = this.cache.getModuleAngles();
+
+		assertEquals(MODULES, drivePositions.length);
+		assertEquals(MODULES, moduleAngles.length);
+
+		for(int i = 0; i < MODULES; i++)
+		{
+			assertEquals(this.cache.getDrivePosition(i), drivePositions[i]);
+			assertEquals(this.cache.getModuleAngle(i), moduleAngles[i]);
+		}
+
+		// The same arrays are refilled rather than replaced.
+		this.cache.refresh();
+		assertSame(drivePositions, this.cache.getDrivePositions());
+		assertSame(moduleAngles, this.cache.getModuleAngles());
+	}
+
+	@Test
+	void readingsStayTheSameUntilTheNextRefresh()
+	{
+		this.setReadings(1d);
+		this.cache.refresh();
+		this.setReadings(2d);
+
+		assertEquals(1d, this.cache.getDrivePosition(0));
+		assertEquals(1d, this.cache.getSteerPosition(0));
+
+		this.cache.refresh();
+
+		assertEquals(2d, this.cache.getDrivePosition(0));
+		assertEquals(2d, this.cache.getSteerPosition(0));
+	}
+
+	@Test
+	void sharedReadingsFollowTheDocumentedLayout()
+	{
+		double[] shared = new double[this.cache.size()];
+
+		assertEquals(3 + 3 * MODULES, this.cache.size());
+		assertEquals(0, this.cache.readShared(shared));
+
+		this.setReadings(1d);
+		this.cache.refresh();
+
+		assertEquals(1, this.cache.readShared(shared));
+		assertEquals(this.cache.getTimestamp(), shared[SensorCache.TIMESTAMP]);
+		assertEquals(0.5d, shared[SensorCache.YAW]);
+		assertEquals(-0.25d, shared[SensorCache.YAW_RATE]);
+
+		for(int i = 0; i < MODULES; i++)
+		{
+			assertEquals(100d * i + 1d, shared[SensorCache.drivePositionIndex(i)]);
+			assertEquals(10d * i + 1d, shared[SensorCache.driveVelocityIndex(i)]);
+			assertEquals(1000d * i + 1d, shared[SensorCache.steerPositionIndex(i)]);
+			assertEquals("sensors/module" + i + "/steerPosition", SensorCache.getName(SensorCache.steerPositionIndex(i)));
+		}
+
+		// A copy taken earlier is not touched by later refreshes.
+		double[] copy = shared.clone();
+		this.setReadings(2d);
+		this.cache.refresh();
+
+		assertArrayEquals(copy, shared);
+		assertEquals(2, this.cache.readShared(shared));
+		assertEquals(2d, shared[SensorCache.drivePositionIndex(0)]);
+	}
+
+	@Test
+	void sharedReadingsAreNeverTorn() throws InterruptedException
+	{
+		AtomicBoolean stop = new AtomicBoolean();
+
+		// Every module reading is set from the same counter, so a copy mixing two refreshes shows up.
+		Thread loop = new Thread(() ->
+		{
+			for(int i = 0; !stop.get(); i++)
+			{
+				for(int module = 0; module < MODULES; module++)
+				{
+					this.sensors.setModule(module, i, i, i);
+				}
+
+				this.cache.refresh();
+			}
+		});
+
+		loop.start();
+
+		try
+		{
+			double[] shared = new double[this.cache.size()];
+
+			for(int i = 0; i < 200_000; i++)
+			{
+				this.cache.readShared(shared);
+				double expected = shared[SensorCache.drivePositionIndex(0)];
+
+				for(int module = 0; module < MODULES; module++)
+				{
+					assertEquals(expected, shared[SensorCache.drivePositionIndex(module)]);
+					assertEquals(expected, shared[SensorCache.driveVelocityIndex(module)]);
+					assertEquals(expected, shared[SensorCache.steerPositionIndex(module)]);
+				}
+			}
+		}
+		finally
+		{
+			stop.set(true);
+			loop.join();
+		}
+	}
+
+	/**
+	 * Sets distinct readings on every sensor, offset by the passed value.
+	 */
+	private void setReadings(double offset)
+	{
+		this.sensors.setGyro(0.5d, -0.25d);
+
+		for(int i = 0; i < MODULES; i++)
+		{
+			this.sensors.setModule(i, 100d * i + offset, 10d * i + offset, 1000d * i + offset);
+		}
+	}
+}
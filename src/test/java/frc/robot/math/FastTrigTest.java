@@ -0,0 +1,110 @@
+package frc.robot.math;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Checks {@link FastTrig} against {@link Math} within its documented error bounds.
+ */
+class FastTrigTest
+{
+	/** Number of angles swept across each range. */
+	private static final int SAMPLES = 1_000_003;
+
+	@Test
+	void sinAndCosAreWithinTheirBoundOverSeveralTurns()
+	{
+		double worst = 0d;
+
+		for(int i = 0; i < SAMPLES; i++)
+		{
+			double radians = -20d + 40d * i / SAMPLES;
+			worst = Math.max(worst, Math.abs(FastTrig.sin(radians) - Math.sin(radians)));
+			worst = Math.max(worst, Math.abs(FastTrig.cos(radians) - Math.cos(radians)));
+		}
+
+		assertTrue(worst <= FastTrig.MAX_SIN_COS_ERROR, "sin/cos error " + worst);
+	}
+
+	@Test
+	void sinAndCosAreWithinTheirBoundForLargeAngles()
+	{
+		double worst = 0d;
+
+		for(int i = 0; i < SAMPLES; i++)
+		{
+			double radians = 999_000d + 1_000d * i / SAMPLES;
+			worst = Math.max(worst, Math.abs(FastTrig.sin(radians) - Math.sin(radians)));
+			worst = Math.max(worst, Math.abs(FastTrig.cos(-radians) - Math.cos(-radians)));
+		}
+
+		assertTrue(worst <= FastTrig.MAX_SIN_COS_ERROR, "sin/cos error " + worst);
+	}
+
+	@Test
+	void sinAndCosAreExactEnoughOnTheAxes()
+	{
+		for(int quarter = -8; quarter <= 8; quarter++)
+		{
+			double radians = quarter * Math.PI / 2d;
+			assertEquals(Math.sin(radians), FastTrig.sin(radians), FastTrig.MAX_SIN_COS_ERROR, "sin at " + quarter + " quarter turns");
+			assertEquals(Math.cos(radians), FastTrig.cos(radians), FastTrig.MAX_SIN_COS_ERROR, "cos at " + quarter + " quarter turns");
+		}
+	}
+
+	@Test
+	void atan2IsWithinItsBoundAllTheWayAround()
+	{
+		double worst = 0d;
+
+		for(int i = 0; i < SAMPLES; i++)
+		{
+			double angle = -Math.PI + 2d * Math.PI * i / SAMPLES;
+			double length = 1e-3d + 1e3d * (i % 7);
+			double y = Math.sin(angle) * length;
+			double x = Math.cos(angle) * length;
+			worst = Math.max(worst, Math.abs(FastTrig.atan2(y, x) - Math.atan2(y, x)));
+		}
+
+		assertTrue(worst <= FastTrig.MAX_ATAN2_ERROR, "atan2 error " + worst);
+	}
+
+	@Test
+	void atan2MatchesMathOnTheAxesAndDiagonals()
+	{
+		double[][] points = {
+			{0d, 1d}, {1d, 0d}, {0d, -1d}, {-1d, 0d},
+			{1d, 1d}, {1d, -1d}, {-1d, 1d}, {-1d, -1d},
+			{1e-300d, 1d}, {-1e-300d, -1d}, {1d, 1e-300d}, {-1d, -1e-300d},
+		};
+
+		for(double[] point : points)
+		{
+			double y = point[0];
+			double x = point[1];
+			assertEquals(Math.atan2(y, x), FastTrig.atan2(y, x), FastTrig.MAX_ATAN2_ERROR, "atan2(" + y + ", " + x + ")");
+		}
+	}
+
+	@Test
+	void atan2StaysInItsRange()
+	{
+		for(int i = 0; i < SAMPLES; i++)
+		{
+			double angle = -Math.PI + 2d * Math.PI * i / SAMPLES;
+			double result = FastTrig.atan2(Math.sin(angle), Math.cos(angle));
+			assertTrue(result >= -Math.PI && result <= Math.PI, "atan2 out of range at " + angle);
+		}
+	}
+
+	@Test
+	void atan2OfTheZeroVectorIsZero()
+	{
+		assertEquals(0d, FastTrig.atan2(0d, 0d));
+		assertEquals(0d, FastTrig.atan2(-0d, -0d));
+		assertEquals(0d, new MutableVec2d().getAngle());
+	}
+}
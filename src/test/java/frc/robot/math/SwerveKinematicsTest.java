@@ -0,0 +1,182 @@
+package frc.robot.math;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Checks {@link SwerveKinematics} round trips, the flip-and-reverse choice at 90° and that
+ * steering commands stay continuous across whole turns.
+ */
+class SwerveKinematicsTest
+{
+	/** Allowed error in velocities and angles, mostly from {@link FastTrig}. */
+	private static final double EPSILON = 1e-3d;
+
+	private static final double MAX_SPEED = 200d;
+
+	@Test
+	void forwardKinematicsUndoesInverseKinematics()
+	{
+		// A square around the center of rotation, and one off to the side of it.
+		SwerveKinematics[] drives = {
+			new SwerveKinematics(new Vec2d(12d, 12d), new Vec2d(-12d, 12d), new Vec2d(-12d, -12d), new Vec2d(12d, -12d)),
+			new SwerveKinematics(new Vec2d(30d, 5d), new Vec2d(6d, 5d), new Vec2d(6d, -19d), new Vec2d(30d, -19d))
+		};
+		double[][] motions = {
+			{0d, 0d, 0d},
+			{100d, 0d, 0d},
+			{-30d, 70d, 0d},
+			{0d, 0d, 2d},
+			{40d, -25d, -1.5d},
+			{-60d, -10d, 3d}
+		};
+
+		for(SwerveKinematics drive : drives)
+		{
+			for(double[] motion : motions)
+			{
+				drive.toModuleStates(motion[0], motion[1], motion[2], MAX_SPEED);
+				measureCommands(drive);
+				drive.toChassisSpeeds();
+
+				assertEquals(motion[0], drive.getChassisVx(), EPSILON);
+				assertEquals(motion[1], drive.getChassisVy(), EPSILON);
+				assertEquals(motion[2], drive.getChassisOmega(), EPSILON);
+			}
+		}
+	}
+
+	@Test
+	void modulesTurnAtMostAQuarterTurnAndReverseInstead()
+	{
+		SwerveKinematics drive = square();
+
+		// Just under 90° away: turn and drive forward.
+		drive.toModuleStates(Math.cos(degrees(89d)) * 50d, Math.sin(degrees(89d)) * 50d, 0d, MAX_SPEED);
+		assertEquals(degrees(89d), drive.getTargetAngle(0), EPSILON);
+		assertEquals(50d, drive.getTargetSpeed(0), EPSILON);
+
+		// Just over 90° away: turn the other way and drive in reverse.
+		drive.toModuleStates(Math.cos(degrees(91d)) * 50d, Math.sin(degrees(91d)) * 50d, 0d, MAX_SPEED);
+		assertEquals(degrees(-89d), drive.getTargetAngle(0), EPSILON);
+		assertEquals(-50d, drive.getTargetSpeed(0), EPSILON);
+		assertEquals(-50d * SwerveKinematics.IN_PER_SEC_TO_TICKS_PER_100MS, drive.getDriveTicksPer100ms(0), EPSILON);
+
+		drive.toModuleStates(Math.cos(degrees(-91d)) * 50d, Math.sin(degrees(-91d)) * 50d, 0d, MAX_SPEED);
+		assertEquals(degrees(89d), drive.getTargetAngle(0), EPSILON);
+		assertEquals(-50d, drive.getTargetSpeed(0), EPSILON);
+
+		// Straight behind: don't turn at all.
+		drive.toModuleStates(-50d, 0d, 0d, MAX_SPEED);
+		assertEquals(0d, drive.getTargetAngle(0), EPSILON);
+		assertEquals(-50d, drive.getTargetSpeed(0), EPSILON);
+	}
+
+	@Test
+	void everyCommandIsWithinAQuarterTurnOfTheMeasuredAngle()
+	{
+		SwerveKinematics drive = square();
+
+		for(int measured = -720; measured <= 720; measured += 15)
+		{
+			for(int requested = -180; requested < 180; requested += 7)
+			{
+				drive.setMeasuredSteerTicks(0, degrees(measured) * SwerveKinematics.RAD_TO_STEER_TICK);
+				drive.toModuleStates(Math.cos(degrees(requested)) * 50d, Math.sin(degrees(requested)) * 50d, 0d, MAX_SPEED);
+
+				String where = "measured " + measured + "°, requested " + requested + "°";
+				double angle = drive.getTargetAngle(0);
+				double speed = drive.getTargetSpeed(0);
+
+				assertTrue(Math.abs(angle - degrees(measured)) <= Math.PI / 2d + EPSILON, where);
+
+				// Whichever way it points, the module still pushes in the requested direction.
+				assertEquals(Math.cos(degrees(requested)) * 50d, Math.cos(angle) * speed, EPSILON, where);
+				assertEquals(Math.sin(degrees(requested)) * 50d, Math.sin(angle) * speed, EPSILON, where);
+			}
+		}
+	}
+
+	@Test
+	void steerTicksStayContinuousAcrossWholeTurns()
+	{
+		SwerveKinematics drive = square();
+
+		// At 350°, 10° is sent to 370° rather than spun back 340°.
+		drive.setMeasuredSteerTicks(0, degrees(350d) * SwerveKinematics.RAD_TO_STEER_TICK);
+		drive.toModuleStates(Math.cos(degrees(10d)) * 50d, Math.sin(degrees(10d)) * 50d, 0d, MAX_SPEED);
+		assertEquals(degrees(370d), drive.getTargetAngle(0), EPSILON);
+		assertEquals(degrees(370d) * SwerveKinematics.RAD_TO_STEER_TICK, drive.getSteerTicks(0), EPSILON * SwerveKinematics.RAD_TO_STEER_TICK);
+
+		// Several turns in either direction stay where they are.
+		drive.setMeasuredSteerTicks(0, degrees(-1075d) * SwerveKinematics.RAD_TO_STEER_TICK);
+		drive.toModuleStates(50d, 0d, 0d, MAX_SPEED);
+		assertEquals(degrees(-1080d), drive.getTargetAngle(0), EPSILON);
+		assertEquals(50d, drive.getTargetSpeed(0), EPSILON);
+
+		// Ticks and angles convert back and forth exactly enough.
+		drive.setMeasuredSteerTicks(0, drive.getSteerTicks(0));
+		assertEquals(degrees(-1080d), drive.getMeasuredAngle(0), 1e-12d);
+	}
+
+	@Test
+	void aStoppedModuleHoldsItsAngle()
+	{
+		SwerveKinematics drive = square();
+		drive.setMeasuredSteerTicks(0, degrees(123d) * SwerveKinematics.RAD_TO_STEER_TICK);
+		drive.toModuleStates(0d, 0d, 0d, MAX_SPEED);
+
+		assertEquals(degrees(123d), drive.getTargetAngle(0), 1e-12d);
+		assertEquals(0d, drive.getTargetSpeed(0));
+	}
+
+	@Test
+	void tooFastCommandsAreSlowedEvenly()
+	{
+		SwerveKinematics drive = square();
+		drive.toModuleStates(300d, 0d, 10d, MAX_SPEED);
+
+		double fastest = 0d;
+
+		for(int i = 0; i < drive.getModuleCount(); i++)
+		{
+			fastest = Math.max(fastest, Math.abs(drive.getTargetSpeed(i)));
+		}
+
+		assertEquals(MAX_SPEED, fastest, EPSILON);
+
+		// The slowed modules still add up to the same motion, scaled.
+		measureCommands(drive);
+		drive.toChassisSpeeds();
+		double scale = drive.getChassisVx() / 300d;
+
+		assertTrue(scale < 1d);
+		assertEquals(0d, drive.getChassisVy(), EPSILON);
+		assertEquals(10d * scale, drive.getChassisOmega(), EPSILON);
+	}
+
+	/**
+	 * Feeds the last commands back in as measurements, as if every module reached them.
+	 */
+	private static void measureCommands(SwerveKinematics drive)
+	{
+		for(int i = 0; i < drive.getModuleCount(); i++)
+		{
+			drive.setMeasuredSteerTicks(i, drive.getSteerTicks(i));
+			drive.setMeasuredDriveVelocity(i, drive.getDriveTicksPer100ms(i));
+		}
+	}
+
+	private static SwerveKinematics square()
+	{
+		return new SwerveKinematics(new Vec2d(12d, 12d), new Vec2d(-12d, 12d), new Vec2d(-12d, -12d), new Vec2d(12d, -12d));
+	}
+
+	private static double degrees(double degrees)
+	{
+		return Math.toRadians(degrees);
+	}
+}
@@ -0,0 +1,264 @@
+package frc.robot.navigation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Checks the paths {@link GridPlanner} finds on small hand-made grids with one inch cells.
+ */
+class GridPlannerTest
+{
+	/** Distance between the points checked along each path segment, in inches. */
+	private static final double SEGMENT_STEP = 0.05d;
+
+	@Test
+	void aClearLineOfSightGivesTwoWaypoints()
+	{
+		GridPlanner planner = new GridPlanner(emptyGrid(20, 20));
+
+		assertEquals(2, planner.plan(1.5d, 1.5d, 15.25d, 12.75d));
+		assertEquals(1.5d, planner.getWaypointX(0));
+		assertEquals(1.5d, planner.getWaypointY(0));
+		assertEquals(15.25d, planner.getWaypointX(1));
+		assertEquals(12.75d, planner.getWaypointY(1));
+	}
+
+	@Test
+	void pathsRouteAroundABlock()
+	{
+		// A wall across x = 10 with a gap at the top.
+		boolean[][] blocked = new boolean[20][20];
+
+		for(int y = 0; y < 15; y++)
+		{
+			blocked[10][y] = true;
+		}
+
+		OccupancyGrid grid = grid(blocked);
+		GridPlanner planner = new GridPlanner(grid);
+
+		int count = planner.plan(2.5d, 2.5d, 17.5d, 2.5d);
+
+		assertTrue(count >= 3, "waypoints " + count);
+		assertPathIsClear(grid, planner);
+
+		boolean overTheWall = false;
+
+		for(int i = 0; i < count; i++)
+		{
+			overTheWall |= planner.getWaypointY(i) >= 15d;
+		}
+
+		assertTrue(overTheWall, "path never goes through the gap");
+	}
+
+	@Test
+	void aBlockedStartIsMovedToTheNearestFreeCell()
+	{
+		boolean[][] blocked = new boolean[20][20];
+		fill(blocked, 2, 2, 5, 5);
+
+		OccupancyGrid grid = grid(blocked);
+		GridPlanner planner = new GridPlanner(grid);
+
+		int count = planner.plan(3.5d, 3.5d, 15.5d, 15.5d);
+
+		assertTrue(count >= 2, "waypoints " + count);
+
+		// The robot is where it is, so the path still starts there.
+		assertEquals(3.5d, planner.getWaypointX(0));
+		assertEquals(3.5d, planner.getWaypointY(0));
+		assertEquals(15.5d, planner.getWaypointX(count - 1));
+		assertEquals(15.5d, planner.getWaypointY(count - 1));
+	}
+
+	@Test
+	void aBlockedGoalIsMovedToTheNearestFreeCell()
+	{
+		boolean[][] blocked = new boolean[20][20];
+		fill(blocked, 12, 12, 15, 15);
+
+		OccupancyGrid grid = grid(blocked);
+		GridPlanner planner = new GridPlanner(grid);
+
+		int count = planner.plan(1.5d, 1.5d, 13.5d, 13.5d);
+
+		assertTrue(count >= 2, "waypoints " + count);
+
+		double goalX = planner.getWaypointX(count - 1);
+		double goalY = planner.getWaypointY(count - 1);
+
+		assertFalse(grid.isBlocked(grid.toCellX(goalX), grid.toCellY(goalY)), "goal left in the block");
+		assertTrue(Math.abs(goalX - 13.5d) <= GridPlanner.FREE_CELL_SEARCH_RADIUS, "goal moved too far in x");
+		assertTrue(Math.abs(goalY - 13.5d) <= GridPlanner.FREE_CELL_SEARCH_RADIUS, "goal moved too far in y");
+		assertPathIsClear(grid, planner);
+	}
+
+	@Test
+	void anEnclosedGoalHasNoPath()
+	{
+		// A ring around the goal, too thick to search past.
+		boolean[][] blocked = new boolean[40][40];
+		fill(blocked, 10, 10, 30, 30);
+
+		for(int x = 19; x <= 21; x++)
+		{
+			for(int y = 19; y <= 21; y++)
+			{
+				blocked[x][y] = false;
+			}
+		}
+
+		GridPlanner planner = new GridPlanner(grid(blocked));
+
+		assertEquals(0, planner.plan(2.5d, 2.5d, 20.5d, 20.5d));
+		assertEquals(0, planner.getWaypointCount());
+		assertEquals(0, planner.getWaypoints().length);
+	}
+
+	@Test
+	void aStartTooDeepInAnObstacleHasNoPath()
+	{
+		boolean[][] blocked = new boolean[40][40];
+		fill(blocked, 0, 0, 30, 30);
+
+		GridPlanner planner = new GridPlanner(grid(blocked));
+
+		assertEquals(0, planner.plan(5.5d, 5.5d, 35.5d, 35.5d));
+	}
+
+	@Test
+	void aPathWithTooManyBendsIsReportedApartFromNoPath()
+	{
+		GridPlanner planner = new GridPlanner(grid(serpentine(10, 40)));
+
+		assertEquals(GridPlanner.TOO_MANY_WAYPOINTS, planner.plan(0.5d, 0.5d, 0.5d, 80.5d));
+		assertEquals(0, planner.getWaypointCount());
+
+		// The same maze with fewer turns fits.
+		GridPlanner shortPlanner = new GridPlanner(grid(serpentine(10, 4)));
+		int count = shortPlanner.plan(0.5d, 0.5d, 0.5d, 8.5d);
+
+		assertTrue(count > 2 && count <= GridPlanner.MAX_WAYPOINTS, "waypoints " + count);
+	}
+
+	@Test
+	void planningAgainGivesTheSamePath()
+	{
+		GridPlanner planner = new GridPlanner(grid(serpentine(10, 4)));
+
+		int count = planner.plan(0.5d, 0.5d, 0.5d, 8.5d);
+		double[] first = waypoints(planner);
+
+		planner.plan(9.5d, 0.5d, 9.5d, 8.5d);
+
+		assertEquals(count, planner.plan(0.5d, 0.5d, 0.5d, 8.5d));
+		assertArrayEquals(first, waypoints(planner));
+	}
+
+	/**
+	 * Checks every point along every segment of the last plan, except the start, which may
+	 * be inside an obstacle.
+	 */
+	private static void assertPathIsClear(OccupancyGrid grid, GridPlanner planner)
+	{
+		for(int i = 1; i < planner.getWaypointCount(); i++)
+		{
+			double x0 = planner.getWaypointX(i - 1);
+			double y0 = planner.getWaypointY(i - 1);
+			double x1 = planner.getWaypointX(i);
+			double y1 = planner.getWaypointY(i);
+			int steps = (int) Math.ceil(Math.hypot(x1 - x0, y1 - y0) / SEGMENT_STEP);
+
+			for(int step = 0; step <= steps; step++)
+			{
+				double x = x0 + (x1 - x0) * step / steps;
+				double y = y0 + (y1 - y0) * step / steps;
+
+				if(i > 1 || !grid.isBlocked(grid.toCellX(x0), grid.toCellY(y0)))
+				{
+					assertFalse(grid.isBlocked(grid.toCellX(x), grid.toCellY(y)), "segment " + i + " crosses (" + x + ", " + y + ")");
+				}
+			}
+		}
+	}
+
+	private static double[] waypoints(GridPlanner planner)
+	{
+		double[] waypoints = new double[2 * planner.getWaypointCount()];
+
+		for(int i = 0; i < planner.getWaypointCount(); i++)
+		{
+			waypoints[2 * i] = planner.getWaypointX(i);
+			waypoints[2 * i + 1] = planner.getWaypointY(i);
+		}
+
+		return waypoints;
+	}
+
+	/**
+	 * @return A maze of walls on every odd row, each with a one cell gap at alternating ends,
+	 * so a path from the bottom row to the top must turn at every wall.
+	 */
+	private static boolean[][] serpentine(int width, int walls)
+	{
+		boolean[][] blocked = new boolean[width][2 * walls + 1];
+
+		for(int wall = 0; wall < walls; wall++)
+		{
+			int gap = wall % 2 == 0 ? width - 1 : 0;
+
+			for(int x = 0; x < width; x++)
+			{
+				blocked[x][2 * wall + 1] = x != gap;
+			}
+		}
+
+		return blocked;
+	}
+
+	private static void fill(boolean[][] blocked, int minX, int minY, int maxX, int maxY)
+	{
+		for(int x = minX; x <= maxX; x++)
+		{
+			for(int y = minY; y <= maxY; y++)
+			{
+				blocked[x][y] = true;
+			}
+		}
+	}
+
+	private static OccupancyGrid emptyGrid(int width, int height)
+	{
+		return grid(new boolean[width][height]);
+	}
+
+	/**
+	 * @param blocked - which cells are blocked, indexed by column then row
+	 */
+	private static OccupancyGrid grid(boolean[][] blocked)
+	{
+		int width = blocked.length;
+		int height = blocked[0].length;
+		long[] words = new long[OccupancyGrid.wordCount(width, height)];
+
+		for(int x = 0; x < width; x++)
+		{
+			for(int y = 0; y < height; y++)
+			{
+				if(blocked[x][y])
+				{
+					int cell = y * width + x;
+					words[cell >>> 6] |= 1L << cell;
+				}
+			}
+		}
+
+		return new OccupancyGrid(width, height, 1d, 0L, words);
+	}
+}
@@ -0,0 +1,179 @@
+package frc.robot.odometry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import frc.robot.math.MutableVec2d;
+
+
+/**
+ * Checks {@link PoseHistory} lookups, interpolation and wrapping, and that a lookup racing
+ * an add never sees a half-written pose.
+ */
+class PoseHistoryTest
+{
+	private static final double EPSILON = 1e-9d;
+
+	private final MutableVec2d position = new MutableVec2d();
+
+	@Test
+	void emptyHistoryReturnsNaN()
+	{
+		PoseHistory history = new PoseHistory(8);
+
+		assertTrue(Double.isNaN(history.sample(1d, this.position)));
+		assertTrue(Double.isNaN(history.latest(this.position)));
+		assertEquals(0d, this.position.x);
+		assertEquals(0d, this.position.y);
+	}
+
+	@Test
+	void timesOutsideTheHistoryReturnTheNearestEnd()
+	{
+		PoseHistory history = new PoseHistory(8);
+		history.add(1d, 10d, 20d, 0.1d);
+		history.add(2d, 30d, 40d, 0.2d);
+
+		assertEquals(0.1d, history.sample(0.5d, this.position), EPSILON);
+		assertEquals(10d, this.position.x, EPSILON);
+		assertEquals(20d, this.position.y, EPSILON);
+
+		assertEquals(0.2d, history.sample(9d, this.position), EPSILON);
+		assertEquals(30d, this.position.x, EPSILON);
+		assertEquals(40d, this.position.y, EPSILON);
+
+		assertEquals(0.2d, history.latest(this.position), EPSILON);
+	}
+
+	@Test
+	void lookupsInterpolateBetweenTheSurroundingPoses()
+	{
+		PoseHistory history = new PoseHistory(8);
+		history.add(1d, 0d, 0d, 0d);
+		history.add(2d, 10d, -20d, 1d);
+
+		assertEquals(0.25d, history.sample(1.25d, this.position), EPSILON);
+		assertEquals(2.5d, this.position.x, EPSILON);
+		assertEquals(-5d, this.position.y, EPSILON);
+	}
+
+	@Test
+	void lookupsFindTheRightPoseAtEveryTime()
+	{
+		PoseHistory history = new PoseHistory(100);
+
+		// Uneven spacing, so a lookup in the wrong interval interpolates to the wrong value.
+		for(int i = 0; i < 100; i++)
+		{
+			history.add(time(i), 3d * i, -i, 0d);
+		}
+
+		for(int i = 0; i < 99; i++)
+		{
+			for(double t = 0d; t < 1d; t += 0.125d)
+			{
+				double timestamp = time(i) + (time(i + 1) - time(i)) * t;
+				history.sample(timestamp, this.position);
+				assertEquals(3d * (i + t), this.position.x, 1e-6d, "x at " + timestamp);
+				assertEquals(-(i + t), this.position.y, 1e-6d, "y at " + timestamp);
+			}
+		}
+	}
+
+	@Test
+	void aFullHistoryDropsTheOldestPoses()
+	{
+		PoseHistory history = new PoseHistory(4);
+
+		for(int i = 0; i < 10; i++)
+		{
+			history.add(i, i, 0d, 0d);
+		}
+
+		assertEquals(4, history.size());
+
+		// Poses 0 to 5 are gone, so earlier times clamp to pose 6.
+		history.sample(2d, this.position);
+		assertEquals(6d, this.position.x, EPSILON);
+
+		// Lookups work across the end of the underlying arrays.
+		for(double timestamp = 6d; timestamp <= 9d; timestamp += 0.25d)
+		{
+			history.sample(timestamp, this.position);
+			assertEquals(timestamp, this.position.x, EPSILON);
+		}
+	}
+
+	@Test
+	void headingsInterpolateTheShortWayAcrossPi()
+	{
+		PoseHistory history = new PoseHistory(4);
+		history.add(0d, 0d, 0d, Math.PI - 0.1d);
+		history.add(1d, 0d, 0d, -Math.PI + 0.1d);
+
+		// Halfway is π, not 0.
+		double heading = history.sample(0.5d, this.position);
+		assertEquals(0d, Math.sin(heading), EPSILON);
+		assertEquals(-1d, Math.cos(heading), EPSILON);
+
+		assertEquals(Math.PI - 0.05d, history.sample(0.25d, this.position), EPSILON);
+	}
+
+	@Test
+	void clearRemovesEveryPose()
+	{
+		PoseHistory history = new PoseHistory(4);
+		history.add(1d, 1d, 1d, 1d);
+		history.clear();
+
+		assertEquals(0, history.size());
+		assertTrue(Double.isNaN(history.latest(this.position)));
+	}
+
+	@Test
+	void lookupsNeverSeeAHalfWrittenPose() throws InterruptedException
+	{
+		PoseHistory history = new PoseHistory(4);
+		AtomicBoolean stop = new AtomicBoolean();
+
+		// Every pose has y == 2x and heading == x, so a lookup mixing two poses shows up.
+		Thread writer = new Thread(() ->
+		{
+			for(int i = 0; !stop.get(); i++)
+			{
+				history.add(i, i, 2d * i, i);
+			}
+		});
+
+		writer.start();
+
+		try
+		{
+			for(int i = 0; i < 1_000_000; i++)
+			{
+				// The oldest pose is the one the next add overwrites.
+				double heading = history.sample(Double.NEGATIVE_INFINITY, this.position);
+
+				if(!Double.isNaN(heading))
+				{
+					assertEquals(this.position.x, heading);
+					assertEquals(2d * this.position.x, this.position.y);
+				}
+			}
+		}
+		finally
+		{
+			stop.set(true);
+			writer.join();
+		}
+	}
+
+	private static double time(int i)
+	{
+		return i + 0.01d * i * i;
+	}
+}